@@ -286,6 +286,28 @@ class KeepAliveManager {
     }
   }
   
+  /**
+   * 获取长期心跳趋势（分钟/小时汇总，清除日志后仍保留）
+   * @param {Object} options 查询选项 {resolution: 'minute' | 'hour', startTime, endTime}
+   * @returns {Promise<Object>} 趋势数据
+   */
+  async getHeartbeatTrend(options = {}) {
+    try {
+      console.log('获取心跳趋势', options);
+      
+      if (!this.isInitialized) {
+        throw new Error('保活管理器未初始化，请先调用init方法');
+      }
+      
+      const result = await this.callNativeMethod('getHeartbeatTrend', options);
+      console.log('获取心跳趋势成功，共', result.trend ? result.trend.length : 0, '个汇总桶');
+      return result;
+    } catch (error) {
+      console.error('获取心跳趋势异常:', error);
+      throw error;
+    }
+  }
+  
   /**
    * 清除心跳日志
    * @returns {Promise<Object>} 清除结果
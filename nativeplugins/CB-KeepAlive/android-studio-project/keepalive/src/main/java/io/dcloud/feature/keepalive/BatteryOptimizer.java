@@ -1,15 +1,6 @@
 package io.dcloud.feature.keepalive;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.os.BatteryManager;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.PowerManager;
 import android.util.Log;
 
 import com.alibaba.fastjson.JSONObject;
@@ -30,7 +21,7 @@ import com.alibaba.fastjson.JSONObject;
  * 
  * 验证需求：性能需求
  */
-public class BatteryOptimizer {
+public class BatteryOptimizer implements DeviceStateMonitor.Listener {
     
     private static final String TAG = "BatteryOptimizer";
     
@@ -43,8 +34,13 @@ public class BatteryOptimizer {
     private static final float LOW_BATTERY_MULTIPLIER = 3.0f;   // 低电量时延长3倍
     private static final float CRITICAL_BATTERY_MULTIPLIER = 5.0f; // 严重低电量时延长5倍
     
+    // 优化后的最大心跳间隔
+    private static final int MAX_OPTIMIZED_INTERVAL = 5 * 60 * 1000;  // 5分钟
+    
+    // 状态变化后重新计算策略的容差：窗口内的多次变化合并为一次，并随其他定时任务一起唤醒
+    private static final long REACTION_TOLERANCE_MS = 30000;
+    
     private Context context;
-    private Handler optimizationHandler;
     
     // 电池状态
     private int currentBatteryLevel = 100;
@@ -57,10 +53,11 @@ public class BatteryOptimizer {
     private int originalHeartbeatInterval = 30000;
     private int currentOptimizedInterval = 30000;
     
-    // 广播接收器
-    private BatteryReceiver batteryReceiver;
-    private ScreenReceiver screenReceiver;
-    private NetworkReceiver networkReceiver;
+    // 设备状态监控（进程内共享的广播接收器）
+    private DeviceStateMonitor stateMonitor;
+    
+    // 待执行的优化任务（登记在插件时间轮上）
+    private KeepAliveTimerWheel.Task pendingOptimization;
     
     // 统计信息
     private long optimizationStartTime = 0;
@@ -69,7 +66,6 @@ public class BatteryOptimizer {
     
     public BatteryOptimizer(Context context) {
         this.context = context;
-        this.optimizationHandler = new Handler(Looper.getMainLooper());
     }
     
     /**
@@ -79,17 +75,10 @@ public class BatteryOptimizer {
         try {
             Log.d(TAG, "启动电池优化");
             
-            // 获取初始电池状态
-            updateBatteryStatus();
-            
-            // 获取初始屏幕状态
-            updateScreenStatus();
-            
-            // 获取初始网络状态
-            updateNetworkStatus();
-            
-            // 注册广播接收器
-            registerReceivers();
+            // 获取初始设备状态并订阅变化
+            stateMonitor = DeviceStateMonitor.getInstance(context);
+            updateDeviceState(stateMonitor.getSnapshot());
+            stateMonitor.addListener(this);
             
             // 执行初始优化
             performOptimization();
@@ -108,19 +97,24 @@ public class BatteryOptimizer {
         try {
             Log.d(TAG, "停止电池优化");
             
-            // 注销广播接收器
-            unregisterReceivers();
+            // 取消订阅设备状态
+            if (stateMonitor != null) {
+                stateMonitor.removeListener(this);
+            }
+            
+            // 取消待执行的优化
+            synchronized (this) {
+                if (pendingOptimization != null) {
+                    KeepAliveTimerWheel.getInstance().cancel(pendingOptimization);
+                    pendingOptimization = null;
+                }
+            }
             
             // 恢复正常策略
             if (isOptimizationActive) {
                 restoreNormalStrategy();
             }
             
-            // 清理Handler
-            if (optimizationHandler != null) {
-                optimizationHandler.removeCallbacksAndMessages(null);
-            }
-            
             Log.d(TAG, "电池优化已停止");
             
         } catch (Exception e) {
@@ -129,166 +123,104 @@ public class BatteryOptimizer {
     }
     
     /**
-     * 注册广播接收器
+     * 设备状态变化回调
      */
-    private void registerReceivers() {
+    @Override
+    public void onDeviceStateChanged(DeviceStateMonitor.Snapshot previous, DeviceStateMonitor.Snapshot current) {
         try {
-            // 注册电池状态接收器
-            if (batteryReceiver == null) {
-                batteryReceiver = new BatteryReceiver();
-            }
-            IntentFilter batteryFilter = new IntentFilter();
-            batteryFilter.addAction(Intent.ACTION_BATTERY_CHANGED);
-            batteryFilter.addAction(Intent.ACTION_POWER_CONNECTED);
-            batteryFilter.addAction(Intent.ACTION_POWER_DISCONNECTED);
-            context.registerReceiver(batteryReceiver, batteryFilter);
-            
-            // 注册屏幕状态接收器
-            if (screenReceiver == null) {
-                screenReceiver = new ScreenReceiver();
-            }
-            IntentFilter screenFilter = new IntentFilter();
-            screenFilter.addAction(Intent.ACTION_SCREEN_ON);
-            screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
-            context.registerReceiver(screenReceiver, screenFilter);
-            
-            // 注册网络状态接收器
-            if (networkReceiver == null) {
-                networkReceiver = new NetworkReceiver();
-            }
-            IntentFilter networkFilter = new IntentFilter();
-            networkFilter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
-            context.registerReceiver(networkReceiver, networkFilter);
-            
-            Log.d(TAG, "广播接收器已注册");
+            updateDeviceState(current);
             
-        } catch (Exception e) {
-            Log.e(TAG, "注册广播接收器异常", e);
-        }
-    }
-    
-    /**
-     * 注销广播接收器
-     */
-    private void unregisterReceivers() {
-        try {
-            if (batteryReceiver != null) {
-                context.unregisterReceiver(batteryReceiver);
-                batteryReceiver = null;
+            if (previous.isCharging() != current.isCharging()) {
+                Log.i(TAG, current.isCharging() ? "开始充电，恢复正常策略" : "停止充电，应用电池优化");
             }
-            
-            if (screenReceiver != null) {
-                context.unregisterReceiver(screenReceiver);
-                screenReceiver = null;
+            if (previous.isScreenOn() != current.isScreenOn()) {
+                Log.i(TAG, current.isScreenOn() ? "屏幕开启，调整心跳频率" : "屏幕关闭，降低心跳频率");
             }
-            
-            if (networkReceiver != null) {
-                context.unregisterReceiver(networkReceiver);
-                networkReceiver = null;
+            boolean networkChanged = previous.isNetworkAvailable() != current.isNetworkAvailable();
+            if (networkChanged) {
+                if (current.isNetworkAvailable()) {
+                    Log.i(TAG, "网络恢复，恢复心跳");
+                } else {
+                    Log.w(TAG, "网络断开，暂停心跳");
+                }
             }
             
-            Log.d(TAG, "广播接收器已注销");
+            // 网络断开/恢复决定心跳是否暂停，立即处理，不等待合并窗口
+            scheduleOptimization(networkChanged);
             
         } catch (Exception e) {
-            Log.e(TAG, "注销广播接收器异常", e);
+            Log.e(TAG, "处理设备状态变化异常", e);
         }
     }
     
     /**
-     * 更新电池状态
+     * 在时间轮上登记一次优化，已有待执行的优化时不重复登记
+     * @param immediate 是否立即执行（容差为0）；已登记的优化还在等待合并窗口时改为立即执行
      */
-    private void updateBatteryStatus() {
-        try {
-            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = context.registerReceiver(null, filter);
-            
-            if (batteryStatus != null) {
-                // 获取电池电量
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-                
-                if (level >= 0 && scale > 0) {
-                    currentBatteryLevel = (int) ((level / (float) scale) * 100);
-                }
-                
-                // 获取充电状态
-                int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-                isCharging = (status == BatteryManager.BATTERY_STATUS_CHARGING ||
-                             status == BatteryManager.BATTERY_STATUS_FULL);
-                
-                Log.d(TAG, "电池状态更新: 电量=" + currentBatteryLevel + "%, 充电=" + isCharging);
+    private synchronized void scheduleOptimization(boolean immediate) {
+        KeepAliveTimerWheel timerWheel = KeepAliveTimerWheel.getInstance();
+        if (pendingOptimization != null && pendingOptimization.isActive()) {
+            if (!immediate || pendingOptimization.getTolerance() == 0) {
+                return;
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "更新电池状态异常", e);
+            timerWheel.cancel(pendingOptimization);
         }
-    }
-    
-    /**
-     * 更新屏幕状态
-     */
-    private void updateScreenStatus() {
-        try {
-            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            if (pm != null) {
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.KITKAT_WATCH) {
-                    isScreenOn = pm.isInteractive();
-                } else {
-                    isScreenOn = pm.isScreenOn();
+        
+        final KeepAliveTimerWheel.Task[] scheduled = new KeepAliveTimerWheel.Task[1];
+        scheduled[0] = timerWheel.scheduleOnce("battery_optimizer", 0,
+            immediate ? 0 : REACTION_TOLERANCE_MS, new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (BatteryOptimizer.this) {
+                        // 已被立即执行的优化替换时不清除新的登记
+                        if (pendingOptimization == scheduled[0]) {
+                            pendingOptimization = null;
+                        }
+                    }
+                    performOptimization();
                 }
-                
-                Log.d(TAG, "屏幕状态更新: " + (isScreenOn ? "开启" : "关闭"));
-            }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "更新屏幕状态异常", e);
-        }
+            });
+        pendingOptimization = scheduled[0];
     }
     
     /**
-     * 更新网络状态
+     * 从设备状态快照更新电池、屏幕和网络状态
      */
-    private void updateNetworkStatus() {
-        try {
-            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-            if (cm != null) {
-                NetworkInfo networkInfo = cm.getActiveNetworkInfo();
-                isNetworkAvailable = (networkInfo != null && networkInfo.isConnected());
-                
-                Log.d(TAG, "网络状态更新: " + (isNetworkAvailable ? "可用" : "不可用"));
-            }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "更新网络状态异常", e);
+    private void updateDeviceState(DeviceStateMonitor.Snapshot snapshot) {
+        if (snapshot.getBatteryLevel() >= 0) {
+            currentBatteryLevel = snapshot.getBatteryLevel();
         }
+        isCharging = snapshot.isCharging();
+        isScreenOn = snapshot.isScreenOn();
+        isNetworkAvailable = snapshot.isNetworkAvailable();
+        
+        Log.d(TAG, "设备状态更新: 电量=" + currentBatteryLevel + "%, 充电=" + isCharging
+            + ", 屏幕=" + (isScreenOn ? "开启" : "关闭") + ", 网络=" + (isNetworkAvailable ? "可用" : "不可用"));
     }
     
     /**
      * 执行优化
+     * 结果作为投票提交给心跳间隔仲裁器，不直接修改配置
      */
     private void performOptimization() {
         try {
             Log.d(TAG, "执行电池优化");
             
-            // 获取保活管理器
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (!manager.isInitialized()) {
-                Log.w(TAG, "保活管理器未初始化，跳过优化");
-                return;
-            }
+            // 基准间隔由仲裁器统一维护
+            originalHeartbeatInterval = HeartbeatIntervalArbiter.getInstance().getBaseInterval();
             
-            // 获取原始心跳间隔
-            KeepAliveConfig config = manager.getConfig();
-            if (config != null) {
-                originalHeartbeatInterval = config.getHeartbeatInterval();
+            // 未充电且网络不可用时暂停心跳
+            if (!isCharging && !isNetworkAvailable) {
+                pauseHeartbeat();
+                return;
             }
             
-            // 计算最优心跳间隔
-            int optimalInterval = calculateOptimalInterval();
+            // 计算心跳间隔倍数
+            float multiplier = calculateMultiplier();
             
             // 如果需要调整
-            if (optimalInterval != originalHeartbeatInterval) {
-                applyOptimizedStrategy(optimalInterval);
+            if (multiplier > 1.0f) {
+                applyOptimizedStrategy(multiplier);
             } else if (isOptimizationActive) {
                 restoreNormalStrategy();
             }
@@ -299,20 +231,14 @@ public class BatteryOptimizer {
     }
     
     /**
-     * 计算最优心跳间隔
-     * @return 最优间隔（毫秒）
+     * 计算心跳间隔倍数
+     * @return 倍数，1 表示不调整
      */
-    private int calculateOptimalInterval() {
+    private float calculateMultiplier() {
         // 如果正在充电，使用正常间隔
         if (isCharging) {
             Log.d(TAG, "设备正在充电，使用正常间隔");
-            return originalHeartbeatInterval;
-        }
-        
-        // 如果网络不可用，暂停心跳（使用极大值表示）
-        if (!isNetworkAvailable) {
-            Log.i(TAG, "网络不可用，暂停心跳");
-            return Integer.MAX_VALUE;
+            return 1.0f;
         }
         
         float multiplier = 1.0f;
@@ -332,52 +258,29 @@ public class BatteryOptimizer {
             Log.i(TAG, "屏幕关闭，进一步延长心跳间隔");
         }
         
-        int optimalInterval = (int) (originalHeartbeatInterval * multiplier);
-        
-        // 限制最大间隔为5分钟
-        int maxInterval = 5 * 60 * 1000;
-        if (optimalInterval > maxInterval) {
-            optimalInterval = maxInterval;
-        }
-        
-        Log.d(TAG, "计算最优心跳间隔: " + originalHeartbeatInterval + "ms -> " + optimalInterval + "ms");
-        
-        return optimalInterval;
+        return multiplier;
     }
     
     /**
      * 应用优化策略
-     * @param optimizedInterval 优化后的心跳间隔
+     * @param multiplier 心跳间隔倍数
      */
-    private void applyOptimizedStrategy(int optimizedInterval) {
+    private void applyOptimizedStrategy(float multiplier) {
         try {
-            Log.i(TAG, "应用电池优化策略，心跳间隔: " + optimizedInterval + "ms");
+            String reason = "电量 " + currentBatteryLevel + "%" + (isScreenOn ? "" : "，屏幕关闭");
+            Log.i(TAG, "应用电池优化策略，心跳间隔倍数: " + multiplier + "（" + reason + "）");
             
-            // 如果网络不可用，暂停心跳
-            if (optimizedInterval == Integer.MAX_VALUE) {
-                pauseHeartbeat();
-                return;
-            }
+            // 限制最大间隔为5分钟
+            HeartbeatIntervalArbiter.getInstance().submit(HeartbeatIntervalArbiter.Vote
+                .multiplier(HeartbeatIntervalArbiter.SOURCE_BATTERY, HeartbeatIntervalArbiter.PRIORITY_BATTERY,
+                    multiplier, reason)
+                .withBounds(0, MAX_OPTIMIZED_INTERVAL));
             
-            // 更新心跳间隔
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (manager.isInitialized()) {
-                KeepAliveConfig config = manager.getConfig();
-                if (config != null) {
-                    config.setHeartbeatInterval(optimizedInterval);
-                    manager.updateConfig(config);
-                    
-                    currentOptimizedInterval = optimizedInterval;
-                    
-                    if (!isOptimizationActive) {
-                        isOptimizationActive = true;
-                        optimizationStartTime = System.currentTimeMillis();
-                        optimizationCount++;
-                    }
-                    
-                    Log.d(TAG, "电池优化策略已应用");
-                }
-            }
+            currentOptimizedInterval = (int) Math.min((long) (originalHeartbeatInterval * multiplier),
+                MAX_OPTIMIZED_INTERVAL);
+            markOptimizationActive();
+            
+            Log.d(TAG, "电池优化策略已应用");
             
         } catch (Exception e) {
             Log.e(TAG, "应用优化策略异常", e);
@@ -391,54 +294,44 @@ public class BatteryOptimizer {
         try {
             Log.w(TAG, "暂停心跳（网络不可用）");
             
-            // 设置一个极大的心跳间隔来实现暂停效果
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (manager.isInitialized()) {
-                KeepAliveConfig config = manager.getConfig();
-                if (config != null) {
-                    config.setHeartbeatInterval(Integer.MAX_VALUE);
-                    manager.updateConfig(config);
-                    
-                    if (!isOptimizationActive) {
-                        isOptimizationActive = true;
-                        optimizationStartTime = System.currentTimeMillis();
-                        optimizationCount++;
-                    }
-                }
-            }
+            HeartbeatIntervalArbiter.getInstance().submit(HeartbeatIntervalArbiter.Vote.pause(
+                HeartbeatIntervalArbiter.SOURCE_BATTERY, HeartbeatIntervalArbiter.PRIORITY_BATTERY, "网络不可用"));
+            
+            currentOptimizedInterval = HeartbeatIntervalArbiter.PAUSED_INTERVAL;
+            markOptimizationActive();
             
         } catch (Exception e) {
             Log.e(TAG, "暂停心跳异常", e);
         }
     }
     
+    private void markOptimizationActive() {
+        if (!isOptimizationActive) {
+            isOptimizationActive = true;
+            optimizationStartTime = System.currentTimeMillis();
+            optimizationCount++;
+        }
+    }
+    
     /**
-     * 恢复正常策略
+     * 恢复正常策略（撤回投票）
      */
     private void restoreNormalStrategy() {
         try {
             Log.i(TAG, "恢复正常电池策略");
             
-            // 恢复原始心跳间隔
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (manager.isInitialized()) {
-                KeepAliveConfig config = manager.getConfig();
-                if (config != null) {
-                    config.setHeartbeatInterval(originalHeartbeatInterval);
-                    manager.updateConfig(config);
-                    
-                    if (isOptimizationActive) {
-                        long duration = System.currentTimeMillis() - optimizationStartTime;
-                        totalOptimizationDuration += duration;
-                        isOptimizationActive = false;
-                    }
-                    
-                    currentOptimizedInterval = originalHeartbeatInterval;
-                    
-                    Log.d(TAG, "正常策略已恢复");
-                }
+            HeartbeatIntervalArbiter.getInstance().withdraw(HeartbeatIntervalArbiter.SOURCE_BATTERY);
+            
+            if (isOptimizationActive) {
+                long duration = System.currentTimeMillis() - optimizationStartTime;
+                totalOptimizationDuration += duration;
+                isOptimizationActive = false;
             }
             
+            currentOptimizedInterval = originalHeartbeatInterval;
+            
+            Log.d(TAG, "正常策略已恢复");
+            
         } catch (Exception e) {
             Log.e(TAG, "恢复正常策略异常", e);
         }
@@ -487,97 +380,4 @@ public class BatteryOptimizer {
         
         return stats;
     }
-    
-    /**
-     * 电池状态广播接收器
-     */
-    private class BatteryReceiver extends BroadcastReceiver {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            try {
-                String action = intent.getAction();
-                Log.d(TAG, "收到电池广播: " + action);
-                
-                if (Intent.ACTION_BATTERY_CHANGED.equals(action)) {
-                    // 电池状态变化
-                    updateBatteryStatus();
-                    performOptimization();
-                    
-                } else if (Intent.ACTION_POWER_CONNECTED.equals(action)) {
-                    // 开始充电
-                    isCharging = true;
-                    Log.i(TAG, "开始充电，恢复正常策略");
-                    performOptimization();
-                    
-                } else if (Intent.ACTION_POWER_DISCONNECTED.equals(action)) {
-                    // 停止充电
-                    isCharging = false;
-                    Log.i(TAG, "停止充电，应用电池优化");
-                    performOptimization();
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "处理电池广播异常", e);
-            }
-        }
-    }
-    
-    /**
-     * 屏幕状态广播接收器
-     */
-    private class ScreenReceiver extends BroadcastReceiver {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            try {
-                String action = intent.getAction();
-                Log.d(TAG, "收到屏幕广播: " + action);
-                
-                if (Intent.ACTION_SCREEN_ON.equals(action)) {
-                    // 屏幕开启
-                    isScreenOn = true;
-                    Log.i(TAG, "屏幕开启，调整心跳频率");
-                    performOptimization();
-                    
-                } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
-                    // 屏幕关闭
-                    isScreenOn = false;
-                    Log.i(TAG, "屏幕关闭，降低心跳频率");
-                    performOptimization();
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "处理屏幕广播异常", e);
-            }
-        }
-    }
-    
-    /**
-     * 网络状态广播接收器
-     */
-    private class NetworkReceiver extends BroadcastReceiver {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            try {
-                Log.d(TAG, "收到网络广播");
-                
-                // 更新网络状态
-                boolean wasAvailable = isNetworkAvailable;
-                updateNetworkStatus();
-                
-                // 如果网络状态发生变化
-                if (wasAvailable != isNetworkAvailable) {
-                    if (isNetworkAvailable) {
-                        Log.i(TAG, "网络恢复，恢复心跳");
-                    } else {
-                        Log.w(TAG, "网络断开，暂停心跳");
-                    }
-                    
-                    performOptimization();
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "处理网络广播异常", e);
-            }
-        }
-    }
 }
@@ -3,10 +3,11 @@ package io.dcloud.feature.keepalive;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Build;
 import android.util.Log;
 
+import com.alibaba.fastjson.JSONObject;
+
 /**
  * 开机自启动广播接收器
  * 
@@ -22,11 +23,6 @@ public class BootReceiver extends BroadcastReceiver {
     
     private static final String TAG = "BootReceiver";
     
-    // 配置存储
-    private static final String PREFS_NAME = "cb_keepalive_prefs";
-    private static final String KEY_AUTO_START_ENABLED = "auto_start_enabled";
-    private static final String KEY_KEEP_ALIVE_ENABLED = "keep_alive_enabled";
-    
     @Override
     public void onReceive(Context context, Intent intent) {
         if (intent == null || intent.getAction() == null) {
@@ -99,8 +95,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     private boolean isAutoStartEnabled(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getBoolean(KEY_AUTO_START_ENABLED, true); // 默认启用
+            return KeepAliveStore.getInstance(context).isAutoStartEnabled(); // 默认启用
         } catch (Exception e) {
             Log.e(TAG, "检查自启动状态失败: " + e.getMessage());
             return true; // 出错时默认启用
@@ -112,8 +107,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     private boolean isKeepAliveEnabled(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getBoolean(KEY_KEEP_ALIVE_ENABLED, true); // 默认启用
+            return KeepAliveStore.getInstance(context).isKeepAliveEnabled(); // 默认启用
         } catch (Exception e) {
             Log.e(TAG, "检查保活状态失败: " + e.getMessage());
             return true; // 出错时默认启用
@@ -125,11 +119,9 @@ public class BootReceiver extends BroadcastReceiver {
      */
     private void recordBootStartEvent(Context context) {
         try {
-            HeartbeatManager.getInstance().init(context, 30000);
-            HeartbeatManager.getInstance().recordAnomalyEvent(
-                "BOOT_START",
-                "系统开机后自动启动保活服务"
-            );
+            JSONObject event = new JSONObject();
+            event.put("sdkInt", Build.VERSION.SDK_INT);
+            EventJournal.getInstance(context).record(EventJournal.EVENT_BOOT_START, event);
         } catch (Exception e) {
             Log.e(TAG, "记录启动事件失败: " + e.getMessage());
         }
@@ -140,8 +132,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     public static void setAutoStartEnabled(Context context, boolean enabled) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putBoolean(KEY_AUTO_START_ENABLED, enabled).apply();
+            KeepAliveStore.getInstance(context).setAutoStartEnabled(enabled);
             Log.d(TAG, "自启动状态设置为: " + enabled);
         } catch (Exception e) {
             Log.e(TAG, "设置自启动状态失败: " + e.getMessage());
@@ -153,8 +144,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     public static void setKeepAliveEnabled(Context context, boolean enabled) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putBoolean(KEY_KEEP_ALIVE_ENABLED, enabled).apply();
+            KeepAliveStore.getInstance(context).setKeepAliveEnabled(enabled);
             Log.d(TAG, "保活功能状态设置为: " + enabled);
         } catch (Exception e) {
             Log.e(TAG, "设置保活功能状态失败: " + e.getMessage());
@@ -166,8 +156,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     public static boolean getAutoStartEnabled(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getBoolean(KEY_AUTO_START_ENABLED, true);
+            return KeepAliveStore.getInstance(context).isAutoStartEnabled();
         } catch (Exception e) {
             Log.e(TAG, "获取自启动状态失败: " + e.getMessage());
             return true;
@@ -179,8 +168,7 @@ public class BootReceiver extends BroadcastReceiver {
      */
     public static boolean getKeepAliveEnabled(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getBoolean(KEY_KEEP_ALIVE_ENABLED, true);
+            return KeepAliveStore.getInstance(context).isKeepAliveEnabled();
         } catch (Exception e) {
             Log.e(TAG, "获取保活功能状态失败: " + e.getMessage());
             return true;
@@ -315,6 +315,7 @@ public class DeviceAdapterManager {
     /**
      * 检查Intent是否可用
      */
+    @SuppressWarnings("deprecation")
     private boolean isIntentAvailable(Intent intent) {
         if (context == null || intent == null) {
             return false;
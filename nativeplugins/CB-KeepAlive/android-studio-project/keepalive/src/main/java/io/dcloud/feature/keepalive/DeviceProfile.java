@@ -0,0 +1,168 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.WindowManager;
+
+/**
+ * 设备静态信息快照
+ * 应用版本、系统版本、设备型号、屏幕尺寸等几乎不变的信息每个进程只计算一次，
+ * 所有心跳共享同一份快照，不再每次心跳调用 PackageManager 和 WindowManager
+ *
+ * 失效时机：
+ * 1. 配置变化（屏幕旋转、分辨率变化等）时失效，下次读取时重新计算
+ * 2. 应用更新会结束当前进程，新进程重新计算
+ */
+public final class DeviceProfile {
+
+    private static final String TAG = "DeviceProfile";
+
+    // 当前快照
+    private static volatile DeviceProfile current;
+    private static boolean callbacksRegistered = false;
+
+    private final String appVersion;
+    private final String systemVersion;
+    private final int sdkVersion;
+    private final String deviceModel;
+    private final String deviceBrand;
+    private final String manufacturer;
+    private final int screenWidth;
+    private final int screenHeight;
+
+    private DeviceProfile(String appVersion, int screenWidth, int screenHeight) {
+        this.appVersion = appVersion;
+        this.systemVersion = Build.VERSION.RELEASE;
+        this.sdkVersion = Build.VERSION.SDK_INT;
+        this.deviceModel = Build.MODEL;
+        this.deviceBrand = Build.BRAND;
+        this.manufacturer = Build.MANUFACTURER;
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+    }
+
+    /**
+     * 获取设备信息快照，首次调用或失效后重新计算
+     * @param context 上下文
+     * @return 设备信息快照
+     */
+    public static DeviceProfile get(Context context) {
+        // 只读取一次 current，避免两次读取之间被 invalidate() 置空
+        DeviceProfile profile = current;
+        if (profile != null) {
+            return profile;
+        }
+
+        if (context == null) {
+            // 未初始化时不缓存，返回 unknown 占位
+            return new DeviceProfile("unknown", 0, 0);
+        }
+
+        synchronized (DeviceProfile.class) {
+            profile = current;
+            if (profile == null) {
+                Context appContext = context.getApplicationContext();
+                registerCallbacks(appContext);
+                profile = create(appContext);
+                current = profile;
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * 使快照失效，下次读取时重新计算
+     */
+    public static void invalidate() {
+        current = null;
+    }
+
+    /**
+     * 注册配置变化回调（每个进程一次）
+     */
+    private static void registerCallbacks(Context context) {
+        if (callbacksRegistered) {
+            return;
+        }
+        callbacksRegistered = true;
+
+        context.registerComponentCallbacks(new ComponentCallbacks() {
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                invalidate();
+            }
+
+            @Override
+            public void onLowMemory() {
+            }
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private static DeviceProfile create(Context context) {
+        long startTime = System.currentTimeMillis();
+
+        String appVersion = "unknown";
+        try {
+            appVersion = context.getPackageManager()
+                .getPackageInfo(context.getPackageName(), 0)
+                .versionName;
+        } catch (Exception e) {
+            Log.e(TAG, "获取应用版本失败", e);
+        }
+
+        int screenWidth = 0;
+        int screenHeight = 0;
+        try {
+            WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+            if (wm != null) {
+                DisplayMetrics metrics = new DisplayMetrics();
+                wm.getDefaultDisplay().getMetrics(metrics);
+                screenWidth = metrics.widthPixels;
+                screenHeight = metrics.heightPixels;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "获取屏幕尺寸失败", e);
+        }
+
+        Log.d(TAG, "设备信息快照已更新，耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+
+        return new DeviceProfile(appVersion, screenWidth, screenHeight);
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public String getSystemVersion() {
+        return systemVersion;
+    }
+
+    public int getSdkVersion() {
+        return sdkVersion;
+    }
+
+    public String getDeviceModel() {
+        return deviceModel;
+    }
+
+    public String getDeviceBrand() {
+        return deviceBrand;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+}
@@ -0,0 +1,379 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 设备动态状态监控器
+ * 每个进程只注册一次电池、屏幕广播并订阅网络状态缓存，状态变化时生成新的不可变快照；
+ * 各模块读取快照，不再每次调用 registerReceiver(null, ...)、PowerManager、ConnectivityManager
+ *
+ * 功能特性：
+ * 1. 快照不可变，读取无锁，版本号随每次状态变化递增
+ * 2. 状态变化时通知监听器（插件调度线程回调，广播接收本身只替换快照）
+ * 3. 接收器注册在应用上下文上，生命周期与进程一致
+ * 4. 网络状态来自 NetworkStateCache（NetworkCallback 驱动）
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class DeviceStateMonitor implements NetworkStateCache.Listener {
+
+    private static final String TAG = "DeviceStateMonitor";
+
+    // 单例实例
+    private static volatile DeviceStateMonitor instance;
+
+    private final Context context;
+
+    // 当前快照
+    private volatile Snapshot snapshot;
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 设备状态变化监听器
+     */
+    public interface Listener {
+        /**
+         * 状态变化回调
+         * @param previous 变化前的快照
+         * @param current 变化后的快照
+         */
+        void onDeviceStateChanged(Snapshot previous, Snapshot current);
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static DeviceStateMonitor getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DeviceStateMonitor.class) {
+                if (instance == null) {
+                    instance = new DeviceStateMonitor(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private DeviceStateMonitor(Context context) {
+        this.context = context;
+        NetworkStateCache networkStateCache = NetworkStateCache.getInstance(context);
+        this.snapshot = new Snapshot(0, -1, false, readScreenOn(), networkStateCache.getState(),
+            System.currentTimeMillis());
+        networkStateCache.addListener(this);
+        registerReceivers();
+    }
+
+    /**
+     * 获取当前状态快照
+     * @return 不可变快照
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 添加状态变化监听器
+     * @param listener 监听器
+     */
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+    /**
+     * 移除状态变化监听器
+     * @param listener 监听器
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 注册广播接收器（每个进程一次）
+     */
+    private void registerReceivers() {
+        try {
+            // 电池广播是粘性广播，注册时直接返回当前电池状态
+            IntentFilter batteryFilter = new IntentFilter();
+            batteryFilter.addAction(Intent.ACTION_BATTERY_CHANGED);
+            batteryFilter.addAction(Intent.ACTION_POWER_CONNECTED);
+            batteryFilter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+            Intent batteryStatus = context.registerReceiver(new BatteryReceiver(), batteryFilter);
+            if (batteryStatus != null) {
+                onBatteryChanged(batteryStatus);
+            }
+
+            IntentFilter screenFilter = new IntentFilter();
+            screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+            screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
+            context.registerReceiver(new ScreenReceiver(), screenFilter);
+
+            Log.d(TAG, "设备状态监控已启动: " + snapshot);
+
+        } catch (Exception e) {
+            Log.e(TAG, "注册设备状态广播失败", e);
+        }
+    }
+
+    private void onBatteryChanged(Intent batteryStatus) {
+        int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+
+        Snapshot current;
+        Snapshot next;
+        synchronized (this) {
+            current = snapshot;
+            int batteryLevel = (level >= 0 && scale > 0) ? (int) ((level / (float) scale) * 100) : current.batteryLevel;
+            boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
+                               status == BatteryManager.BATTERY_STATUS_FULL;
+            next = new Snapshot(current.version + 1, batteryLevel, charging, current.screenOn,
+                current.network, System.currentTimeMillis());
+            snapshot = next;
+        }
+        notifyListeners(current, next);
+    }
+
+    private void onChargingChanged(boolean charging) {
+        Snapshot current;
+        Snapshot next;
+        synchronized (this) {
+            current = snapshot;
+            next = new Snapshot(current.version + 1, current.batteryLevel, charging, current.screenOn,
+                current.network, System.currentTimeMillis());
+            snapshot = next;
+        }
+        notifyListeners(current, next);
+    }
+
+    private void onScreenChanged(boolean screenOn) {
+        Snapshot current;
+        Snapshot next;
+        synchronized (this) {
+            current = snapshot;
+            next = new Snapshot(current.version + 1, current.batteryLevel, current.charging, screenOn,
+                current.network, System.currentTimeMillis());
+            snapshot = next;
+        }
+        notifyListeners(current, next);
+    }
+
+    /**
+     * 网络状态变化回调
+     */
+    @Override
+    public void onNetworkStateChanged(NetworkStateCache.NetworkState previous, NetworkStateCache.NetworkState network) {
+        Snapshot current;
+        Snapshot next;
+        synchronized (this) {
+            current = snapshot;
+            next = new Snapshot(current.version + 1, current.batteryLevel, current.charging, current.screenOn,
+                network, System.currentTimeMillis());
+            snapshot = next;
+        }
+        notifyListeners(current, next);
+    }
+
+    /**
+     * 在调度线程通知监听器，状态未变化（仅刷新了快照）时不通知
+     */
+    private void notifyListeners(final Snapshot previous, final Snapshot next) {
+        if (previous.sameState(next) || listeners.isEmpty()) {
+            return;
+        }
+
+        KeepAliveScheduler.getInstance().post(new Runnable() {
+            @Override
+            public void run() {
+                for (Listener listener : listeners) {
+                    try {
+                        listener.onDeviceStateChanged(previous, next);
+                    } catch (Exception e) {
+                        Log.e(TAG, "设备状态监听器异常", e);
+                    }
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean readScreenOn() {
+        try {
+            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            if (pm != null) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
+                    return pm.isInteractive();
+                } else {
+                    return pm.isScreenOn();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "读取屏幕状态失败", e);
+        }
+        return true;
+    }
+
+    /**
+     * 设备状态快照（不可变）
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final int batteryLevel;
+        private final boolean charging;
+        private final boolean screenOn;
+        private final NetworkStateCache.NetworkState network;
+        private final long updateTime;
+
+        private Snapshot(long version, int batteryLevel, boolean charging, boolean screenOn,
+                         NetworkStateCache.NetworkState network, long updateTime) {
+            this.version = version;
+            this.batteryLevel = batteryLevel;
+            this.charging = charging;
+            this.screenOn = screenOn;
+            this.network = network;
+            this.updateTime = updateTime;
+        }
+
+        private boolean sameState(Snapshot other) {
+            return batteryLevel == other.batteryLevel
+                && charging == other.charging
+                && screenOn == other.screenOn
+                && network.isAvailable() == other.network.isAvailable()
+                && network.isMetered() == other.network.isMetered()
+                && network.isValidated() == other.network.isValidated()
+                && network.getDetailedType().equals(other.network.getDetailedType());
+        }
+
+        /**
+         * 快照版本号，每次状态更新递增
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 电池电量百分比 (0-100)，未知返回-1
+         */
+        public int getBatteryLevel() {
+            return batteryLevel;
+        }
+
+        public boolean isCharging() {
+            return charging;
+        }
+
+        public boolean isScreenOn() {
+            return screenOn;
+        }
+
+        /**
+         * 网络类型：wifi/mobile/ethernet/other/none/unknown
+         */
+        public String getNetworkType() {
+            return network.getTransport();
+        }
+
+        /**
+         * 网络类型，移动网络细分为 2g/3g/4g/5g
+         */
+        public String getDetailedNetworkType() {
+            return network.getDetailedType();
+        }
+
+        public boolean isNetworkAvailable() {
+            return network.isAvailable();
+        }
+
+        /**
+         * 完整的网络状态（计费、已验证、带宽估计等）
+         */
+        public NetworkStateCache.NetworkState getNetworkState() {
+            return network;
+        }
+
+        public long getUpdateTime() {
+            return updateTime;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("version", version);
+            json.put("batteryLevel", batteryLevel);
+            json.put("isCharging", charging);
+            json.put("isScreenOn", screenOn);
+            json.put("networkType", getDetailedNetworkType());
+            json.put("isNetworkAvailable", network.isAvailable());
+            json.put("isNetworkMetered", network.isMetered());
+            json.put("isNetworkValidated", network.isValidated());
+            json.put("updateTime", updateTime);
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return toJSON().toJSONString();
+        }
+    }
+
+    /**
+     * 电池状态广播接收器
+     */
+    private class BatteryReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            try {
+                String action = intent.getAction();
+
+                if (Intent.ACTION_BATTERY_CHANGED.equals(action)) {
+                    onBatteryChanged(intent);
+
+                } else if (Intent.ACTION_POWER_CONNECTED.equals(action)) {
+                    onChargingChanged(true);
+
+                } else if (Intent.ACTION_POWER_DISCONNECTED.equals(action)) {
+                    onChargingChanged(false);
+                }
+
+            } catch (Exception e) {
+                Log.e(TAG, "处理电池广播异常", e);
+            }
+        }
+    }
+
+    /**
+     * 屏幕状态广播接收器
+     */
+    private class ScreenReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            try {
+                String action = intent.getAction();
+
+                if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                    onScreenChanged(true);
+
+                } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                    onScreenChanged(false);
+                }
+
+            } catch (Exception e) {
+                Log.e(TAG, "处理屏幕广播异常", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 保活事件日志
+ * 重启尝试/成功/失败、异常、开机启动等事件使用独立的有界日志文件，不再占用心跳日志的容量
+ *
+ * 功能特性：
+ * 1. 每条事件为JSON记录，包含 eventType、timestamp 和事件详情
+ * 2. 内存中按事件类型维护记录序号索引，按类型查询只读取命中的记录
+ * 3. 各类型的事件数和最近发生时间以 O(1) 读取
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class EventJournal {
+
+    private static final String TAG = "EventJournal";
+
+    // 事件类型
+    public static final String EVENT_RESTART_ATTEMPT = "service_restart_attempt";
+    public static final String EVENT_RESTART_SUCCESS = "service_restart_success";
+    public static final String EVENT_RESTART_FAILURE = "service_restart_failure";
+    public static final String EVENT_EXCEPTION = "exception";
+    public static final String EVENT_BOOT_START = "boot_start";
+
+    // 单例实例
+    private static volatile EventJournal instance;
+
+    private final HeartbeatSegmentLog segmentLog;
+
+    // 无法解析的记录在类型列表中的占位，不进入类型索引
+    private static final String UNREADABLE_TYPE = "\u0000unreadable";
+
+    // 与日志文件记录一一对应的事件类型（从旧到新）
+    private final ArrayDeque<String> recordTypes = new ArrayDeque<>();
+    // 事件类型 -> 记录序号（从旧到新）
+    private final Map<String, ArrayDeque<Long>> typeIndex = new HashMap<>();
+    // 事件类型 -> 最近发生时间
+    private final Map<String, Long> lastEventTimes = new HashMap<>();
+
+    /**
+     * 获取单例实例
+     */
+    public static EventJournal getInstance(Context context) {
+        if (instance == null) {
+            synchronized (EventJournal.class) {
+                if (instance == null) {
+                    instance = new EventJournal(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private EventJournal(Context context) {
+        this.segmentLog = KeepAliveStore.getInstance(context).getLog(KeepAliveStore.LOG_EVENTS);
+        buildIndex();
+    }
+
+    /**
+     * 扫描日志文件建立类型索引
+     * 无法读取或解析的记录占位跳过，索引与文件记录保持一一对应，写入时的淘汰位置才正确
+     */
+    private void buildIndex() {
+        try {
+            long firstSequence = segmentLog.getFirstSequence();
+            int size = segmentLog.size();
+            int skipped = 0;
+            for (int i = 0; i < size; i++) {
+                JSONObject event;
+                try {
+                    event = JSON.parseObject(new String(segmentLog.read(i), StandardCharsets.UTF_8));
+                } catch (Exception e) {
+                    event = null;
+                }
+
+                if (event == null) {
+                    recordTypes.addLast(UNREADABLE_TYPE);
+                    skipped++;
+                    continue;
+                }
+                indexEvent(event.getString("eventType"), event.getLongValue("timestamp"), firstSequence + i);
+            }
+
+            if (skipped > 0) {
+                Log.w(TAG, "跳过 " + skipped + " 条无法解析的事件记录");
+            }
+            Log.d(TAG, "事件日志索引完成，事件数: " + (recordTypes.size() - skipped));
+
+        } catch (Exception e) {
+            Log.e(TAG, "建立事件索引失败", e);
+        }
+    }
+
+    private void indexEvent(String eventType, long timestamp, long sequence) {
+        String type = eventType != null ? eventType : "";
+        recordTypes.addLast(type);
+
+        ArrayDeque<Long> sequences = typeIndex.get(type);
+        if (sequences == null) {
+            sequences = new ArrayDeque<>();
+            typeIndex.put(type, sequences);
+        }
+        sequences.addLast(sequence);
+
+        Long lastTime = lastEventTimes.get(type);
+        if (lastTime == null || timestamp > lastTime) {
+            lastEventTimes.put(type, timestamp);
+        }
+    }
+
+    /**
+     * 记录事件
+     * @param eventType 事件类型
+     * @param details 事件详情（可为null）
+     */
+    public synchronized void record(String eventType, JSONObject details) {
+        try {
+            JSONObject event = details != null ? new JSONObject(details) : new JSONObject();
+            event.put("eventType", eventType);
+            if (!event.containsKey("timestamp")) {
+                event.put("timestamp", System.currentTimeMillis());
+            }
+
+            long sequence = segmentLog.getNextSequence();
+            if (!segmentLog.append(event.toJSONString().getBytes(StandardCharsets.UTF_8))) {
+                Log.w(TAG, "事件写入失败: " + eventType);
+                return;
+            }
+
+            // 写入时被淘汰的旧记录同步移出索引
+            long evicted = segmentLog.getFirstSequence() - (sequence - recordTypes.size());
+            for (long i = 0; i < evicted && !recordTypes.isEmpty(); i++) {
+                ArrayDeque<Long> sequences = typeIndex.get(recordTypes.pollFirst());
+                if (sequences != null) {
+                    sequences.pollFirst();
+                }
+            }
+
+            indexEvent(eventType, event.getLongValue("timestamp"), sequence);
+
+            Log.d(TAG, "记录事件: " + eventType);
+
+        } catch (Exception e) {
+            Log.e(TAG, "记录事件失败", e);
+        }
+    }
+
+    /**
+     * 记录事件（事件JSON中包含 eventType 字段）
+     * @param event 事件JSON对象
+     */
+    public void record(JSONObject event) {
+        record(event.getString("eventType"), event);
+    }
+
+    /**
+     * 获取指定类型的事件数（保留在日志中的）
+     * @param eventType 事件类型
+     * @return 事件数
+     */
+    public synchronized int getCount(String eventType) {
+        ArrayDeque<Long> sequences = typeIndex.get(eventType);
+        return sequences != null ? sequences.size() : 0;
+    }
+
+    /**
+     * 获取指定类型最近一次事件的时间
+     * @param eventType 事件类型
+     * @return 时间戳，从未发生返回0
+     */
+    public synchronized long getLastEventTime(String eventType) {
+        Long lastTime = lastEventTimes.get(eventType);
+        return lastTime != null ? lastTime : 0;
+    }
+
+    /**
+     * 获取指定类型最近的事件（从旧到新）
+     * @param eventType 事件类型
+     * @param limit 最多返回数量
+     * @return 事件列表
+     */
+    public synchronized JSONArray getEvents(String eventType, int limit) {
+        JSONArray events = new JSONArray();
+        ArrayDeque<Long> sequences = typeIndex.get(eventType);
+        if (sequences == null || limit <= 0) {
+            return events;
+        }
+
+        try {
+            long firstSequence = segmentLog.getFirstSequence();
+            List<JSONObject> newestFirst = new ArrayList<>();
+            Iterator<Long> iterator = sequences.descendingIterator();
+            while (iterator.hasNext() && newestFirst.size() < limit) {
+                int index = (int) (iterator.next() - firstSequence);
+                newestFirst.add(JSON.parseObject(new String(segmentLog.read(index), StandardCharsets.UTF_8)));
+            }
+
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                events.add(newestFirst.get(i));
+            }
+
+        } catch (Exception e) {
+            Log.e(TAG, "读取事件失败", e);
+        }
+
+        return events;
+    }
+
+    /**
+     * 获取各类型事件的统计信息
+     * @return 统计信息：类型 -> {count, lastTime}
+     */
+    public synchronized JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        for (Map.Entry<String, ArrayDeque<Long>> entry : typeIndex.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            JSONObject typeStats = new JSONObject();
+            typeStats.put("count", entry.getValue().size());
+            typeStats.put("lastTime", getLastEventTime(entry.getKey()));
+            stats.put(entry.getKey(), typeStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 清除所有事件
+     */
+    public synchronized void clear() {
+        segmentLog.clear();
+        recordTypes.clear();
+        typeIndex.clear();
+        lastEventTimes.clear();
+    }
+}
@@ -2,8 +2,6 @@ package io.dcloud.feature.keepalive;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.util.Log;
 
 import com.alibaba.fastjson.JSONArray;
@@ -41,7 +39,6 @@ public class ExceptionHandler {
     private static final long RETRY_DELAY_MAX = 60000; // 60秒
     
     private Context context;
-    private LocalHeartbeatLogger logger;
     
     // 缓存的心跳数据
     private List<HeartbeatData> cachedHeartbeats;
@@ -53,12 +50,6 @@ public class ExceptionHandler {
     public ExceptionHandler(Context context) {
         this.context = context.getApplicationContext();
         this.cachedHeartbeats = new ArrayList<>();
-        
-        // 获取日志管理器
-        KeepAliveManager manager = KeepAliveManager.getInstance();
-        if (manager.isInitialized()) {
-            this.logger = manager.getHeartbeatLogger();
-        }
     }
     
     /**
@@ -329,19 +320,7 @@ public class ExceptionHandler {
      * @return 是否可用
      */
     private boolean isNetworkAvailable() {
-        try {
-            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-            if (cm == null) {
-                return false;
-            }
-            
-            NetworkInfo networkInfo = cm.getActiveNetworkInfo();
-            return networkInfo != null && networkInfo.isConnected();
-            
-        } catch (Exception e) {
-            Log.e(TAG, "检查网络状态失败", e);
-            return false;
-        }
+        return DeviceStateMonitor.getInstance(context).getSnapshot().isNetworkAvailable();
     }
     
     /**
@@ -485,12 +464,7 @@ public class ExceptionHandler {
      */
     private void recordException(String exceptionType, String message, Exception exception) {
         try {
-            if (logger == null) {
-                return;
-            }
-            
             JSONObject event = new JSONObject();
-            event.put("eventType", "exception");
             event.put("exceptionType", exceptionType);
             event.put("message", message);
             event.put("timestamp", System.currentTimeMillis());
@@ -511,7 +485,7 @@ public class ExceptionHandler {
                 }
             }
             
-            logger.logEvent(event);
+            EventJournal.getInstance(context).record(EventJournal.EVENT_EXCEPTION, event);
             Log.d(TAG, "异常事件已记录: " + exceptionType);
             
         } catch (Exception e) {
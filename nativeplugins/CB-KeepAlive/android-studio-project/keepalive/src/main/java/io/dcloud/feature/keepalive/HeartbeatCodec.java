@@ -0,0 +1,461 @@
+package io.dcloud.feature.keepalive;
+
+import com.alibaba.fastjson.JSON;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 心跳日志紧凑二进制编码
+ * 以块为单位按列存储，块内数据自包含，可独立解码
+ *
+ * 块格式：
+ * 1. 格式版本（1字节）、记录数（varint）
+ * 2. 时间戳列：首条为绝对值，第二条为差值，其余为差值的差值（zigzag varint）
+ * 3. 字符串列（设备ID、应用版本、系统版本、型号、厂商、保活状态、网络类型）：
+ *    0 = null，1 = 内联字符串（varint长度 + UTF-8），n >= 2 = 字典编号 n - 2
+ * 4. 电量列：全部在 [-128, 127] 内时每条1字节，否则为 zigzag varint
+ * 5. 屏幕宽高列：zigzag varint
+ * 6. 屏幕状态列：按位打包
+ * 7. 可用内存、总内存列：与上一条的差值（zigzag varint）
+ * 8. 计划触发时间、实际触发时间列：与本条时间戳的差值（zigzag varint），版本2起
+ * 9. 错过心跳数列：varint，版本2起
+ * 10. 设备品牌列：编码方式同第3项，版本3起
+ * 11. SDK版本列：zigzag varint，版本3起
+ * 12. 心跳序号列：首条为绝对值，其余为与上一条的差值（zigzag varint），版本3起
+ *
+ * 版本1的块没有第8、9列，版本2及更早的块没有第10-12列，解码后这些字段为null或0；
+ * 版本3的块包含 HeartbeatData 的全部字段，decode(encode(x)) 与 fromJson(x.toJson()) 相同
+ *
+ * 旧版JSON记录以 '{' 开头，解码时自动识别
+ *
+ * 块布局（列的增减、顺序或编码方式）每次变化都必须递增 FORMAT_VERSION，
+ * 新增的列追加在已有列之后，解码按块头的版本号读取，旧版本的块始终可解码
+ */
+public class HeartbeatCodec {
+
+    // 格式版本：1 = 初始布局，2 = 追加计划/实际触发时间和错过心跳数，3 = 追加设备品牌、SDK版本和心跳序号
+    private static final byte FORMAT_VERSION_V1 = 1;
+    private static final byte FORMAT_VERSION_V2 = 2;
+    private static final byte FORMAT_VERSION_V3 = 3;
+    private static final byte FORMAT_VERSION = FORMAT_VERSION_V3;
+    private static final byte JSON_RECORD_START = '{';
+
+    // 字符串列顺序：设备ID、应用版本、系统版本、型号、厂商、保活状态、网络类型、设备品牌；
+    // 块中前7列位于第3项，设备品牌列自版本3起追加在末尾
+    static final int STRING_COLUMNS = 8;
+    private static final int STRING_COLUMNS_V1 = 7;
+    static final int COLUMN_KEEP_ALIVE_STATUS = 5;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_INLINE = 1;
+    private static final int STRING_DICTIONARY_BASE = 2;
+
+    private static final byte BATTERY_BYTES = 0;
+    private static final byte BATTERY_VARINT = 1;
+
+    private final HeartbeatStringDictionary dictionary;
+
+    // 复用的编码缓冲，由 encodeToBuffer 写入
+    private final Output encodeBuffer = new Output(1024);
+
+    public HeartbeatCodec(HeartbeatStringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 编码一个数据块
+     * @param block 心跳数据（按时间顺序）
+     * @return 编码结果
+     */
+    public byte[] encode(List<HeartbeatData> block) {
+        Output out = new Output(16 + block.size() * 24);
+        encode(block, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 编码一个数据块到复用的编码缓冲，缓冲容量足够后不再分配
+     * 结果为 getEncodeBuffer() 的前N字节，在下一次调用前有效
+     * @param block 心跳数据（按时间顺序）
+     * @return 编码长度
+     */
+    public synchronized int encodeToBuffer(List<HeartbeatData> block) {
+        encodeBuffer.reset();
+        encode(block, encodeBuffer);
+        return encodeBuffer.size();
+    }
+
+    /**
+     * 获取复用的编码缓冲（容量可能大于编码长度）
+     */
+    public synchronized byte[] getEncodeBuffer() {
+        return encodeBuffer.buffer();
+    }
+
+    private void encode(List<HeartbeatData> block, Output out) {
+        int count = block.size();
+
+        out.write(FORMAT_VERSION);
+        out.writeVarint(count);
+
+        // 时间戳：差值的差值
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long timestamp = block.get(i).getTimestamp();
+            if (i == 0) {
+                out.writeSignedVarint(timestamp);
+            } else {
+                long delta = timestamp - previous;
+                out.writeSignedVarint(i == 1 ? delta : delta - previousDelta);
+                previousDelta = delta;
+            }
+            previous = timestamp;
+        }
+
+        // 字符串列
+        for (int column = 0; column < STRING_COLUMNS_V1; column++) {
+            for (int i = 0; i < count; i++) {
+                writeString(out, getStringColumn(block.get(i), column));
+            }
+        }
+
+        // 电量
+        boolean fitsInByte = true;
+        for (int i = 0; i < count; i++) {
+            int batteryLevel = block.get(i).getBatteryLevel();
+            if (batteryLevel < Byte.MIN_VALUE || batteryLevel > Byte.MAX_VALUE) {
+                fitsInByte = false;
+                break;
+            }
+        }
+        out.write(fitsInByte ? BATTERY_BYTES : BATTERY_VARINT);
+        for (int i = 0; i < count; i++) {
+            int batteryLevel = block.get(i).getBatteryLevel();
+            if (fitsInByte) {
+                out.write(batteryLevel);
+            } else {
+                out.writeSignedVarint(batteryLevel);
+            }
+        }
+
+        // 屏幕尺寸
+        for (int i = 0; i < count; i++) {
+            HeartbeatData data = block.get(i);
+            out.writeSignedVarint(data.getScreenWidth());
+            out.writeSignedVarint(data.getScreenHeight());
+        }
+
+        // 屏幕状态
+        int bits = 0;
+        for (int i = 0; i < count; i++) {
+            if (block.get(i).isScreenOn()) {
+                bits |= 1 << (i & 7);
+            }
+            if ((i & 7) == 7 || i == count - 1) {
+                out.write(bits);
+                bits = 0;
+            }
+        }
+
+        // 内存：与上一条的差值
+        long previousFree = 0;
+        long previousTotal = 0;
+        for (int i = 0; i < count; i++) {
+            HeartbeatData data = block.get(i);
+            out.writeSignedVarint(data.getFreeMemory() - previousFree);
+            out.writeSignedVarint(data.getTotalMemory() - previousTotal);
+            previousFree = data.getFreeMemory();
+            previousTotal = data.getTotalMemory();
+        }
+
+        // 触发时间：与时间戳的差值，通常只有几毫秒
+        for (int i = 0; i < count; i++) {
+            HeartbeatData data = block.get(i);
+            out.writeSignedVarint(data.getPlannedTime() - data.getTimestamp());
+            out.writeSignedVarint(data.getFiredTime() - data.getTimestamp());
+        }
+
+        // 错过心跳数
+        for (int i = 0; i < count; i++) {
+            out.writeVarint(Math.max(0, block.get(i).getMissedBeats()));
+        }
+
+        // 设备品牌
+        for (int i = 0; i < count; i++) {
+            writeString(out, block.get(i).getDeviceBrand());
+        }
+
+        // SDK版本
+        for (int i = 0; i < count; i++) {
+            out.writeSignedVarint(block.get(i).getSdkVersion());
+        }
+
+        // 心跳序号：与上一条的差值，连续心跳每条1字节
+        long previousIndex = 0;
+        for (int i = 0; i < count; i++) {
+            HeartbeatData data = block.get(i);
+            out.writeSignedVarint(data.getHeartbeatIndex() - previousIndex);
+            previousIndex = data.getHeartbeatIndex();
+        }
+    }
+
+    /**
+     * 解码一个数据块，兼容旧版JSON记录
+     * @param payload 编码数据
+     * @return 心跳数据列表
+     */
+    public List<HeartbeatData> decode(byte[] payload) {
+        if (payload.length > 0 && payload[0] == JSON_RECORD_START) {
+            List<HeartbeatData> legacy = new ArrayList<>(1);
+            legacy.add(HeartbeatData.fromJson(JSON.parseObject(new String(payload, StandardCharsets.UTF_8))));
+            return legacy;
+        }
+
+        Input in = new Input(payload);
+        int version = in.read();
+        if (version < FORMAT_VERSION_V1 || version > FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的日志格式版本: " + version);
+        }
+
+        int count = (int) in.readVarint();
+        List<HeartbeatData> block = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            block.add(new HeartbeatData());
+        }
+
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long value = in.readSignedVarint();
+            long timestamp;
+            if (i == 0) {
+                timestamp = value;
+            } else {
+                long delta = i == 1 ? value : previousDelta + value;
+                timestamp = previous + delta;
+                previousDelta = delta;
+            }
+            block.get(i).setTimestamp(timestamp);
+            previous = timestamp;
+        }
+
+        for (int column = 0; column < STRING_COLUMNS_V1; column++) {
+            for (HeartbeatData data : block) {
+                setStringColumn(data, column, readString(in));
+            }
+        }
+
+        boolean fitsInByte = in.read() == BATTERY_BYTES;
+        for (HeartbeatData data : block) {
+            data.setBatteryLevel(fitsInByte ? (byte) in.read() : (int) in.readSignedVarint());
+        }
+
+        for (HeartbeatData data : block) {
+            data.setScreenWidth((int) in.readSignedVarint());
+            data.setScreenHeight((int) in.readSignedVarint());
+        }
+
+        int bits = 0;
+        for (int i = 0; i < count; i++) {
+            if ((i & 7) == 0) {
+                bits = in.read();
+            }
+            block.get(i).setScreenOn((bits & (1 << (i & 7))) != 0);
+        }
+
+        long previousFree = 0;
+        long previousTotal = 0;
+        for (HeartbeatData data : block) {
+            previousFree += in.readSignedVarint();
+            previousTotal += in.readSignedVarint();
+            data.setFreeMemory(previousFree);
+            data.setTotalMemory(previousTotal);
+        }
+
+        if (version >= FORMAT_VERSION_V2) {
+            for (HeartbeatData data : block) {
+                data.setPlannedTime(data.getTimestamp() + in.readSignedVarint());
+                data.setFiredTime(data.getTimestamp() + in.readSignedVarint());
+            }
+            for (HeartbeatData data : block) {
+                data.setMissedBeats((int) Math.min(in.readVarint(), Integer.MAX_VALUE));
+            }
+        }
+
+        if (version >= FORMAT_VERSION_V3) {
+            for (HeartbeatData data : block) {
+                data.setDeviceBrand(readString(in));
+            }
+            for (HeartbeatData data : block) {
+                data.setSdkVersion((int) in.readSignedVarint());
+            }
+            long previousIndex = 0;
+            for (HeartbeatData data : block) {
+                previousIndex += in.readSignedVarint();
+                data.setHeartbeatIndex(previousIndex);
+            }
+        }
+
+        return block;
+    }
+
+    static String getStringColumn(HeartbeatData data, int column) {
+        switch (column) {
+            case 0:
+                return data.getDeviceId();
+            case 1:
+                return data.getAppVersion();
+            case 2:
+                return data.getSystemVersion();
+            case 3:
+                return data.getDeviceModel();
+            case 4:
+                return data.getManufacturer();
+            case 5:
+                return data.getKeepAliveStatus();
+            case 6:
+                return data.getNetworkType();
+            default:
+                return data.getDeviceBrand();
+        }
+    }
+
+    static void setStringColumn(HeartbeatData data, int column, String value) {
+        switch (column) {
+            case 0:
+                data.setDeviceId(value);
+                break;
+            case 1:
+                data.setAppVersion(value);
+                break;
+            case 2:
+                data.setSystemVersion(value);
+                break;
+            case 3:
+                data.setDeviceModel(value);
+                break;
+            case 4:
+                data.setManufacturer(value);
+                break;
+            case 5:
+                data.setKeepAliveStatus(value);
+                break;
+            case 6:
+                data.setNetworkType(value);
+                break;
+            default:
+                data.setDeviceBrand(value);
+                break;
+        }
+    }
+
+    private void writeString(Output out, String value) {
+        if (value == null) {
+            out.writeVarint(STRING_NULL);
+            return;
+        }
+
+        int id = dictionary.intern(value);
+        if (id >= 0) {
+            out.writeVarint(STRING_DICTIONARY_BASE + id);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(STRING_INLINE);
+            out.writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private String readString(Input in) {
+        long tag = in.readVarint();
+        if (tag == STRING_NULL) {
+            return null;
+        }
+        if (tag == STRING_INLINE) {
+            int length = (int) in.readVarint();
+            return in.readString(length);
+        }
+
+        String value = dictionary.get((int) (tag - STRING_DICTIONARY_BASE));
+        if (value == null) {
+            throw new IllegalArgumentException("字典编号无效: " + tag);
+        }
+        return value;
+    }
+
+    /**
+     * 编码输出缓冲
+     */
+    private static class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+    }
+
+    /**
+     * 解码输入
+     */
+    private static class Input {
+
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int read() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("日志数据不完整");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("varint 格式错误");
+        }
+
+        long readSignedVarint() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("日志数据不完整");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -2,314 +2,356 @@ package io.dcloud.feature.keepalive;
 
 import android.app.ActivityManager;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.os.BatteryManager;
-import android.os.Build;
-import android.os.PowerManager;
-import android.provider.Settings;
-import android.util.DisplayMetrics;
 import android.util.Log;
-import android.view.WindowManager;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * 心跳数据收集器
  * 负责收集设备信息、系统状态和保活状态
- * 
+ *
  * 功能特性：
  * 1. 收集设备基本信息（型号、厂商、系统版本）
  * 2. 收集应用信息（版本号）
  * 3. 收集系统状态（电池、网络、内存、屏幕）
  * 4. 收集保活状态
- * 
+ * 5. 各项指标由指标提供者按各自的采样周期采集，未到周期的心跳沿用上次的值
+ *
+ * 内置指标提供者：
+ * - device：设备ID、型号、厂商、品牌、系统版本、应用版本，只采集一次
+ * - device_state：电量、网络、屏幕开关（读取广播驱动的快照），每次心跳
+ * - screen_size：屏幕尺寸（读取设备信息快照，配置变化后快照失效），每次心跳
+ * - memory：可用内存和总内存（Binder 调用），每 5 次心跳
+ *
  * 验证需求：4.2
  */
 public class HeartbeatCollector {
     
     private static final String TAG = "HeartbeatCollector";
     
+    // 指标采集开销
+    public static final int COST_CHEAP = 0;      // 读取内存中的快照
+    public static final int COST_MODERATE = 1;   // 本进程内的计算
+    public static final int COST_EXPENSIVE = 2;  // 系统调用或跨进程调用
+    
+    // 采样周期：只采集一次
+    public static final int SAMPLE_ONCE = 0;
+    
+    // 屏幕尺寸读取的是设备信息快照，开销很小；每次心跳读取，旋转或分辨率变化后下一次心跳即生效
+    private static final int SCREEN_SIZE_SAMPLE_PERIOD = 1;
+    private static final int MEMORY_SAMPLE_PERIOD = 5;
+    
+    /**
+     * 指标提供者
+     */
+    public interface MetricProvider {
+        /**
+         * 指标名称（用于统计和日志）
+         */
+        String getName();
+        
+        /**
+         * 采集开销：COST_CHEAP / COST_MODERATE / COST_EXPENSIVE
+         */
+        int getCostClass();
+        
+        /**
+         * 采样周期（心跳次数），每N次心跳采集一次；SAMPLE_ONCE 表示只采集一次
+         */
+        int getSamplingPeriod();
+        
+        /**
+         * 采集指标并写入记录，只写入本提供者负责的字段
+         * @param data 指标缓存记录
+         */
+        void sample(HeartbeatData data);
+    }
+    
     private Context context;
     private String deviceId;
     
+    // 预分配的内存信息结构，每次收集复用
+    private ActivityManager activityManager;
+    private final ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+    
+    // 指标提供者及其采样状态（读写都持有 lastSample 的锁）
+    private final List<ProviderEntry> providers = new ArrayList<>();
+    // 各指标最近一次采集的值
+    private final HeartbeatData lastSample = new HeartbeatData();
+    private long collectCount = 0;
+    
     public HeartbeatCollector(Context context) {
         this.context = context;
         this.deviceId = getOrCreateDeviceId();
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        registerBuiltinProviders();
     }
     
     /**
-     * 收集完整的心跳数据
-     * @param keepAliveStatus 保活状态
-     * @return HeartbeatData对象
+     * 注册指标提供者，下一次心跳时首次采集
+     * @param provider 指标提供者
      */
-    public HeartbeatData collectHeartbeatData(String keepAliveStatus) {
-        HeartbeatData data = new HeartbeatData();
+    public void addMetricProvider(MetricProvider provider) {
+        if (provider == null) {
+            return;
+        }
         
-        try {
-            // 设备信息
-            data.setDeviceId(deviceId);
-            data.setDeviceModel(Build.MODEL);
-            data.setManufacturer(Build.MANUFACTURER);
-            data.setSystemVersion(Build.VERSION.RELEASE);
-            
-            // 应用信息
-            data.setAppVersion(getAppVersion());
-            
-            // 保活状态
-            data.setKeepAliveStatus(keepAliveStatus);
-            
-            // 时间戳
-            data.setTimestamp(System.currentTimeMillis());
-            
-            // 电池信息
-            data.setBatteryLevel(getBatteryLevel());
-            
-            // 网络信息
-            data.setNetworkType(getNetworkType());
-            
-            // 屏幕信息
-            DisplayMetrics metrics = getScreenMetrics();
-            if (metrics != null) {
-                data.setScreenWidth(metrics.widthPixels);
-                data.setScreenHeight(metrics.heightPixels);
-            }
-            
-            // 屏幕状态
-            data.setScreenOn(isScreenOn());
-            
-            // 内存信息
-            ActivityManager.MemoryInfo memoryInfo = getMemoryInfo();
-            if (memoryInfo != null) {
-                data.setFreeMemory(memoryInfo.availMem);
-                data.setTotalMemory(memoryInfo.totalMem);
+        synchronized (lastSample) {
+            for (ProviderEntry entry : providers) {
+                if (entry.provider == provider) {
+                    return;
+                }
             }
-            
-            Log.d(TAG, "心跳数据收集完成: " + data.toString());
-            
-        } catch (Exception e) {
-            Log.e(TAG, "收集心跳数据失败", e);
+            providers.add(new ProviderEntry(provider));
         }
         
-        return data;
+        Log.d(TAG, "注册指标提供者: " + provider.getName()
+            + ", 开销: " + provider.getCostClass() + ", 周期: " + provider.getSamplingPeriod());
     }
     
     /**
-     * 获取或创建设备ID
-     * @return 设备唯一标识
+     * 移除指标提供者，其负责的字段保持最后一次采集的值
+     * @param provider 指标提供者
      */
-    private String getOrCreateDeviceId() {
-        try {
-            // 尝试从SharedPreferences获取
-            String savedDeviceId = context.getSharedPreferences("keep_alive_prefs", Context.MODE_PRIVATE)
-                .getString("device_id", null);
-            
-            if (savedDeviceId != null && !savedDeviceId.isEmpty()) {
-                return savedDeviceId;
-            }
-            
-            // 尝试使用Android ID
-            String androidId = Settings.Secure.getString(
-                context.getContentResolver(), 
-                Settings.Secure.ANDROID_ID
-            );
-            
-            if (androidId != null && !androidId.isEmpty() && !"9774d56d682e549c".equals(androidId)) {
-                // 保存到SharedPreferences
-                context.getSharedPreferences("keep_alive_prefs", Context.MODE_PRIVATE)
-                    .edit()
-                    .putString("device_id", androidId)
-                    .apply();
-                return androidId;
+    public void removeMetricProvider(MetricProvider provider) {
+        synchronized (lastSample) {
+            for (ProviderEntry entry : providers) {
+                if (entry.provider == provider) {
+                    providers.remove(entry);
+                    return;
+                }
             }
-            
-            // 生成随机ID
-            String randomId = "device_" + System.currentTimeMillis() + "_" + 
-                (int)(Math.random() * 100000);
-            
-            // 保存到SharedPreferences
-            context.getSharedPreferences("keep_alive_prefs", Context.MODE_PRIVATE)
-                .edit()
-                .putString("device_id", randomId)
-                .apply();
-            
-            return randomId;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "获取设备ID失败", e);
-            return "unknown_device";
         }
     }
     
     /**
-     * 获取应用版本号
-     * @return 版本号字符串
+     * 收集完整的心跳数据
+     * @param keepAliveStatus 保活状态
+     * @return HeartbeatData对象
      */
-    private String getAppVersion() {
-        try {
-            PackageManager packageManager = context.getPackageManager();
-            PackageInfo packageInfo = packageManager.getPackageInfo(context.getPackageName(), 0);
-            return packageInfo.versionName;
-        } catch (Exception e) {
-            Log.e(TAG, "获取应用版本失败", e);
-            return "unknown";
-        }
+    public HeartbeatData collectHeartbeatData(String keepAliveStatus) {
+        return collectHeartbeatData(keepAliveStatus, new HeartbeatData());
     }
     
     /**
-     * 获取电池电量
-     * @return 电量百分比 (0-100)，失败返回-1
+     * 收集心跳数据到调用方复用的记录中，稳态下不分配对象
+     * 记录交给会保留引用的日志或写入缓冲之前，调用方需自行复制
+     * @param keepAliveStatus 保活状态
+     * @param data 复用的记录，所有字段都会被覆盖
+     * @return 传入的记录
      */
-    private int getBatteryLevel() {
-        try {
-            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = context.registerReceiver(null, filter);
-            
-            if (batteryStatus != null) {
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+    public HeartbeatData collectHeartbeatData(String keepAliveStatus, HeartbeatData data) {
+        synchronized (lastSample) {
+            try {
+                long beat = collectCount++;
                 
-                if (level >= 0 && scale > 0) {
-                    return (int)((level / (float)scale) * 100);
+                // 只采集到期的指标，其余沿用上次的值（按下标遍历，不创建迭代器）
+                for (int i = 0; i < providers.size(); i++) {
+                    ProviderEntry entry = providers.get(i);
+                    if (entry.isDue(beat)) {
+                        entry.sample(beat, lastSample);
+                    }
                 }
+                
+                data.copyFrom(lastSample);
+                
+                // 保活状态
+                data.setKeepAliveStatus(keepAliveStatus);
+                
+                // 时间戳
+                data.setTimestamp(System.currentTimeMillis());
+                
+                if (Log.isLoggable(TAG, Log.DEBUG)) {
+                    Log.d(TAG, "心跳数据收集完成: " + data.toString());
+                }
+                
+            } catch (Exception e) {
+                Log.e(TAG, "收集心跳数据失败", e);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "获取电池电量失败", e);
         }
         
-        return -1;
+        return data;
     }
     
     /**
-     * 获取网络类型
-     * @return 网络类型字符串
+     * 获取指标提供者的采样统计
+     * @return 指标名 -> {costClass, samplingPeriod, sampleCount, lastSampleTime}，以及 collectCount
      */
-    private String getNetworkType() {
-        try {
-            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-            if (cm == null) {
-                return "unknown";
-            }
-            
-            NetworkInfo networkInfo = cm.getActiveNetworkInfo();
-            if (networkInfo == null || !networkInfo.isConnected()) {
-                return "none";
-            }
-            
-            int type = networkInfo.getType();
-            switch (type) {
-                case ConnectivityManager.TYPE_WIFI:
-                    return "wifi";
-                case ConnectivityManager.TYPE_MOBILE:
-                    int subtype = networkInfo.getSubtype();
-                    return getMobileNetworkType(subtype);
-                case ConnectivityManager.TYPE_ETHERNET:
-                    return "ethernet";
-                default:
-                    return "other";
+    public JSONObject getMetricStats() {
+        JSONObject stats = new JSONObject();
+        synchronized (lastSample) {
+            for (ProviderEntry entry : providers) {
+                JSONObject providerStats = new JSONObject();
+                providerStats.put("costClass", entry.provider.getCostClass());
+                providerStats.put("samplingPeriod", entry.provider.getSamplingPeriod());
+                providerStats.put("sampleCount", entry.sampleCount);
+                providerStats.put("lastSampleTime", entry.lastSampleTime);
+                stats.put(entry.provider.getName(), providerStats);
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "获取网络类型失败", e);
-            return "unknown";
+            stats.put("collectCount", collectCount);
         }
+        return stats;
     }
     
     /**
-     * 获取移动网络类型
-     * @param subtype 网络子类型
-     * @return 网络类型字符串
+     * 注册内置指标提供者
      */
-    private String getMobileNetworkType(int subtype) {
-        switch (subtype) {
-            case android.telephony.TelephonyManager.NETWORK_TYPE_GPRS:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_EDGE:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_CDMA:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_1xRTT:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_IDEN:
-                return "2g";
-                
-            case android.telephony.TelephonyManager.NETWORK_TYPE_UMTS:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_0:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_A:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_HSDPA:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_HSUPA:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_HSPA:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_B:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_EHRPD:
-            case android.telephony.TelephonyManager.NETWORK_TYPE_HSPAP:
-                return "3g";
-                
-            case android.telephony.TelephonyManager.NETWORK_TYPE_LTE:
-                return "4g";
-                
-            case android.telephony.TelephonyManager.NETWORK_TYPE_NR:
-                return "5g";
-                
-            default:
-                return "mobile";
-        }
-    }
-    
-    /**
-     * 获取屏幕尺寸信息
-     * @return DisplayMetrics对象
-     */
-    private DisplayMetrics getScreenMetrics() {
-        try {
-            WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-            if (wm != null) {
-                DisplayMetrics metrics = new DisplayMetrics();
-                wm.getDefaultDisplay().getMetrics(metrics);
-                return metrics;
+    private void registerBuiltinProviders() {
+        // 设备静态信息（进程内共享快照）
+        addMetricProvider(new MetricProvider() {
+            @Override
+            public String getName() {
+                return "device";
             }
-        } catch (Exception e) {
-            Log.e(TAG, "获取屏幕信息失败", e);
-        }
+            
+            @Override
+            public int getCostClass() {
+                return COST_CHEAP;
+            }
+            
+            @Override
+            public int getSamplingPeriod() {
+                return SAMPLE_ONCE;
+            }
+            
+            @Override
+            public void sample(HeartbeatData data) {
+                DeviceProfile profile = DeviceProfile.get(context);
+                data.setDeviceId(deviceId);
+                data.setDeviceModel(profile.getDeviceModel());
+                data.setManufacturer(profile.getManufacturer());
+                data.setDeviceBrand(profile.getDeviceBrand());
+                data.setSystemVersion(profile.getSystemVersion());
+                data.setSdkVersion(profile.getSdkVersion());
+                data.setAppVersion(profile.getAppVersion());
+            }
+        });
+        
+        // 设备动态状态（广播驱动的快照）
+        addMetricProvider(new MetricProvider() {
+            @Override
+            public String getName() {
+                return "device_state";
+            }
+            
+            @Override
+            public int getCostClass() {
+                return COST_CHEAP;
+            }
+            
+            @Override
+            public int getSamplingPeriod() {
+                return 1;
+            }
+            
+            @Override
+            public void sample(HeartbeatData data) {
+                DeviceStateMonitor.Snapshot state = DeviceStateMonitor.getInstance(context).getSnapshot();
+                data.setBatteryLevel(state.getBatteryLevel());
+                data.setNetworkType(state.getDetailedNetworkType());
+                data.setScreenOn(state.isScreenOn());
+            }
+        });
         
-        return null;
+        // 屏幕尺寸（配置变化后快照失效，下次采样时重新计算）
+        addMetricProvider(new MetricProvider() {
+            @Override
+            public String getName() {
+                return "screen_size";
+            }
+            
+            @Override
+            public int getCostClass() {
+                return COST_CHEAP;
+            }
+            
+            @Override
+            public int getSamplingPeriod() {
+                return SCREEN_SIZE_SAMPLE_PERIOD;
+            }
+            
+            @Override
+            public void sample(HeartbeatData data) {
+                DeviceProfile profile = DeviceProfile.get(context);
+                data.setScreenWidth(profile.getScreenWidth());
+                data.setScreenHeight(profile.getScreenHeight());
+            }
+        });
+        
+        // 内存信息
+        addMetricProvider(new MetricProvider() {
+            @Override
+            public String getName() {
+                return "memory";
+            }
+            
+            @Override
+            public int getCostClass() {
+                return COST_EXPENSIVE;
+            }
+            
+            @Override
+            public int getSamplingPeriod() {
+                return MEMORY_SAMPLE_PERIOD;
+            }
+            
+            @Override
+            public void sample(HeartbeatData data) {
+                if (!readMemoryInfo()) {
+                    throw new IllegalStateException("内存信息不可用");
+                }
+                data.setFreeMemory(memoryInfo.availMem);
+                data.setTotalMemory(memoryInfo.totalMem);
+            }
+        });
     }
     
     /**
-     * 检查屏幕是否开启
-     * @return 是否开启
+     * 获取或创建设备ID
+     * 所有心跳共用同一个设备ID，首次使用时生成并保存到统一存储
+     * @return 设备唯一标识
      */
-    private boolean isScreenOn() {
+    private String getOrCreateDeviceId() {
         try {
-            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            if (pm != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
-                    return pm.isInteractive();
-                } else {
-                    return pm.isScreenOn();
-                }
+            KeepAliveStore store = KeepAliveStore.getInstance(context);
+            
+            String savedDeviceId = store.getDeviceId();
+            
+            if (savedDeviceId != null && !savedDeviceId.isEmpty()) {
+                return savedDeviceId;
             }
+            
+            // 生成新的设备ID
+            String newDeviceId = UUID.randomUUID().toString();
+            store.setDeviceId(newDeviceId);
+            
+            return newDeviceId;
+            
         } catch (Exception e) {
-            Log.e(TAG, "检查屏幕状态失败", e);
+            Log.e(TAG, "获取设备ID失败", e);
+            return "unknown_device";
         }
-        
-        return false;
     }
     
     /**
-     * 获取内存信息
-     * @return MemoryInfo对象
+     * 读取内存信息到预分配的结构中
+     * @return 是否读取成功
      */
-    private ActivityManager.MemoryInfo getMemoryInfo() {
+    private boolean readMemoryInfo() {
         try {
-            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-            if (am != null) {
-                ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
-                am.getMemoryInfo(memoryInfo);
-                return memoryInfo;
+            if (activityManager != null) {
+                activityManager.getMemoryInfo(memoryInfo);
+                return true;
             }
         } catch (Exception e) {
             Log.e(TAG, "获取内存信息失败", e);
         }
         
-        return null;
+        return false;
     }
     
     /**
@@ -319,4 +361,39 @@ public class HeartbeatCollector {
     public String getDeviceId() {
         return deviceId;
     }
+    
+    /**
+     * 指标提供者的采样状态
+     */
+    private static class ProviderEntry {
+        
+        final MetricProvider provider;
+        long lastSampleBeat = -1;
+        long sampleCount = 0;
+        long lastSampleTime = 0;
+        
+        ProviderEntry(MetricProvider provider) {
+            this.provider = provider;
+        }
+        
+        boolean isDue(long beat) {
+            if (lastSampleBeat < 0) {
+                return true;
+            }
+            int period = provider.getSamplingPeriod();
+            return period > SAMPLE_ONCE && beat - lastSampleBeat >= period;
+        }
+        
+        void sample(long beat, HeartbeatData data) {
+            // 采集失败时下次心跳重试，字段保持上次的值
+            try {
+                provider.sample(data);
+                lastSampleBeat = beat;
+                sampleCount++;
+                lastSampleTime = System.currentTimeMillis();
+            } catch (Exception e) {
+                Log.e(TAG, "指标采集失败: " + provider.getName(), e);
+            }
+        }
+    }
 }
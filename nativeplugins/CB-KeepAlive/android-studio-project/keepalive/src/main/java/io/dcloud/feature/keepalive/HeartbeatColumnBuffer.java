@@ -0,0 +1,268 @@
+package io.dcloud.feature.keepalive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 心跳日志内存列存环形缓冲
+ * 按列使用基本类型数组保存最近的心跳，字符串列只保存驻留字符串的编号，
+ * 相同的设备型号、应用版本、厂商等字符串在内存中只有一份
+ *
+ * 范围读取在锁内一次性构造各行的 HeartbeatData 并返回快照，
+ * 调用方可以长期持有，不受之后的追加和淘汰影响
+ *
+ * 电量按字节保存，超出 [-128, 127] 的值会被截断
+ */
+public class HeartbeatColumnBuffer {
+
+    private static final int NULL_STRING = -1;
+
+    // 驻留字符串数超过阈值时按现存的行原地整理字符串表
+    private static final int STRING_POOL_COMPACT_THRESHOLD = 512;
+
+    private final int capacity;
+
+    // 列
+    private final long[] timestamps;
+    private final byte[] batteryLevels;
+    private final int[] screenWidths;
+    private final int[] screenHeights;
+    private final boolean[] screenOn;
+    private final long[] freeMemory;
+    private final long[] totalMemory;
+    private final long[] plannedTimes;
+    private final long[] firedTimes;
+    private final int[] missedBeats;
+    private final int[] sdkVersions;
+    private final long[] heartbeatIndexes;
+    private final int[][] stringIds;
+
+    // 驻留字符串表，清空和整理时复用同一个列表和索引
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private int compactThreshold = STRING_POOL_COMPACT_THRESHOLD;
+    // 整理字符串表时旧编号到新编号的映射，只在字符串表超过之前的长度时扩容
+    private int[] remap = new int[0];
+
+    // 循环数组：start 为最旧行的位置
+    private int start;
+    private int size;
+
+    /**
+     * @param capacity 最多保存的行数，写满后追加会覆盖最旧的行
+     */
+    public HeartbeatColumnBuffer(int capacity) {
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.batteryLevels = new byte[capacity];
+        this.screenWidths = new int[capacity];
+        this.screenHeights = new int[capacity];
+        this.screenOn = new boolean[capacity];
+        this.freeMemory = new long[capacity];
+        this.totalMemory = new long[capacity];
+        this.plannedTimes = new long[capacity];
+        this.firedTimes = new long[capacity];
+        this.missedBeats = new int[capacity];
+        this.sdkVersions = new int[capacity];
+        this.heartbeatIndexes = new long[capacity];
+        this.stringIds = new int[HeartbeatCodec.STRING_COLUMNS][capacity];
+    }
+
+    /**
+     * 追加一行，已满时覆盖最旧的行
+     * @param heartbeatData 心跳数据
+     */
+    public synchronized void add(HeartbeatData heartbeatData) {
+        if (size == capacity) {
+            removeFirst(1);
+        }
+
+        if (strings.size() > compactThreshold) {
+            compactStrings();
+        }
+
+        int slot = (start + size) % capacity;
+        timestamps[slot] = heartbeatData.getTimestamp();
+        batteryLevels[slot] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, heartbeatData.getBatteryLevel()));
+        screenWidths[slot] = heartbeatData.getScreenWidth();
+        screenHeights[slot] = heartbeatData.getScreenHeight();
+        screenOn[slot] = heartbeatData.isScreenOn();
+        freeMemory[slot] = heartbeatData.getFreeMemory();
+        totalMemory[slot] = heartbeatData.getTotalMemory();
+        plannedTimes[slot] = heartbeatData.getPlannedTime();
+        firedTimes[slot] = heartbeatData.getFiredTime();
+        missedBeats[slot] = heartbeatData.getMissedBeats();
+        sdkVersions[slot] = heartbeatData.getSdkVersion();
+        heartbeatIndexes[slot] = heartbeatData.getHeartbeatIndex();
+        for (int column = 0; column < HeartbeatCodec.STRING_COLUMNS; column++) {
+            stringIds[column][slot] = intern(HeartbeatCodec.getStringColumn(heartbeatData, column));
+        }
+
+        size++;
+    }
+
+    /**
+     * 删除最旧的N行
+     * @param n 删除数量
+     */
+    public synchronized void removeFirst(int n) {
+        int removeCount = Math.min(n, size);
+        start = (start + removeCount) % capacity;
+        size -= removeCount;
+    }
+
+    /**
+     * 清空所有行
+     */
+    public synchronized void clear() {
+        start = 0;
+        size = 0;
+        strings.clear();
+        stringIndex.clear();
+        compactThreshold = STRING_POOL_COMPACT_THRESHOLD;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 获取第i行的时间戳（0为最旧）
+     */
+    public synchronized long getTimestamp(int i) {
+        return timestamps[slot(i)];
+    }
+
+    /**
+     * 获取第i行的保活状态（0为最旧）
+     */
+    public synchronized String getKeepAliveStatus(int i) {
+        return string(stringIds[HeartbeatCodec.COLUMN_KEEP_ALIVE_STATUS][slot(i)]);
+    }
+
+    /**
+     * 构造第i行的心跳数据（0为最旧）
+     */
+    public synchronized HeartbeatData get(int i) {
+        return build(slot(i));
+    }
+
+    /**
+     * 获取 [fromIndex, toIndex) 范围的快照
+     * @param fromIndex 起始行（包含）
+     * @param toIndex 结束行（不包含）
+     * @return 心跳数据列表（从旧到新）
+     */
+    public synchronized List<HeartbeatData> snapshot(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("范围越界: [" + fromIndex + ", " + toIndex + ")");
+        }
+
+        List<HeartbeatData> rows = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            rows.add(build((start + i) % capacity));
+        }
+        return rows;
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("行号越界: " + i);
+        }
+        return (start + i) % capacity;
+    }
+
+    private HeartbeatData build(int slot) {
+        HeartbeatData heartbeatData = new HeartbeatData();
+        heartbeatData.setTimestamp(timestamps[slot]);
+        heartbeatData.setBatteryLevel(batteryLevels[slot]);
+        heartbeatData.setScreenWidth(screenWidths[slot]);
+        heartbeatData.setScreenHeight(screenHeights[slot]);
+        heartbeatData.setScreenOn(screenOn[slot]);
+        heartbeatData.setFreeMemory(freeMemory[slot]);
+        heartbeatData.setTotalMemory(totalMemory[slot]);
+        heartbeatData.setPlannedTime(plannedTimes[slot]);
+        heartbeatData.setFiredTime(firedTimes[slot]);
+        heartbeatData.setMissedBeats(missedBeats[slot]);
+        heartbeatData.setSdkVersion(sdkVersions[slot]);
+        heartbeatData.setHeartbeatIndex(heartbeatIndexes[slot]);
+        for (int column = 0; column < HeartbeatCodec.STRING_COLUMNS; column++) {
+            HeartbeatCodec.setStringColumn(heartbeatData, column, string(stringIds[column][slot]));
+        }
+        return heartbeatData;
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+
+        Integer id = stringIndex.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIndex.put(value, id);
+        }
+        return id;
+    }
+
+    private String string(int id) {
+        return id == NULL_STRING ? null : strings.get(id);
+    }
+
+    /**
+     * 只保留现存行引用的字符串，按原顺序重新编号
+     * 在原有的列表和索引上整理，不重建字符串表
+     */
+    private void compactStrings() {
+        int poolSize = strings.size();
+        if (remap.length < poolSize) {
+            remap = new int[Math.max(poolSize, remap.length * 2)];
+        }
+        Arrays.fill(remap, 0, poolSize, NULL_STRING);
+
+        // 标记现存行引用的字符串
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % capacity;
+            for (int column = 0; column < HeartbeatCodec.STRING_COLUMNS; column++) {
+                int id = stringIds[column][slot];
+                if (id != NULL_STRING) {
+                    remap[id] = 0;
+                }
+            }
+        }
+
+        // 引用的字符串前移，新编号不大于旧编号，前移不会覆盖尚未处理的字符串
+        int count = 0;
+        for (int id = 0; id < poolSize; id++) {
+            String value = strings.get(id);
+            if (remap[id] == NULL_STRING) {
+                stringIndex.remove(value);
+                continue;
+            }
+            remap[id] = count;
+            strings.set(count, value);
+            stringIndex.put(value, count);
+            count++;
+        }
+        for (int id = poolSize - 1; id >= count; id--) {
+            strings.remove(id);
+        }
+
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % capacity;
+            for (int column = 0; column < HeartbeatCodec.STRING_COLUMNS; column++) {
+                int id = stringIds[column][slot];
+                if (id != NULL_STRING) {
+                    stringIds[column][slot] = remap[id];
+                }
+            }
+        }
+
+        // 现存字符串本身较多时放宽阈值，避免每次追加都整理
+        compactThreshold = Math.max(STRING_POOL_COMPACT_THRESHOLD, count * 2);
+    }
+}
@@ -6,6 +6,10 @@ import com.alibaba.fastjson.JSONObject;
  * 心跳数据模型
  * 包含设备信息、应用状态、保活状态等关键信息
  * 
+ * 二进制心跳日志（HeartbeatCodec）自格式版本3起保存全部字段；
+ * 计划触发时间、实际触发时间和错过心跳数自版本2起写入，设备品牌、SDK版本和心跳序号自版本3起写入，
+ * 更早版本的记录中这些字段为null或0
+ * 
  * 验证需求：4.2
  */
 public class HeartbeatData {
@@ -15,6 +19,8 @@ public class HeartbeatData {
     private String systemVersion;      // 系统版本
     private String deviceModel;        // 设备型号
     private String manufacturer;       // 设备厂商
+    private String deviceBrand;        // 设备品牌
+    private int sdkVersion;            // Android SDK版本
     private String keepAliveStatus;    // 保活状态
     private long timestamp;            // 时间戳
     private int batteryLevel;          // 电池电量
@@ -24,6 +30,10 @@ public class HeartbeatData {
     private boolean isScreenOn;        // 屏幕是否开启
     private long freeMemory;           // 可用内存
     private long totalMemory;          // 总内存
+    private long heartbeatIndex;       // 心跳序号
+    private long plannedTime;          // 计划触发时间
+    private long firedTime;            // 实际触发时间
+    private int missedBeats;           // 本次心跳之前错过的心跳数
     
     public HeartbeatData() {
         this.timestamp = System.currentTimeMillis();
@@ -71,6 +81,22 @@ public class HeartbeatData {
         this.manufacturer = manufacturer;
     }
     
+    public String getDeviceBrand() {
+        return deviceBrand;
+    }
+    
+    public void setDeviceBrand(String deviceBrand) {
+        this.deviceBrand = deviceBrand;
+    }
+    
+    public int getSdkVersion() {
+        return sdkVersion;
+    }
+    
+    public void setSdkVersion(int sdkVersion) {
+        this.sdkVersion = sdkVersion;
+    }
+    
     public String getKeepAliveStatus() {
         return keepAliveStatus;
     }
@@ -143,6 +169,75 @@ public class HeartbeatData {
         this.totalMemory = totalMemory;
     }
     
+    public long getHeartbeatIndex() {
+        return heartbeatIndex;
+    }
+    
+    public void setHeartbeatIndex(long heartbeatIndex) {
+        this.heartbeatIndex = heartbeatIndex;
+    }
+    
+    public long getPlannedTime() {
+        return plannedTime;
+    }
+    
+    public void setPlannedTime(long plannedTime) {
+        this.plannedTime = plannedTime;
+    }
+    
+    public long getFiredTime() {
+        return firedTime;
+    }
+    
+    public void setFiredTime(long firedTime) {
+        this.firedTime = firedTime;
+    }
+    
+    public int getMissedBeats() {
+        return missedBeats;
+    }
+    
+    public void setMissedBeats(int missedBeats) {
+        this.missedBeats = missedBeats;
+    }
+    
+    /**
+     * 复制一份，供需要保留记录的调用方使用
+     * @return 新的HeartbeatData
+     */
+    public HeartbeatData copy() {
+        HeartbeatData data = new HeartbeatData();
+        data.copyFrom(this);
+        return data;
+    }
+    
+    /**
+     * 用另一条记录的所有字段覆盖本记录
+     * @param other 来源记录
+     */
+    void copyFrom(HeartbeatData other) {
+        deviceId = other.deviceId;
+        appVersion = other.appVersion;
+        systemVersion = other.systemVersion;
+        deviceModel = other.deviceModel;
+        manufacturer = other.manufacturer;
+        deviceBrand = other.deviceBrand;
+        sdkVersion = other.sdkVersion;
+        keepAliveStatus = other.keepAliveStatus;
+        timestamp = other.timestamp;
+        batteryLevel = other.batteryLevel;
+        networkType = other.networkType;
+        screenWidth = other.screenWidth;
+        screenHeight = other.screenHeight;
+        isScreenOn = other.isScreenOn;
+        freeMemory = other.freeMemory;
+        totalMemory = other.totalMemory;
+        heartbeatIndex = other.heartbeatIndex;
+        plannedTime = other.plannedTime;
+        firedTime = other.firedTime;
+        missedBeats = other.missedBeats;
+    }
+    
     /**
      * 转换为JSON对象
      * @return JSONObject
@@ -154,6 +249,8 @@ public class HeartbeatData {
         json.put("systemVersion", systemVersion);
         json.put("deviceModel", deviceModel);
         json.put("manufacturer", manufacturer);
+        json.put("deviceBrand", deviceBrand);
+        json.put("sdkVersion", sdkVersion);
         json.put("keepAliveStatus", keepAliveStatus);
         json.put("timestamp", timestamp);
         json.put("batteryLevel", batteryLevel);
@@ -163,6 +260,10 @@ public class HeartbeatData {
         json.put("isScreenOn", isScreenOn);
         json.put("freeMemory", freeMemory);
         json.put("totalMemory", totalMemory);
+        json.put("heartbeatIndex", heartbeatIndex);
+        json.put("plannedTime", plannedTime);
+        json.put("firedTime", firedTime);
+        json.put("missedBeats", missedBeats);
         return json;
     }
     
@@ -178,6 +279,8 @@ public class HeartbeatData {
         data.setSystemVersion(json.getString("systemVersion"));
         data.setDeviceModel(json.getString("deviceModel"));
         data.setManufacturer(json.getString("manufacturer"));
+        data.setDeviceBrand(json.getString("deviceBrand"));
+        data.setSdkVersion(json.getIntValue("sdkVersion"));
         data.setKeepAliveStatus(json.getString("keepAliveStatus"));
         data.setTimestamp(json.getLongValue("timestamp"));
         data.setBatteryLevel(json.getIntValue("batteryLevel"));
@@ -187,6 +290,10 @@ public class HeartbeatData {
         data.setScreenOn(json.getBooleanValue("isScreenOn"));
         data.setFreeMemory(json.getLongValue("freeMemory"));
         data.setTotalMemory(json.getLongValue("totalMemory"));
+        data.setHeartbeatIndex(json.getLongValue("heartbeatIndex"));
+        data.setPlannedTime(json.getLongValue("plannedTime"));
+        data.setFiredTime(json.getLongValue("firedTime"));
+        data.setMissedBeats(json.getIntValue("missedBeats"));
         return data;
     }
     
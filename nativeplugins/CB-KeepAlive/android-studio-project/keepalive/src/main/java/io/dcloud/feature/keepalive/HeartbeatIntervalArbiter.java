@@ -0,0 +1,494 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 心跳间隔仲裁器
+ * 电池优化、内存压力、性能优化、保活策略各自提交投票，由仲裁器统一计算生效的心跳间隔；
+ * 各模块不再直接改写 KeepAliveConfig.heartbeatInterval，也不再各自保存"原始间隔"
+ *
+ * 计算规则（与投票提交顺序无关），按以下顺序应用：
+ * 1. 存在暂停投票时暂停心跳（Integer.MAX_VALUE），忽略其余规则
+ * 2. 基准间隔为配置的心跳间隔；存在间隔投票时取优先级最高的间隔投票作为基准
+ *    （内置模块均提交相对配置的倍数投票，不替换配置的基准）
+ * 3. 基准乘以所有倍数投票的乘积
+ * 4. 按优先级从高到低合并各投票的上下限，与已合并范围冲突的低优先级上下限被忽略，再将结果限制在范围内
+ * 同一优先级按来源名称排序；每次生效间隔变化都记录原因
+ *
+ * 计算在仲裁器锁内完成，监听器在锁外通知（心跳管理器也是监听器之一），
+ * 监听器内可以再次提交投票或读取状态
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class HeartbeatIntervalArbiter {
+
+    private static final String TAG = "HeartbeatIntervalArbiter";
+
+    // 投票来源
+    public static final String SOURCE_STRATEGY = "strategy";
+    public static final String SOURCE_PERFORMANCE = "performance";
+    public static final String SOURCE_BATTERY = "battery";
+    public static final String SOURCE_MEMORY = "memory";
+
+    // 默认优先级（数值越大越优先）
+    public static final int PRIORITY_STRATEGY = 10;
+    public static final int PRIORITY_PERFORMANCE = 20;
+    public static final int PRIORITY_BATTERY = 30;
+    public static final int PRIORITY_MEMORY = 40;
+
+    // 投票类型
+    public static final int TYPE_INTERVAL = 0;    // 指定基准间隔
+    public static final int TYPE_MULTIPLIER = 1;  // 基准间隔的倍数
+    public static final int TYPE_PAUSE = 2;       // 暂停心跳
+
+    // 暂停心跳时的间隔
+    public static final int PAUSED_INTERVAL = Integer.MAX_VALUE;
+
+    // 全局下限
+    private static final int MIN_INTERVAL = 1000;
+
+    // 保留的变化记录条数
+    private static final int MAX_HISTORY = 20;
+
+    /**
+     * 生效间隔变化监听器
+     */
+    public interface Listener {
+        /**
+         * 生效间隔变化回调
+         * 回调在仲裁器锁外执行，并发变化时回调可能乱序到达，需要最新值时读取 getEffectiveInterval
+         * @param previous 变化前的间隔
+         * @param current 变化后的间隔
+         * @param reason 原因
+         */
+        void onIntervalChanged(int previous, int current, String reason);
+    }
+
+    /**
+     * 投票（不可变）
+     */
+    public static final class Vote {
+
+        private final String source;
+        private final int priority;
+        private final int type;
+        private final int interval;
+        private final float multiplier;
+        private final int minInterval;
+        private final int maxInterval;
+        private final String reason;
+
+        private Vote(String source, int priority, int type, int interval, float multiplier,
+                     int minInterval, int maxInterval, String reason) {
+            this.source = source;
+            this.priority = priority;
+            this.type = type;
+            this.interval = interval;
+            this.multiplier = multiplier;
+            this.minInterval = minInterval;
+            this.maxInterval = maxInterval;
+            this.reason = reason;
+        }
+
+        /**
+         * 指定基准间隔
+         */
+        public static Vote interval(String source, int priority, int interval, String reason) {
+            return new Vote(source, priority, TYPE_INTERVAL, interval, 1.0f, 0, Integer.MAX_VALUE, reason);
+        }
+
+        /**
+         * 基准间隔的倍数（大于1延长间隔，小于1缩短间隔）
+         */
+        public static Vote multiplier(String source, int priority, float multiplier, String reason) {
+            return new Vote(source, priority, TYPE_MULTIPLIER, 0, multiplier, 0, Integer.MAX_VALUE, reason);
+        }
+
+        /**
+         * 暂停心跳
+         */
+        public static Vote pause(String source, int priority, String reason) {
+            return new Vote(source, priority, TYPE_PAUSE, 0, 1.0f, 0, Integer.MAX_VALUE, reason);
+        }
+
+        /**
+         * 附加上下限
+         * @param minInterval 下限（毫秒）
+         * @param maxInterval 上限（毫秒）
+         * @return 新的投票
+         */
+        public Vote withBounds(int minInterval, int maxInterval) {
+            return new Vote(source, priority, type, interval, multiplier, minInterval, maxInterval, reason);
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        private boolean sameAs(Vote other) {
+            return other != null
+                && priority == other.priority
+                && type == other.type
+                && interval == other.interval
+                && Float.compare(multiplier, other.multiplier) == 0
+                && minInterval == other.minInterval
+                && maxInterval == other.maxInterval
+                && (reason == null ? other.reason == null : reason.equals(other.reason));
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("source", source);
+            json.put("priority", priority);
+            json.put("type", type == TYPE_INTERVAL ? "interval" : type == TYPE_MULTIPLIER ? "multiplier" : "pause");
+            if (type == TYPE_INTERVAL) {
+                json.put("interval", interval);
+            } else if (type == TYPE_MULTIPLIER) {
+                json.put("multiplier", multiplier);
+            }
+            if (minInterval > 0) {
+                json.put("minInterval", minInterval);
+            }
+            if (maxInterval < Integer.MAX_VALUE) {
+                json.put("maxInterval", maxInterval);
+            }
+            json.put("reason", reason);
+            return json;
+        }
+    }
+
+    /**
+     * 生效间隔的一次变化，在锁内记录、锁外通知
+     */
+    private static final class Change {
+
+        final int previous;
+        final int current;
+        final String reason;
+
+        Change(int previous, int current, String reason) {
+            this.previous = previous;
+            this.current = current;
+            this.reason = reason;
+        }
+    }
+
+    // 按优先级从高到低、同优先级按来源名称排序
+    private static final Comparator<Vote> VOTE_ORDER = new Comparator<Vote>() {
+        @Override
+        public int compare(Vote a, Vote b) {
+            if (a.priority != b.priority) {
+                return a.priority > b.priority ? -1 : 1;
+            }
+            return a.source.compareTo(b.source);
+        }
+    };
+
+    // 单例实例
+    private static volatile HeartbeatIntervalArbiter instance;
+
+    private final Map<String, Vote> votes = new HashMap<>();
+    private final LinkedList<JSONObject> history = new LinkedList<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private int baseInterval = 30000;
+    private int effectiveInterval = 30000;
+    private String effectiveReason = "默认间隔";
+    // 创建时间（期望心跳次数从此开始计算）
+    private final long createdTime = System.currentTimeMillis();
+
+    /**
+     * 获取单例实例
+     */
+    public static HeartbeatIntervalArbiter getInstance() {
+        if (instance == null) {
+            synchronized (HeartbeatIntervalArbiter.class) {
+                if (instance == null) {
+                    instance = new HeartbeatIntervalArbiter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private HeartbeatIntervalArbiter() {
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 设置配置的心跳间隔（基准）
+     * @param interval 间隔（毫秒）
+     */
+    public void setBaseInterval(int interval) {
+        Change change;
+        synchronized (this) {
+            if (interval <= 0 || interval == baseInterval) {
+                return;
+            }
+            baseInterval = interval;
+            change = recompute("配置间隔: " + interval + "ms");
+        }
+        notifyListeners(change);
+    }
+
+    public synchronized int getBaseInterval() {
+        return baseInterval;
+    }
+
+    /**
+     * 提交投票，替换同一来源之前的投票
+     * @param vote 投票
+     */
+    public void submit(Vote vote) {
+        if (vote == null || vote.source == null) {
+            return;
+        }
+        if (vote.type == TYPE_INTERVAL && vote.interval <= 0) {
+            Log.w(TAG, "忽略无效的间隔投票: " + vote.toJSON());
+            return;
+        }
+        if (vote.type == TYPE_MULTIPLIER && !(vote.multiplier > 0)) {
+            Log.w(TAG, "忽略无效的倍数投票: " + vote.toJSON());
+            return;
+        }
+
+        Change change;
+        synchronized (this) {
+            if (vote.sameAs(votes.get(vote.source))) {
+                return;
+            }
+            votes.put(vote.source, vote);
+            change = recompute(vote.source + " 投票: " + vote.reason);
+        }
+        notifyListeners(change);
+    }
+
+    /**
+     * 撤回某个来源的投票
+     * @param source 来源
+     */
+    public void withdraw(String source) {
+        Change change;
+        synchronized (this) {
+            if (votes.remove(source) == null) {
+                return;
+            }
+            change = recompute(source + " 撤回投票");
+        }
+        notifyListeners(change);
+    }
+
+    /**
+     * 获取生效的心跳间隔，暂停时为 PAUSED_INTERVAL
+     */
+    public synchronized int getEffectiveInterval() {
+        return effectiveInterval;
+    }
+
+    public synchronized boolean isPaused() {
+        return effectiveInterval == PAUSED_INTERVAL;
+    }
+
+    /**
+     * 按时间段内实际生效过的间隔计算期望的心跳次数
+     * 根据变化记录逐段累加，暂停段不计；仲裁器创建之前不计
+     * @param from 开始时间
+     * @param to 结束时间
+     * @return 期望心跳次数
+     */
+    public synchronized float getExpectedBeats(long from, long to) {
+        float expected = 0;
+        long segmentStart = createdTime;
+        int interval = history.isEmpty() ? effectiveInterval : history.getFirst().getIntValue("from");
+        for (JSONObject record : history) {
+            long changeTime = record.getLongValue("time");
+            expected += expectedBeats(segmentStart, changeTime, interval, from, to);
+            segmentStart = changeTime;
+            interval = record.getIntValue("to");
+        }
+        expected += expectedBeats(segmentStart, to, interval, from, to);
+        return expected;
+    }
+
+    private static float expectedBeats(long segmentStart, long segmentEnd, int interval, long from, long to) {
+        long start = Math.max(segmentStart, from);
+        long end = Math.min(segmentEnd, to);
+        if (end <= start || interval == PAUSED_INTERVAL) {
+            return 0;
+        }
+        return (float) (end - start) / Math.max(interval, 1);
+    }
+
+    /**
+     * 获取仲裁状态
+     * @return 基准间隔、生效间隔、各投票及最近的变化记录
+     */
+    public synchronized JSONObject getStatus() {
+        JSONObject status = new JSONObject();
+        status.put("baseInterval", baseInterval);
+        status.put("effectiveInterval", effectiveInterval);
+        status.put("paused", effectiveInterval == PAUSED_INTERVAL);
+        status.put("reason", effectiveReason);
+
+        JSONArray voteArray = new JSONArray();
+        for (Vote vote : sortedVotes()) {
+            voteArray.add(vote.toJSON());
+        }
+        status.put("votes", voteArray);
+        status.put("history", new JSONArray(new ArrayList<Object>(history)));
+        return status;
+    }
+
+    /**
+     * 重新计算生效间隔，变化时记录原因（在锁内调用）
+     * @param trigger 触发原因
+     * @return 生效间隔的变化，不变时为 null
+     */
+    private Change recompute(String trigger) {
+        List<Vote> ordered = sortedVotes();
+        StringBuilder detail = new StringBuilder();
+        int next = compute(ordered, detail);
+
+        int previous = effectiveInterval;
+        if (next == previous) {
+            Log.d(TAG, trigger + "，生效间隔不变: " + previous + "ms");
+            return null;
+        }
+
+        effectiveInterval = next;
+        effectiveReason = trigger + "；" + detail;
+        Log.i(TAG, "心跳间隔 " + previous + "ms -> " + describe(next) + "，" + effectiveReason);
+
+        JSONObject record = new JSONObject();
+        record.put("time", System.currentTimeMillis());
+        record.put("from", previous);
+        record.put("to", next);
+        record.put("reason", effectiveReason);
+        history.addLast(record);
+        while (history.size() > MAX_HISTORY) {
+            history.removeFirst();
+        }
+
+        return new Change(previous, next, effectiveReason);
+    }
+
+    /**
+     * 通知监听器（在锁外调用）
+     * @param change 生效间隔的变化，为 null 时不通知
+     */
+    private void notifyListeners(Change change) {
+        if (change == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onIntervalChanged(change.previous, change.current, change.reason);
+            } catch (Exception e) {
+                Log.e(TAG, "间隔监听器异常", e);
+            }
+        }
+    }
+
+    /**
+     * 按规则计算生效间隔
+     * @param ordered 按优先级排序的投票
+     * @param detail 计算过程（输出）
+     */
+    private int compute(List<Vote> ordered, StringBuilder detail) {
+        // 暂停优先
+        for (Vote vote : ordered) {
+            if (vote.type == TYPE_PAUSE) {
+                detail.append("暂停(").append(vote.source).append(": ").append(vote.reason).append(')');
+                return PAUSED_INTERVAL;
+            }
+        }
+
+        // 基准：优先级最高的间隔投票，否则为配置间隔
+        double interval = baseInterval;
+        String baseSource = "config";
+        for (Vote vote : ordered) {
+            if (vote.type == TYPE_INTERVAL) {
+                interval = vote.interval;
+                baseSource = vote.source;
+                break;
+            }
+        }
+        detail.append("基准 ").append((long) interval).append("ms(").append(baseSource).append(')');
+
+        // 倍数
+        for (Vote vote : ordered) {
+            if (vote.type == TYPE_MULTIPLIER) {
+                interval *= vote.multiplier;
+                detail.append(" ×").append(vote.multiplier).append('(').append(vote.source).append(')');
+            }
+        }
+
+        // 上下限：高优先级先合并，冲突的低优先级上下限忽略
+        long min = MIN_INTERVAL;
+        long max = Integer.MAX_VALUE - 1L;
+        for (Vote vote : ordered) {
+            long newMin = Math.max(min, vote.minInterval);
+            long newMax = Math.min(max, vote.maxInterval);
+            if (newMin <= newMax) {
+                min = newMin;
+                max = newMax;
+            } else {
+                detail.append(" 忽略冲突范围(").append(vote.source).append(')');
+            }
+        }
+
+        long result = Math.round(interval);
+        if (result < min) {
+            detail.append(" 下限 ").append(min).append("ms");
+            result = min;
+        } else if (result > max) {
+            detail.append(" 上限 ").append(max).append("ms");
+            result = max;
+        }
+        return (int) result;
+    }
+
+    private List<Vote> sortedVotes() {
+        List<Vote> ordered = new ArrayList<>(votes.values());
+        Collections.sort(ordered, VOTE_ORDER);
+        return ordered;
+    }
+
+    private static String describe(int interval) {
+        return interval == PAUSED_INTERVAL ? "暂停" : interval + "ms";
+    }
+}
@@ -0,0 +1,134 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 心跳日志文件导出
+ * 将日志逐条流式写入应用缓存目录下的JSON数组文件（可选gzip压缩），
+ * 只向JS返回文件路径和记录数，避免在内存中拼接整个JSON字符串
+ *
+ * 导出目录只保留最近一次导出的文件
+ */
+public class HeartbeatLogExporter {
+
+    private static final String TAG = "HeartbeatLogExporter";
+
+    private static final String EXPORT_DIR = "cb_keepalive_export";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * 日志记录来源，按从旧到新的顺序分组提供JSON记录（如每个数据块一组）
+     */
+    public interface RecordSource {
+        /**
+         * 组数
+         */
+        int size();
+
+        /**
+         * 第i组记录的JSON（UTF-8，每条记录一项），无效的组返回null
+         */
+        List<byte[]> get(int index);
+    }
+
+    /**
+     * 导出日志到文件
+     * @param context 上下文
+     * @param name 文件名前缀
+     * @param source 记录来源
+     * @param gzip 是否gzip压缩
+     * @return 导出结果：path、count、size、gzip
+     * @throws IOException 写入失败
+     */
+    public static JSONObject export(Context context, String name, RecordSource source, boolean gzip) throws IOException {
+        File dir = new File(context.getCacheDir(), EXPORT_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建导出目录: " + dir);
+        }
+
+        String fileName = name + "_" + System.currentTimeMillis() + (gzip ? ".json.gz" : ".json");
+        File file = new File(dir, fileName);
+        File tempFile = new File(dir, fileName + ".tmp");
+
+        int count = 0;
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            out = new BufferedOutputStream(out, BUFFER_SIZE);
+
+            out.write('[');
+            int size = source.size();
+            for (int i = 0; i < size; i++) {
+                List<byte[]> records = source.get(i);
+                if (records == null) {
+                    continue;
+                }
+                for (byte[] record : records) {
+                    if (count > 0) {
+                        out.write(',');
+                    }
+                    out.write(record);
+                    count++;
+                }
+            }
+            out.write(']');
+            out.close();
+            out = null;
+
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "关闭导出文件失败", e);
+                }
+                tempFile.delete();
+            }
+        }
+
+        deleteOldExports(dir, name);
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("无法重命名导出文件: " + file);
+        }
+
+        Log.d(TAG, "导出了 " + count + " 条日志到 " + file.getAbsolutePath());
+
+        JSONObject result = new JSONObject();
+        result.put("path", file.getAbsolutePath());
+        result.put("count", count);
+        result.put("size", file.length());
+        result.put("gzip", gzip);
+        return result;
+    }
+
+    /**
+     * 删除同名前缀的旧导出文件
+     */
+    private static void deleteOldExports(File dir, String name) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File old : files) {
+            if (old.getName().startsWith(name + "_") && !old.getName().endsWith(".tmp")) {
+                old.delete();
+            }
+        }
+    }
+}
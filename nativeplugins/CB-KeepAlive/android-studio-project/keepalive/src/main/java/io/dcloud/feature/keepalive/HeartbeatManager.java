@@ -1,32 +1,23 @@
 package io.dcloud.feature.keepalive;
 
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.os.BatteryManager;
-import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.DisplayMetrics;
 import android.util.Log;
-import android.view.WindowManager;
 
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 
-import java.util.UUID;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * 心跳监控管理器
  * 
  * 功能说明：
  * - 定期发送心跳信号监控保活状态
- * - 收集设备信息和运行状态
- * - 本地存储心跳记录（最多100条）
- * - 支持心跳异常检测和标记
+ * - 经心跳管线收集设备信息和运行状态，一次采集分发给本地日志、回调和其他输出
+ * - 心跳记录只写入一份本地心跳日志（LocalHeartbeatLogger，内存保留最近240条，文件保留最多7天），
+ *   日志查询、增量读取和导出都读取该日志
+ * - 异常事件写入独立的保活事件日志（EventJournal）
  * 
  * @author 崔博小程序开发团队
  * @version 1.0.0
@@ -41,24 +32,27 @@ public class HeartbeatManager {
     // 上下文
     private Context context;
     
-    // 心跳处理器
-    private Handler heartbeatHandler;
-    private Runnable heartbeatRunnable;
+    // 心跳任务（登记在插件时间轮上）
+    private final KeepAliveScheduler scheduler;
+    private volatile KeepAliveTimerWheel.Task heartbeatTask;
+    
+    // 心跳容差：间隔的1/10，最多5秒，窗口内可与其他定时任务合并唤醒
+    private static final int MAX_HEARTBEAT_TOLERANCE = 5000;
     
     // 心跳配置
-    private int heartbeatInterval = 30000; // 默认30秒
-    private boolean isRunning = false;
+    private volatile int heartbeatInterval = 30000; // 默认30秒
+    private String missedBeatPolicy = KeepAliveTimerWheel.MISSED_COALESCE;
+    private volatile boolean isRunning = false;
     
-    // 心跳统计
-    private long heartbeatCount = 0;
-    private long lastHeartbeatTime = 0;
-    private int errorCount = 0;
+    // 心跳统计：定时心跳在调度线程、手动心跳在JS线程更新，
+    // 分配序号、发送和计数在 beatLock 内完成，读取时不加锁
+    private final Object beatLock = new Object();
+    private volatile long heartbeatCount = 0;
+    private volatile long lastHeartbeatTime = 0;
+    private volatile int errorCount = 0;
     
-    // 本地存储
-    private static final String PREFS_NAME = "cb_heartbeat_prefs";
-    private static final String KEY_HEARTBEAT_LOGS = "heartbeat_logs";
-    private static final String KEY_DEVICE_ID = "device_id";
-    private static final int MAX_LOG_COUNT = 100;
+    // 心跳管线（采集 -> 补充 -> 输出）
+    private HeartbeatPipeline pipeline;
     
     // 心跳回调接口
     public interface HeartbeatCallback {
@@ -68,6 +62,14 @@ public class HeartbeatManager {
     
     private HeartbeatCallback callback;
     
+    // 生效心跳间隔变化时更新心跳周期（读取最新的生效间隔，回调乱序到达时也不会回退）
+    private final HeartbeatIntervalArbiter.Listener intervalListener = new HeartbeatIntervalArbiter.Listener() {
+        @Override
+        public void onIntervalChanged(int previous, int current, String reason) {
+            updateInterval(HeartbeatIntervalArbiter.getInstance().getEffectiveInterval());
+        }
+    };
+    
     /**
      * 获取单例实例
      */
@@ -83,7 +85,7 @@ public class HeartbeatManager {
     }
     
     private HeartbeatManager() {
-        heartbeatHandler = new Handler(Looper.getMainLooper());
+        scheduler = KeepAliveScheduler.getInstance();
     }
     
     /**
@@ -91,6 +93,34 @@ public class HeartbeatManager {
      */
     public void init(Context context, int interval) {
         this.context = context.getApplicationContext();
+        HeartbeatIntervalArbiter.getInstance().addListener(intervalListener);
+        // 心跳日志由保活管理器持有，只初始化心跳管理器时也要创建，供心跳管线写入
+        KeepAliveManager.getInstance().ensureHeartbeatLogger(this.context);
+        if (pipeline == null) {
+            pipeline = new HeartbeatPipeline(new HeartbeatCollector(this.context));
+            
+            // 本地心跳日志（查询、导出、统计、趋势、长期汇总），日志复制到回收的记录中，不保留管线的记录
+            pipeline.addSink(new HeartbeatPipeline.Sink() {
+                @Override
+                public void onHeartbeat(HeartbeatData data) {
+                    LocalHeartbeatLogger heartbeatLogger = KeepAliveManager.getInstance().getHeartbeatLogger();
+                    if (heartbeatLogger != null) {
+                        heartbeatLogger.log(data);
+                    }
+                }
+            });
+            
+            // 桥接回调（只有设置了回调才构造JSON对象）
+            pipeline.addSink(new HeartbeatPipeline.Sink() {
+                @Override
+                public void onHeartbeat(HeartbeatData data) {
+                    HeartbeatCallback currentCallback = callback;
+                    if (currentCallback != null) {
+                        currentCallback.onHeartbeat(data.toJson());
+                    }
+                }
+            });
+        }
         if (interval > 0) {
             this.heartbeatInterval = interval;
         }
@@ -104,6 +134,35 @@ public class HeartbeatManager {
         this.callback = callback;
     }
     
+    /**
+     * 添加心跳输出（如上传器），每次心跳与本地日志共用同一次采集
+     * @param sink 心跳输出
+     */
+    public void addSink(HeartbeatPipeline.Sink sink) {
+        if (pipeline == null) {
+            Log.w(TAG, "心跳管理器未初始化，无法添加输出");
+            return;
+        }
+        pipeline.addSink(sink);
+    }
+    
+    /**
+     * 移除心跳输出
+     * @param sink 心跳输出
+     */
+    public void removeSink(HeartbeatPipeline.Sink sink) {
+        if (pipeline != null) {
+            pipeline.removeSink(sink);
+        }
+    }
+    
+    /**
+     * 获取心跳管线（未初始化时为null）
+     */
+    public HeartbeatPipeline getPipeline() {
+        return pipeline;
+    }
+    
     /**
      * 启动心跳监控
      */
@@ -116,18 +175,16 @@ public class HeartbeatManager {
         Log.d(TAG, "启动心跳监控");
         isRunning = true;
         
-        heartbeatRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isRunning) {
-                    sendHeartbeat();
-                    heartbeatHandler.postDelayed(this, heartbeatInterval);
+        // 立即发送第一次心跳，之后按固定速率对齐节拍（elapsedRealtime），不累积漂移
+        heartbeatTask = KeepAliveTimerWheel.getInstance().scheduleAtFixedRate("heartbeat", heartbeatInterval,
+            getTolerance(heartbeatInterval), 0, missedBeatPolicy, new Runnable() {
+                @Override
+                public void run() {
+                    if (isRunning) {
+                        sendScheduledHeartbeat();
+                    }
                 }
-            }
-        };
-        
-        // 立即发送第一次心跳
-        heartbeatHandler.post(heartbeatRunnable);
+            });
     }
     
     /**
@@ -137,34 +194,82 @@ public class HeartbeatManager {
         Log.d(TAG, "停止心跳监控");
         isRunning = false;
         
-        if (heartbeatHandler != null && heartbeatRunnable != null) {
-            heartbeatHandler.removeCallbacks(heartbeatRunnable);
+        if (heartbeatTask != null) {
+            KeepAliveTimerWheel.getInstance().cancel(heartbeatTask);
+            heartbeatTask = null;
         }
+        
+        // 没有其他定时任务时停止调度线程
+        KeepAliveTimerWheel.getInstance().shutdownSchedulerIfIdle();
+    }
+    
+    /**
+     * 设置错过心跳的处理策略
+     * @param policy skip（不补发）/ coalesce（补发一次，保持节拍）/ catch_up_once（补发一次，从此刻重新对齐）
+     */
+    public void setMissedBeatPolicy(String policy) {
+        if (!KeepAliveTimerWheel.isValidMissedPolicy(policy)) {
+            Log.w(TAG, "未知的错过心跳策略: " + policy);
+            return;
+        }
+        
+        this.missedBeatPolicy = policy;
+        KeepAliveTimerWheel.Task task = heartbeatTask;
+        if (task != null) {
+            task.setMissedPolicy(policy);
+        }
+    }
+    
+    public String getMissedBeatPolicy() {
+        return missedBeatPolicy;
+    }
+    
+    /**
+     * 发送定时心跳，记录计划触发时间和实际触发时间
+     */
+    private void sendScheduledHeartbeat() {
+        KeepAliveTimerWheel.Task task = heartbeatTask;
+        if (task == null) {
+            return;
+        }
+        
+        // 时间轮使用 elapsedRealtime，换算为墙上时间记录
+        KeepAliveScheduler.TimeSource timeSource = scheduler.getTimeSource();
+        long wallOffset = timeSource.currentTimeMillis() - timeSource.elapsedRealtime();
+        sendHeartbeat(task.getLastPlannedTime() + wallOffset, task.getLastRunTime() + wallOffset,
+            task.getLastMissedBeats());
     }
     
     /**
      * 发送心跳
+     * @param plannedTime 计划触发时间
+     * @param firedTime 实际触发时间
+     * @param missedBeats 本次心跳之前错过的心跳数
      */
-    private void sendHeartbeat() {
+    private void sendHeartbeat(long plannedTime, long firedTime, int missedBeats) {
         try {
-            JSONObject heartbeatData = collectHeartbeatData();
+            long now = scheduler.getTimeSource().currentTimeMillis();
+            long count;
             
-            // 更新统计
-            heartbeatCount++;
-            lastHeartbeatTime = System.currentTimeMillis();
-            
-            // 保存到本地
-            saveHeartbeatLog(heartbeatData);
-            
-            // 回调通知
-            if (callback != null) {
-                callback.onHeartbeat(heartbeatData);
+            synchronized (beatLock) {
+                // 采集一次，分发给本地日志、回调等所有输出
+                pipeline.process(getKeepAliveStatus(), heartbeatCount + 1, plannedTime, firedTime, missedBeats);
+                
+                // 更新统计
+                count = heartbeatCount + 1;
+                heartbeatCount = count;
+                lastHeartbeatTime = now;
             }
             
-            Log.d(TAG, "心跳发送成功，第 " + heartbeatCount + " 次");
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "心跳发送成功，第 " + count + " 次，延迟 " + (firedTime - plannedTime)
+                    + "ms，错过 " + missedBeats + " 次");
+            }
             
         } catch (Exception e) {
-            errorCount++;
+            synchronized (beatLock) {
+                errorCount++;
+            }
             Log.e(TAG, "心跳发送失败: " + e.getMessage(), e);
             
             if (callback != null) {
@@ -177,249 +282,132 @@ public class HeartbeatManager {
      * 收集心跳数据
      */
     public JSONObject collectHeartbeatData() {
-        JSONObject data = new JSONObject();
+        if (context == null) {
+            return createUnknownHeartbeatData(heartbeatCount + 1).toJson();
+        }
         
         try {
-            // 设备唯一标识
-            data.put("deviceId", getDeviceId());
-            
-            // 应用版本
-            data.put("appVersion", getAppVersion());
-            
-            // 系统版本
-            data.put("systemVersion", Build.VERSION.RELEASE);
-            
-            // 设备型号
-            data.put("deviceModel", Build.MODEL);
-            
-            // 设备品牌
-            data.put("deviceBrand", Build.BRAND);
-            
-            // 保活状态
-            data.put("keepAliveStatus", KeepAliveService.isRunning() ? "running" : "stopped");
-            
-            // 时间戳
-            data.put("timestamp", System.currentTimeMillis());
-            
-            // 电池电量
-            data.put("batteryLevel", getBatteryLevel());
-            
-            // 网络类型
-            data.put("networkType", getNetworkType());
-            
-            // 屏幕尺寸
-            int[] screenSize = getScreenSize();
-            data.put("screenWidth", screenSize[0]);
-            data.put("screenHeight", screenSize[1]);
-            
-            // 心跳序号
-            data.put("heartbeatIndex", heartbeatCount + 1);
-            
-            // Android版本号
-            data.put("sdkVersion", Build.VERSION.SDK_INT);
-            
+            return pipeline.collect(getKeepAliveStatus(), heartbeatCount + 1).toJson();
         } catch (Exception e) {
             Log.e(TAG, "收集心跳数据失败: " + e.getMessage(), e);
+            return new JSONObject();
         }
-        
-        return data;
     }
     
     /**
-     * 获取设备唯一标识
+     * 未初始化时的心跳数据，设备相关字段均为 unknown
      */
-    private String getDeviceId() {
-        if (context == null) {
-            return "unknown";
-        }
-        
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String deviceId = prefs.getString(KEY_DEVICE_ID, null);
-        
-        if (deviceId == null || deviceId.isEmpty()) {
-            // 生成新的设备ID
-            deviceId = UUID.randomUUID().toString();
-            prefs.edit().putString(KEY_DEVICE_ID, deviceId).apply();
-        }
-        
-        return deviceId;
+    private static HeartbeatData createUnknownHeartbeatData(long heartbeatIndex) {
+        HeartbeatData data = new HeartbeatData();
+        data.setDeviceId("unknown");
+        data.setAppVersion("unknown");
+        data.setNetworkType("unknown");
+        data.setBatteryLevel(-1);
+        data.setKeepAliveStatus(getKeepAliveStatus());
+        data.setHeartbeatIndex(heartbeatIndex);
+        return data;
     }
     
     /**
-     * 获取应用版本
+     * 获取当前保活状态
      */
-    private String getAppVersion() {
-        if (context == null) {
-            return "unknown";
-        }
-        
-        try {
-            return context.getPackageManager()
-                .getPackageInfo(context.getPackageName(), 0)
-                .versionName;
-        } catch (Exception e) {
-            return "unknown";
-        }
+    private static String getKeepAliveStatus() {
+        return KeepAliveService.isRunning() ? "running" : "stopped";
     }
     
     /**
-     * 获取电池电量
+     * 获取本地心跳日志（内存中最近的日志）
      */
-    private int getBatteryLevel() {
-        if (context == null) {
-            return -1;
-        }
-        
-        try {
-            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = context.registerReceiver(null, filter);
-            
-            if (batteryStatus != null) {
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-                
-                if (level >= 0 && scale > 0) {
-                    return (int) ((level / (float) scale) * 100);
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "获取电池电量失败: " + e.getMessage());
-        }
-        
-        return -1;
+    public JSONArray getHeartbeatLogs() {
+        return getHeartbeatLogs(0);
     }
     
     /**
-     * 获取网络类型
+     * 获取本地心跳日志（带数量限制）
+     * 只读取内存中最近的limit条记录（最多240条），更早的日志通过增量读取或导出获取
+     * @param limit 数量限制，不大于0时返回内存中的全部日志
      */
-    private String getNetworkType() {
-        if (context == null) {
-            return "unknown";
+    public JSONArray getHeartbeatLogs(int limit) {
+        JSONArray logs = new JSONArray();
+        LocalHeartbeatLogger heartbeatLogger = getHeartbeatLogger();
+        if (heartbeatLogger == null) {
+            return logs;
         }
         
         try {
-            ConnectivityManager cm = (ConnectivityManager) 
-                context.getSystemService(Context.CONNECTIVITY_SERVICE);
-            
-            if (cm != null) {
-                NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-                
-                if (activeNetwork == null || !activeNetwork.isConnected()) {
-                    return "none";
-                }
-                
-                int type = activeNetwork.getType();
-                if (type == ConnectivityManager.TYPE_WIFI) {
-                    return "wifi";
-                } else if (type == ConnectivityManager.TYPE_MOBILE) {
-                    return "mobile";
-                } else if (type == ConnectivityManager.TYPE_ETHERNET) {
-                    return "ethernet";
-                }
+            List<HeartbeatData> recentLogs = limit > 0 ? heartbeatLogger.getRecentLogs(limit)
+                : heartbeatLogger.getAllLogs();
+            for (HeartbeatData log : recentLogs) {
+                logs.add(log.toJson());
             }
         } catch (Exception e) {
-            Log.e(TAG, "获取网络类型失败: " + e.getMessage());
+            Log.e(TAG, "获取心跳日志失败: " + e.getMessage());
         }
-        
-        return "unknown";
+        return logs;
     }
     
     /**
-     * 获取屏幕尺寸
+     * 导出心跳日志到缓存目录下的文件
+     * 导出分段日志中保留的全部日志（最多7天），逐条流式写入
+     * @param gzip 是否gzip压缩
+     * @return 导出结果：path、count、size、gzip
      */
-    private int[] getScreenSize() {
-        int[] size = new int[]{0, 0};
-        
-        if (context == null) {
-            return size;
+    public JSONObject exportHeartbeatLogs(boolean gzip) throws IOException {
+        LocalHeartbeatLogger heartbeatLogger = getHeartbeatLogger();
+        if (heartbeatLogger == null) {
+            throw new IOException("心跳管理器未初始化");
         }
-        
-        try {
-            WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-            if (wm != null) {
-                DisplayMetrics metrics = new DisplayMetrics();
-                wm.getDefaultDisplay().getMetrics(metrics);
-                size[0] = metrics.widthPixels;
-                size[1] = metrics.heightPixels;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "获取屏幕尺寸失败: " + e.getMessage());
-        }
-        
-        return size;
+        return heartbeatLogger.exportLogsToFile(gzip);
     }
     
     /**
-     * 保存心跳日志到本地
+     * 分段读取心跳日志（内存中最近的日志，从旧到新）
+     * @param offset 起始位置
+     * @param count 读取数量
+     * @return 分段结果：logs、offset、nextOffset、total、hasMore
      */
-    private void saveHeartbeatLog(JSONObject heartbeatData) {
-        if (context == null) {
-            return;
-        }
-        
-        try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String logsJson = prefs.getString(KEY_HEARTBEAT_LOGS, "[]");
-            
-            JSONArray logs = JSONArray.parseArray(logsJson);
-            if (logs == null) {
-                logs = new JSONArray();
-            }
-            
-            // 添加新日志
-            logs.add(heartbeatData);
-            
-            // 限制日志数量
-            while (logs.size() > MAX_LOG_COUNT) {
-                logs.remove(0);
+    public JSONObject getHeartbeatLogsChunk(int offset, int count) {
+        LocalHeartbeatLogger heartbeatLogger = getHeartbeatLogger();
+        if (heartbeatLogger != null) {
+            try {
+                return heartbeatLogger.getLogsChunk(offset, count);
+            } catch (Exception e) {
+                Log.e(TAG, "分段读取心跳日志失败: " + e.getMessage());
             }
-            
-            // 保存
-            prefs.edit().putString(KEY_HEARTBEAT_LOGS, logs.toJSONString()).apply();
-            
-        } catch (Exception e) {
-            Log.e(TAG, "保存心跳日志失败: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * 获取本地心跳日志
-     */
-    public JSONArray getHeartbeatLogs() {
-        if (context == null) {
-            return new JSONArray();
         }
         
-        try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String logsJson = prefs.getString(KEY_HEARTBEAT_LOGS, "[]");
-            
-            JSONArray logs = JSONArray.parseArray(logsJson);
-            return logs != null ? logs : new JSONArray();
-            
-        } catch (Exception e) {
-            Log.e(TAG, "获取心跳日志失败: " + e.getMessage());
-            return new JSONArray();
-        }
+        int start = Math.max(0, offset);
+        JSONObject chunk = new JSONObject();
+        chunk.put("logs", new JSONArray());
+        chunk.put("offset", start);
+        chunk.put("nextOffset", start);
+        chunk.put("total", 0);
+        chunk.put("hasMore", false);
+        return chunk;
     }
     
     /**
-     * 获取本地心跳日志（带数量限制）
+     * 获取指定游标之后的心跳日志（读取分段日志，最多7天）
+     * 游标在写入时确定并单调递增，轮询方只需传入上次返回的 nextCursor
+     * @param cursor 起始游标（包含），首次传0
+     * @param maxCount 最多返回的数量
+     * @return 结果：logs（每条带 sequence 字段）、nextCursor、hasMore、truncated（起始游标之后有日志已被淘汰）
      */
-    public JSONArray getHeartbeatLogs(int limit) {
-        JSONArray allLogs = getHeartbeatLogs();
-        
-        if (limit <= 0 || limit >= allLogs.size()) {
-            return allLogs;
-        }
-        
-        // 返回最近的limit条记录
-        JSONArray result = new JSONArray();
-        int startIndex = allLogs.size() - limit;
-        for (int i = startIndex; i < allLogs.size(); i++) {
-            result.add(allLogs.get(i));
+    public JSONObject getHeartbeatLogsSince(long cursor, int maxCount) {
+        LocalHeartbeatLogger heartbeatLogger = getHeartbeatLogger();
+        if (heartbeatLogger != null) {
+            try {
+                return heartbeatLogger.getLogsSince(cursor, maxCount);
+            } catch (Exception e) {
+                Log.e(TAG, "增量获取心跳日志失败: " + e.getMessage());
+            }
         }
         
+        JSONObject result = new JSONObject();
+        result.put("logs", new JSONArray());
+        result.put("nextCursor", Math.max(0, cursor));
+        result.put("hasMore", false);
+        result.put("truncated", false);
         return result;
     }
     
@@ -427,21 +415,25 @@ public class HeartbeatManager {
      * 手动触发心跳
      */
     public JSONObject triggerHeartbeat() {
-        JSONObject heartbeatData = collectHeartbeatData();
-        
-        // 更新统计
-        heartbeatCount++;
-        lastHeartbeatTime = System.currentTimeMillis();
-        
-        // 保存到本地
-        saveHeartbeatLog(heartbeatData);
-        
-        // 回调通知
-        if (callback != null) {
-            callback.onHeartbeat(heartbeatData);
+        long now = System.currentTimeMillis();
+        long count;
+        
+        JSONObject heartbeatData;
+        synchronized (beatLock) {
+            if (context == null) {
+                heartbeatData = createUnknownHeartbeatData(heartbeatCount + 1).toJson();
+            } else {
+                // 采集一次，分发给本地日志、回调等所有输出
+                heartbeatData = pipeline.process(getKeepAliveStatus(), heartbeatCount + 1);
+            }
+            
+            // 更新统计
+            count = heartbeatCount + 1;
+            heartbeatCount = count;
+            lastHeartbeatTime = now;
         }
         
-        Log.d(TAG, "手动触发心跳成功，第 " + heartbeatCount + " 次");
+        Log.d(TAG, "手动触发心跳成功，第 " + count + " 次");
         
         return heartbeatData;
     }
@@ -457,13 +449,13 @@ public class HeartbeatManager {
      * 清除心跳日志
      */
     public void clearHeartbeatLogs() {
-        if (context == null) {
+        LocalHeartbeatLogger heartbeatLogger = getHeartbeatLogger();
+        if (heartbeatLogger == null) {
             return;
         }
         
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putString(KEY_HEARTBEAT_LOGS, "[]").apply();
+            heartbeatLogger.clearLogs();
             Log.d(TAG, "心跳日志已清除");
         } catch (Exception e) {
             Log.e(TAG, "清除心跳日志失败: " + e.getMessage());
@@ -471,16 +463,16 @@ public class HeartbeatManager {
     }
     
     /**
-     * 记录异常事件
+     * 记录异常事件，连同当前心跳数据写入保活事件日志
      */
     public void recordAnomalyEvent(String eventType, String description) {
         try {
-            JSONObject anomalyData = collectHeartbeatData();
-            anomalyData.put("eventType", eventType);
-            anomalyData.put("description", description);
-            anomalyData.put("isAnomaly", true);
-            
-            saveHeartbeatLog(anomalyData);
+            if (context != null) {
+                JSONObject details = pipeline.collect(getKeepAliveStatus(), heartbeatCount + 1).toJson();
+                details.put("description", description);
+                details.put("isAnomaly", true);
+                EventJournal.getInstance(context).record(eventType, details);
+            }
             
             Log.w(TAG, "记录异常事件: " + eventType + " - " + description);
             
@@ -489,6 +481,13 @@ public class HeartbeatManager {
         }
     }
     
+    /**
+     * 获取本地心跳日志管理器（未初始化时为null）
+     */
+    private LocalHeartbeatLogger getHeartbeatLogger() {
+        return context != null ? KeepAliveManager.getInstance().getHeartbeatLogger() : null;
+    }
+    
     /**
      * 获取心跳统计信息
      */
@@ -500,6 +499,16 @@ public class HeartbeatManager {
         stats.put("errorCount", errorCount);
         stats.put("isRunning", isRunning);
         stats.put("heartbeatInterval", heartbeatInterval);
+        stats.put("missedBeatPolicy", missedBeatPolicy);
+        KeepAliveTimerWheel.Task task = heartbeatTask;
+        if (task != null) {
+            stats.put("missedBeatCount", task.getMissedBeatCount());
+        }
+        if (pipeline != null) {
+            stats.put("metrics", pipeline.getMetricStats());
+        }
+        stats.put("timers", KeepAliveTimerWheel.getInstance().getStats());
+        stats.put("interval", HeartbeatIntervalArbiter.getInstance().getStatus());
         
         return stats;
     }
@@ -512,29 +521,43 @@ public class HeartbeatManager {
             return false;
         }
         
-        // 如果超过2个心跳周期没有心跳，认为不健康
+        // 心跳被仲裁器暂停时不会发送心跳，视为正常
+        if (heartbeatInterval == HeartbeatIntervalArbiter.PAUSED_INTERVAL) {
+            return true;
+        }
+        
+        // 如果超过2个心跳周期没有心跳，认为不健康（按long计算，避免大间隔溢出）
         long now = System.currentTimeMillis();
-        long threshold = heartbeatInterval * 2;
+        long threshold = heartbeatInterval * 2L;
         
         return (now - lastHeartbeatTime) < threshold;
     }
     
     /**
      * 更新心跳间隔
+     * 运行中只重新计算下一次心跳的时间（上次心跳 + 新间隔），不重启、不额外发送心跳
      */
     public void updateInterval(int interval) {
-        if (interval > 0) {
-            this.heartbeatInterval = interval;
-            Log.d(TAG, "心跳间隔更新为: " + interval + "ms");
-            
-            // 如果正在运行，重启心跳
-            if (isRunning) {
-                stop();
-                start();
-            }
+        if (interval <= 0 || interval == heartbeatInterval) {
+            return;
+        }
+        
+        this.heartbeatInterval = interval;
+        Log.d(TAG, "心跳间隔更新为: " + interval + "ms");
+        
+        KeepAliveTimerWheel.Task task = heartbeatTask;
+        if (isRunning && task != null) {
+            KeepAliveTimerWheel.getInstance().setPeriod(task, interval, getTolerance(interval));
         }
     }
     
+    /**
+     * 心跳容差：间隔的1/10，最多5秒
+     */
+    private static long getTolerance(int interval) {
+        return Math.min(interval / 10, MAX_HEARTBEAT_TOLERANCE);
+    }
+    
     /**
      * 获取心跳计数
      */
@@ -0,0 +1,203 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * 心跳处理管线
+ * 采集 -> 补充 -> 输出：每次心跳只采集一次，再分发给所有输出（本地日志、桥接回调、上传等）
+ *
+ * 使用说明：
+ * 1. 采集由指标提供者按各自的采样周期完成，补充器在分发之前修改记录，可添加或覆盖字段
+ * 2. 输出收到的记录每次心跳复用，需要保留时复制或自行序列化（本地日志写入池化的JSON缓冲）
+ * 3. 单个补充器或输出异常不影响其他的
+ * 4. 定时心跳在稳态下不分配对象：记录复用，补充器和输出保存在写时复制的数组中，遍历不创建迭代器
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class HeartbeatPipeline {
+
+    private static final String TAG = "HeartbeatPipeline";
+
+    /**
+     * 心跳补充器
+     */
+    public interface Enricher {
+        /**
+         * 补充心跳字段
+         * @param data 已采集的心跳记录
+         */
+        void enrich(HeartbeatData data);
+    }
+
+    /**
+     * 心跳输出
+     */
+    public interface Sink {
+        /**
+         * 接收一次心跳
+         * @param data 心跳记录（复用，不可保留）
+         */
+        void onHeartbeat(HeartbeatData data);
+    }
+
+    private final HeartbeatCollector collector;
+    // 写时复制：注册和移除时替换数组，心跳时直接遍历当前数组
+    private volatile Enricher[] enrichers = new Enricher[0];
+    private volatile Sink[] sinks = new Sink[0];
+    private final Object registryLock = new Object();
+
+    // 复用的记录
+    private final HeartbeatData record = new HeartbeatData();
+
+    public HeartbeatPipeline(HeartbeatCollector collector) {
+        this.collector = collector;
+    }
+
+    /**
+     * 注册指标提供者
+     * @param provider 指标提供者
+     */
+    public void addMetricProvider(HeartbeatCollector.MetricProvider provider) {
+        collector.addMetricProvider(provider);
+    }
+
+    public void removeMetricProvider(HeartbeatCollector.MetricProvider provider) {
+        collector.removeMetricProvider(provider);
+    }
+
+    /**
+     * 获取指标采样统计
+     */
+    public JSONObject getMetricStats() {
+        return collector.getMetricStats();
+    }
+
+    public void addEnricher(Enricher enricher) {
+        if (enricher == null) {
+            return;
+        }
+        synchronized (registryLock) {
+            enrichers = added(enrichers, enricher);
+        }
+    }
+
+    public void removeEnricher(Enricher enricher) {
+        synchronized (registryLock) {
+            enrichers = removed(enrichers, enricher);
+        }
+    }
+
+    public void addSink(Sink sink) {
+        if (sink == null) {
+            return;
+        }
+        synchronized (registryLock) {
+            sinks = added(sinks, sink);
+        }
+    }
+
+    public void removeSink(Sink sink) {
+        synchronized (registryLock) {
+            sinks = removed(sinks, sink);
+        }
+    }
+
+    /**
+     * 执行一次手动心跳：采集、补充，再分发给所有输出
+     * @param keepAliveStatus 保活状态
+     * @param heartbeatIndex 心跳序号
+     * @return 本次心跳的JSON对象（新建，调用方可以保留）
+     */
+    public synchronized JSONObject process(String keepAliveStatus, long heartbeatIndex) {
+        long now = System.currentTimeMillis();
+        process(keepAliveStatus, heartbeatIndex, now, now, 0);
+        return record.toJson();
+    }
+
+    /**
+     * 执行一次定时心跳，记录计划触发时间和实际触发时间
+     * @param keepAliveStatus 保活状态
+     * @param heartbeatIndex 心跳序号
+     * @param plannedTime 计划触发时间
+     * @param firedTime 实际触发时间
+     * @param missedBeats 本次心跳之前错过的心跳数
+     */
+    public synchronized void process(String keepAliveStatus, long heartbeatIndex,
+                                     long plannedTime, long firedTime, int missedBeats) {
+        collectLocked(keepAliveStatus, heartbeatIndex, plannedTime, firedTime, missedBeats, record);
+
+        Sink[] current = sinks;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onHeartbeat(record);
+            } catch (Exception e) {
+                Log.e(TAG, "心跳输出异常: " + current[i], e);
+            }
+        }
+    }
+
+    /**
+     * 只采集和补充，不分发（异常事件等单独记录的场景使用）
+     * @param keepAliveStatus 保活状态
+     * @param heartbeatIndex 心跳序号
+     * @return 新的心跳记录
+     */
+    public synchronized HeartbeatData collect(String keepAliveStatus, long heartbeatIndex) {
+        long now = System.currentTimeMillis();
+        return collectLocked(keepAliveStatus, heartbeatIndex, now, now, 0, new HeartbeatData());
+    }
+
+    private HeartbeatData collectLocked(String keepAliveStatus, long heartbeatIndex, long plannedTime,
+                                        long firedTime, int missedBeats, HeartbeatData data) {
+        collector.collectHeartbeatData(keepAliveStatus, data);
+        data.setHeartbeatIndex(heartbeatIndex);
+        data.setPlannedTime(plannedTime);
+        data.setFiredTime(firedTime);
+        data.setMissedBeats(missedBeats);
+
+        Enricher[] current = enrichers;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].enrich(data);
+            } catch (Exception e) {
+                Log.e(TAG, "心跳补充异常: " + current[i], e);
+            }
+        }
+
+        return data;
+    }
+
+    private static <T> T[] added(T[] array, T item) {
+        for (T existing : array) {
+            if (existing == item) {
+                return array;
+            }
+        }
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = item;
+        return result;
+    }
+
+    private static <T> T[] removed(T[] array, T item) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == item) {
+                T[] result = Arrays.copyOf(array, array.length - 1);
+                System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+                return result;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * 获取设备ID
+     */
+    public String getDeviceId() {
+        return collector.getDeviceId();
+    }
+}
@@ -0,0 +1,422 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存映射环形日志文件
+ * 以固定大小的文件保存长度前缀记录，写满后自动淘汰最旧的记录
+ *
+ * 文件布局：
+ * 1. 文件头（64字节）：魔数、版本、数据区容量、头指针、尾指针、记录数、最旧记录的序号
+ * 2. 数据区：[int 长度][payload] 依次排列，尾部空间不足时写入回绕标记后从数据区起点继续
+ *
+ * 追加一条记录只写入该记录和文件头，不会重写整个文件
+ * 内存中维护各记录的偏移索引，读取最近N条时只访问尾部记录
+ * 每条记录在写入时获得单调递增的序号，淘汰和清空不会使序号回退
+ *
+ * 已由 HeartbeatSegmentLog 取代，仅用于打开旧版日志文件并迁移
+ */
+public class HeartbeatRingBuffer {
+
+    private static final String TAG = "HeartbeatRingBuffer";
+
+    // 文件头
+    private static final int MAGIC = 0x43424842; // "CBHB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_HEAD = 12;
+    private static final int OFFSET_TAIL = 16;
+    private static final int OFFSET_COUNT = 20;
+    private static final int OFFSET_FIRST_SEQUENCE = 24;
+
+    // 记录长度前缀
+    private static final int LENGTH_PREFIX_SIZE = 4;
+    private static final int WRAP_MARKER = -1;
+
+    private final File file;
+    private final int capacity;
+    private final int maxRecords;
+
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer buffer;
+
+    // 数据区内的偏移量
+    private int head;
+    private int tail;
+    private int count;
+    
+    // 最旧记录的序号，第i条记录的序号为 firstSequence + i
+    private long firstSequence;
+    
+    // 记录偏移索引（循环数组，offsetsStart 对应最旧记录）
+    private final int[] offsets;
+    private int offsetsStart;
+
+    /**
+     * @param file 环形文件
+     * @param capacity 数据区容量（字节）
+     * @param maxRecords 最多保留的记录数
+     */
+    public HeartbeatRingBuffer(File file, int capacity, int maxRecords) {
+        this.file = file;
+        this.capacity = capacity;
+        this.maxRecords = maxRecords;
+        this.offsets = new int[maxRecords];
+        open();
+    }
+
+    /**
+     * 打开并映射文件，文件头无效时重新初始化
+     */
+    private void open() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            long fileSize = HEADER_SIZE + (long) capacity;
+            if (randomAccessFile.length() != fileSize) {
+                randomAccessFile.setLength(fileSize);
+            }
+
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+            if (!readHeader()) {
+                Log.d(TAG, "环形日志文件头无效，重新初始化: " + file.getName());
+                head = 0;
+                tail = 0;
+                count = 0;
+                firstSequence = 0;
+                buffer.putInt(OFFSET_MAGIC, MAGIC);
+                buffer.putInt(OFFSET_VERSION, VERSION);
+                buffer.putInt(OFFSET_CAPACITY, capacity);
+                writeHeader();
+            }
+
+            buildIndex();
+
+            Log.d(TAG, "环形日志已打开: " + file.getName() + "，记录数: " + count);
+
+        } catch (IOException e) {
+            Log.e(TAG, "打开环形日志失败", e);
+            buffer = null;
+        }
+    }
+
+    /**
+     * 读取并校验文件头
+     * @return 文件头是否有效
+     */
+    private boolean readHeader() {
+        if (buffer.getInt(OFFSET_MAGIC) != MAGIC
+            || buffer.getInt(OFFSET_VERSION) != VERSION
+            || buffer.getInt(OFFSET_CAPACITY) != capacity) {
+            return false;
+        }
+
+        head = buffer.getInt(OFFSET_HEAD);
+        tail = buffer.getInt(OFFSET_TAIL);
+        count = buffer.getInt(OFFSET_COUNT);
+        firstSequence = buffer.getLong(OFFSET_FIRST_SEQUENCE);
+
+        return head >= 0 && head < capacity
+            && tail >= 0 && tail <= capacity
+            && count >= 0
+            && firstSequence >= 0;
+    }
+
+    /**
+     * 扫描长度前缀重建偏移索引，遇到损坏记录时截断
+     */
+    private void buildIndex() {
+        offsetsStart = 0;
+
+        int position = head;
+        int validCount = 0;
+        for (int i = 0; i < count; i++) {
+            position = normalize(position);
+            int length = buffer.getInt(HEADER_SIZE + position);
+            if (length < 0 || position + LENGTH_PREFIX_SIZE + length > capacity) {
+                Log.w(TAG, "环形日志记录损坏，截断到 " + validCount + " 条: " + file.getName());
+                break;
+            }
+
+            if (validCount == maxRecords) {
+                // 最大记录数变小，丢弃最旧的记录
+                head = offsets[offsetsStart];
+                offsetsStart = (offsetsStart + 1) % maxRecords;
+                validCount--;
+                firstSequence++;
+            }
+            offsets[(offsetsStart + validCount) % maxRecords] = position;
+            validCount++;
+
+            position += LENGTH_PREFIX_SIZE + length;
+        }
+
+        if (validCount != count) {
+            count = validCount;
+            if (count == 0) {
+                head = 0;
+                tail = 0;
+            } else {
+                head = offsets[offsetsStart];
+                tail = position;
+            }
+            writeHeader();
+        } else if (count > 0) {
+            head = offsets[offsetsStart];
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(OFFSET_HEAD, head);
+        buffer.putInt(OFFSET_TAIL, tail);
+        buffer.putInt(OFFSET_COUNT, count);
+        buffer.putLong(OFFSET_FIRST_SEQUENCE, firstSequence);
+    }
+
+    /**
+     * 追加一条记录，空间或数量不足时淘汰最旧的记录
+     * @param payload 记录内容
+     * @return 是否写入成功
+     */
+    public synchronized boolean append(byte[] payload) {
+        if (buffer == null || payload == null) {
+            return false;
+        }
+
+        int recordSize = LENGTH_PREFIX_SIZE + payload.length;
+        if (recordSize > capacity / 2) {
+            Log.w(TAG, "记录过大，丢弃: " + payload.length + " 字节");
+            return false;
+        }
+
+        while (count > 0 && (count >= maxRecords || findWritePosition(recordSize) < 0)) {
+            evictOldest();
+        }
+
+        if (count == 0) {
+            head = 0;
+            tail = 0;
+        }
+
+        int position = findWritePosition(recordSize);
+        if (position < 0) {
+            return false;
+        }
+
+        if (position < tail && capacity - tail >= LENGTH_PREFIX_SIZE) {
+            // 尾部剩余空间不足，写入回绕标记
+            buffer.putInt(HEADER_SIZE + tail, WRAP_MARKER);
+        }
+
+        buffer.putInt(HEADER_SIZE + position, payload.length);
+        buffer.position(HEADER_SIZE + position + LENGTH_PREFIX_SIZE);
+        buffer.put(payload);
+
+        offsets[(offsetsStart + count) % maxRecords] = position;
+        tail = position + recordSize;
+        count++;
+        writeHeader();
+
+        return true;
+    }
+
+    /**
+     * 计算下一条记录的写入位置
+     * @param recordSize 记录总长度
+     * @return 数据区偏移，空间不足返回-1
+     */
+    private int findWritePosition(int recordSize) {
+        if (count == 0) {
+            return 0;
+        }
+
+        if (tail > head) {
+            if (capacity - tail >= recordSize) {
+                return tail;
+            }
+            // 回绕到数据区起点，不能覆盖头指针
+            return head >= recordSize ? 0 : -1;
+        }
+
+        // 已回绕：可用空间为尾指针到头指针之间
+        return head - tail >= recordSize ? tail : -1;
+    }
+
+    /**
+     * 淘汰最旧的一条记录
+     */
+    private void evictOldest() {
+        offsetsStart = (offsetsStart + 1) % maxRecords;
+        count--;
+        firstSequence++;
+
+        if (count == 0) {
+            offsetsStart = 0;
+            head = 0;
+            tail = 0;
+        } else {
+            head = offsets[offsetsStart];
+        }
+    }
+
+    /**
+     * 处理回绕：遇到回绕标记或尾部不足以容纳长度前缀时回到起点
+     */
+    private int normalize(int position) {
+        if (position >= capacity
+            || capacity - position < LENGTH_PREFIX_SIZE
+            || buffer.getInt(HEADER_SIZE + position) == WRAP_MARKER) {
+            return 0;
+        }
+        return position;
+    }
+
+    /**
+     * 读取全部记录（从旧到新）
+     * @return 记录列表
+     */
+    public synchronized List<byte[]> readAll() {
+        return readLast(count);
+    }
+
+    /**
+     * 读取最近N条记录（从旧到新），只访问尾部记录
+     * @param n 记录数
+     * @return 记录列表
+     */
+    public synchronized List<byte[]> readLast(int n) {
+        int readCount = Math.max(0, Math.min(n, count));
+        List<byte[]> records = new ArrayList<>(readCount);
+        if (buffer == null) {
+            return records;
+        }
+
+        for (int i = count - readCount; i < count; i++) {
+            records.add(readRecord(offsets[(offsetsStart + i) % maxRecords]));
+        }
+
+        return records;
+    }
+
+    /**
+     * 读取第i条记录（0为最旧）
+     * @param index 记录序号
+     * @return 记录内容
+     */
+    public synchronized byte[] read(int index) {
+        if (buffer == null || index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("记录序号越界: " + index);
+        }
+        return readRecord(offsets[(offsetsStart + index) % maxRecords]);
+    }
+
+    /**
+     * 读取指定偏移处的记录
+     */
+    private byte[] readRecord(int position) {
+        int length = buffer.getInt(HEADER_SIZE + position);
+        byte[] payload = new byte[length];
+        buffer.position(HEADER_SIZE + position + LENGTH_PREFIX_SIZE);
+        buffer.get(payload);
+        return payload;
+    }
+
+    /**
+     * 删除最旧的N条记录，只更新文件头
+     * @param n 删除数量
+     */
+    public synchronized void removeFirst(int n) {
+        if (buffer == null) {
+            return;
+        }
+
+        int removeCount = Math.min(n, count);
+        for (int i = 0; i < removeCount; i++) {
+            evictOldest();
+        }
+        writeHeader();
+    }
+
+    /**
+     * 清空全部记录
+     */
+    public synchronized void clear() {
+        if (buffer == null) {
+            return;
+        }
+
+        firstSequence += count;
+        head = 0;
+        tail = 0;
+        count = 0;
+        offsetsStart = 0;
+        writeHeader();
+    }
+
+    /**
+     * 获取记录数
+     * @return 记录数
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 获取最旧记录的序号
+     * @return 序号
+     */
+    public synchronized long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * 获取下一条写入记录将获得的序号
+     * @return 序号
+     */
+    public synchronized long getNextSequence() {
+        return firstSequence + count;
+    }
+
+    /**
+     * 将映射区的修改强制写回磁盘
+     */
+    public synchronized void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * 关闭文件
+     */
+    public synchronized void close() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+                randomAccessFile = null;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "关闭环形日志失败", e);
+        }
+    }
+}
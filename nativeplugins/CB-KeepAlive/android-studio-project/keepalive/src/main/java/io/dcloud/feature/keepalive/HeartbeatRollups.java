@@ -0,0 +1,325 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 心跳多精度汇总
+ * 原始心跳只保留最近一小时，更长时间的趋势由固定大小的汇总桶保存
+ *
+ * 汇总精度：
+ * 1. 每分钟汇总，保留1天（1440个桶）
+ * 2. 每小时汇总，保留30天（720个桶）
+ *
+ * 每个桶记录心跳数、电量最小/最大/平均值、网络类型分布、心跳间隙数和最大间隙
+ * 桶按时间取模映射到固定槽位，旧数据被自然覆盖，文件大小恒定（约100KB，一周的小时趋势约8KB）
+ *
+ * 文件布局：
+ * 1. 文件头（64字节）：魔数、版本、桶数量、上一次心跳时间
+ * 2. 分钟桶区，紧接着小时桶区，每个桶48字节
+ */
+public class HeartbeatRollups {
+
+    private static final String TAG = "HeartbeatRollups";
+
+    // 汇总精度
+    public static final String RESOLUTION_MINUTE = "minute";
+    public static final String RESOLUTION_HOUR = "hour";
+
+    private static final long MINUTE_MS = 60 * 1000L;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final int MINUTE_BUCKETS = 24 * 60;  // 1天
+    private static final int HOUR_BUCKETS = 30 * 24;    // 30天
+
+    // 超过该时长未收到心跳记为一次间隙
+    private static final long DEFAULT_GAP_THRESHOLD_MS = 60 * 1000L;
+
+    // 文件头
+    private static final int MAGIC = 0x43424852; // "CBHR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_MINUTE_BUCKETS = 8;
+    private static final int OFFSET_HOUR_BUCKETS = 12;
+    private static final int OFFSET_LAST_TIMESTAMP = 16;
+
+    // 桶布局
+    private static final int BUCKET_SIZE = 48;
+    private static final int BUCKET_KEY = 0;              // long 桶序号（时间戳/精度）
+    private static final int BUCKET_COUNT = 8;            // int 心跳数
+    private static final int BUCKET_BATTERY_SAMPLES = 12; // int 有效电量样本数
+    private static final int BUCKET_BATTERY_SUM = 16;     // int 电量总和
+    private static final int BUCKET_BATTERY_MIN = 20;     // byte 最低电量
+    private static final int BUCKET_BATTERY_MAX = 21;     // byte 最高电量
+    private static final int BUCKET_NETWORK_WIFI = 24;    // int
+    private static final int BUCKET_NETWORK_MOBILE = 28;  // int
+    private static final int BUCKET_NETWORK_NONE = 32;    // int
+    private static final int BUCKET_NETWORK_OTHER = 36;   // int
+    private static final int BUCKET_GAP_COUNT = 40;       // int 间隙数
+    private static final int BUCKET_MAX_GAP = 44;         // int 最大间隙（秒）
+
+    private static final int MINUTE_REGION = HEADER_SIZE;
+    private static final int HOUR_REGION = MINUTE_REGION + MINUTE_BUCKETS * BUCKET_SIZE;
+    private static final int FILE_SIZE = HOUR_REGION + HOUR_BUCKETS * BUCKET_SIZE;
+
+    private final File file;
+
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer buffer;
+    private long lastTimestamp;
+    private long gapThresholdMs = DEFAULT_GAP_THRESHOLD_MS;
+
+    public HeartbeatRollups(File file) {
+        this.file = file;
+        open();
+    }
+
+    /**
+     * 打开并映射文件，文件头无效时重新初始化
+     */
+    private void open() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            if (randomAccessFile.length() != FILE_SIZE) {
+                randomAccessFile.setLength(FILE_SIZE);
+            }
+
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC
+                || buffer.getInt(OFFSET_VERSION) != VERSION
+                || buffer.getInt(OFFSET_MINUTE_BUCKETS) != MINUTE_BUCKETS
+                || buffer.getInt(OFFSET_HOUR_BUCKETS) != HOUR_BUCKETS) {
+                Log.d(TAG, "汇总文件头无效，重新初始化");
+                resetLocked();
+            } else {
+                lastTimestamp = buffer.getLong(OFFSET_LAST_TIMESTAMP);
+            }
+
+        } catch (IOException e) {
+            Log.e(TAG, "打开汇总文件失败", e);
+            buffer = null;
+        }
+    }
+
+    /**
+     * 设置间隙判定阈值，通常为心跳间隔的两倍
+     * @param gapThresholdMs 阈值（毫秒）
+     */
+    public synchronized void setGapThreshold(long gapThresholdMs) {
+        if (gapThresholdMs > 0) {
+            this.gapThresholdMs = gapThresholdMs;
+        }
+    }
+
+    /**
+     * 将一次心跳计入分钟和小时汇总
+     * @param heartbeatData 心跳数据
+     */
+    public synchronized void add(HeartbeatData heartbeatData) {
+        if (buffer == null) {
+            return;
+        }
+
+        long timestamp = heartbeatData.getTimestamp();
+        long gap = lastTimestamp > 0 ? timestamp - lastTimestamp : 0;
+        if (gap < 0) {
+            gap = 0;
+        }
+
+        addToBucket(MINUTE_REGION, MINUTE_BUCKETS, MINUTE_MS, timestamp, heartbeatData, gap);
+        addToBucket(HOUR_REGION, HOUR_BUCKETS, HOUR_MS, timestamp, heartbeatData, gap);
+
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            buffer.putLong(OFFSET_LAST_TIMESTAMP, lastTimestamp);
+        }
+    }
+
+    private void addToBucket(int region, int bucketCount, long resolution,
+                             long timestamp, HeartbeatData heartbeatData, long gap) {
+        long key = timestamp / resolution;
+        int offset = region + (int) (key % bucketCount) * BUCKET_SIZE;
+
+        if (buffer.getLong(offset + BUCKET_KEY) != key) {
+            // 槽位中是更早周期的数据，覆盖
+            for (int i = 0; i < BUCKET_SIZE; i += 4) {
+                buffer.putInt(offset + i, 0);
+            }
+            buffer.putLong(offset + BUCKET_KEY, key);
+            buffer.put(offset + BUCKET_BATTERY_MIN, Byte.MAX_VALUE);
+            buffer.put(offset + BUCKET_BATTERY_MAX, (byte) -1);
+        }
+
+        increment(offset + BUCKET_COUNT);
+
+        int batteryLevel = heartbeatData.getBatteryLevel();
+        if (batteryLevel >= 0 && batteryLevel <= 100) {
+            increment(offset + BUCKET_BATTERY_SAMPLES);
+            buffer.putInt(offset + BUCKET_BATTERY_SUM, buffer.getInt(offset + BUCKET_BATTERY_SUM) + batteryLevel);
+            if (batteryLevel < buffer.get(offset + BUCKET_BATTERY_MIN)) {
+                buffer.put(offset + BUCKET_BATTERY_MIN, (byte) batteryLevel);
+            }
+            if (batteryLevel > buffer.get(offset + BUCKET_BATTERY_MAX)) {
+                buffer.put(offset + BUCKET_BATTERY_MAX, (byte) batteryLevel);
+            }
+        }
+
+        increment(offset + networkField(heartbeatData.getNetworkType()));
+
+        if (gap > gapThresholdMs) {
+            increment(offset + BUCKET_GAP_COUNT);
+        }
+        int gapSeconds = (int) Math.min(Integer.MAX_VALUE, gap / 1000);
+        if (gapSeconds > buffer.getInt(offset + BUCKET_MAX_GAP)) {
+            buffer.putInt(offset + BUCKET_MAX_GAP, gapSeconds);
+        }
+    }
+
+    private void increment(int position) {
+        buffer.putInt(position, buffer.getInt(position) + 1);
+    }
+
+    /**
+     * 网络类型归类：wifi / 移动网络（2G-5G） / 无网络 / 其他（以太网、未知等）
+     */
+    private static int networkField(String networkType) {
+        if ("wifi".equals(networkType)) {
+            return BUCKET_NETWORK_WIFI;
+        }
+        if ("none".equals(networkType)) {
+            return BUCKET_NETWORK_NONE;
+        }
+        if ("2g".equals(networkType) || "3g".equals(networkType) || "4g".equals(networkType)
+            || "5g".equals(networkType) || "mobile".equals(networkType)) {
+            return BUCKET_NETWORK_MOBILE;
+        }
+        return BUCKET_NETWORK_OTHER;
+    }
+
+    /**
+     * 获取指定时间范围内的汇总趋势（从旧到新，跳过无数据的桶）
+     * @param resolution 精度（RESOLUTION_MINUTE / RESOLUTION_HOUR）
+     * @param startTime 开始时间戳
+     * @param endTime 结束时间戳
+     * @return 汇总桶列表
+     */
+    public synchronized JSONArray getTrend(String resolution, long startTime, long endTime) {
+        JSONArray trend = new JSONArray();
+        if (buffer == null || endTime < startTime) {
+            return trend;
+        }
+
+        int region;
+        int bucketCount;
+        long resolutionMs;
+        if (RESOLUTION_HOUR.equals(resolution)) {
+            region = HOUR_REGION;
+            bucketCount = HOUR_BUCKETS;
+            resolutionMs = HOUR_MS;
+        } else {
+            region = MINUTE_REGION;
+            bucketCount = MINUTE_BUCKETS;
+            resolutionMs = MINUTE_MS;
+        }
+
+        long endKey = endTime / resolutionMs;
+        // 最多遍历一个完整周期
+        long startKey = Math.max(startTime / resolutionMs, endKey - bucketCount + 1);
+
+        for (long key = startKey; key <= endKey; key++) {
+            int offset = region + (int) (key % bucketCount) * BUCKET_SIZE;
+            if (buffer.getLong(offset + BUCKET_KEY) != key || buffer.getInt(offset + BUCKET_COUNT) == 0) {
+                continue;
+            }
+            trend.add(bucketToJson(offset, key * resolutionMs));
+        }
+
+        return trend;
+    }
+
+    private JSONObject bucketToJson(int offset, long bucketStart) {
+        JSONObject json = new JSONObject();
+        json.put("timestamp", bucketStart);
+        json.put("count", buffer.getInt(offset + BUCKET_COUNT));
+
+        int batterySamples = buffer.getInt(offset + BUCKET_BATTERY_SAMPLES);
+        if (batterySamples > 0) {
+            json.put("batteryMin", (int) buffer.get(offset + BUCKET_BATTERY_MIN));
+            json.put("batteryMax", (int) buffer.get(offset + BUCKET_BATTERY_MAX));
+            json.put("batteryAvg", buffer.getInt(offset + BUCKET_BATTERY_SUM) / batterySamples);
+        }
+
+        JSONObject network = new JSONObject();
+        network.put("wifi", buffer.getInt(offset + BUCKET_NETWORK_WIFI));
+        network.put("mobile", buffer.getInt(offset + BUCKET_NETWORK_MOBILE));
+        network.put("none", buffer.getInt(offset + BUCKET_NETWORK_NONE));
+        network.put("other", buffer.getInt(offset + BUCKET_NETWORK_OTHER));
+        json.put("network", network);
+
+        json.put("gapCount", buffer.getInt(offset + BUCKET_GAP_COUNT));
+        json.put("maxGap", buffer.getInt(offset + BUCKET_MAX_GAP) * 1000L);
+        return json;
+    }
+
+    /**
+     * 清空全部汇总
+     */
+    public synchronized void clear() {
+        if (buffer != null) {
+            resetLocked();
+        }
+    }
+
+    private void resetLocked() {
+        for (int i = 0; i < FILE_SIZE; i += 4) {
+            buffer.putInt(i, 0);
+        }
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_MINUTE_BUCKETS, MINUTE_BUCKETS);
+        buffer.putInt(OFFSET_HOUR_BUCKETS, HOUR_BUCKETS);
+        lastTimestamp = 0;
+    }
+
+    /**
+     * 将映射区的修改强制写回磁盘
+     */
+    public synchronized void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * 关闭文件
+     */
+    public synchronized void close() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+                randomAccessFile = null;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "关闭汇总文件失败", e);
+        }
+    }
+}
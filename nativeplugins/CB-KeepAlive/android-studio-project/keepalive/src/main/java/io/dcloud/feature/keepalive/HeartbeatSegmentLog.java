@@ -0,0 +1,889 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * 分段日志
+ * 日志按顺序写入目录下的多个分段文件，每条记录带CRC32校验，写满的分段以文件尾封存
+ *
+ * 分段文件布局：
+ * 1. 文件头（32字节）：魔数、版本、首条记录的序号、起始时间（不晚于分段内首条记录的时间）、
+ *    写入时日志的有效起始序号（按数量淘汰、按时间清理后更新，打开时取各分段中的最大值）；
+ *    版本1的文件头为24字节，没有有效起始序号，仍可读取
+ * 2. 记录：[int 长度][int CRC32][payload] 依次追加
+ * 3. 文件尾（16字节，封存后存在）：[int 标记][int 记录数][int 数据区结束位置][int 文件尾CRC32]
+ *
+ * 崩溃恢复：
+ * 1. 已封存的分段只读取文件尾，不扫描记录
+ * 2. 只扫描最后一个分段，截断到最后一条校验通过的记录
+ * 3. 每次读取记录都校验CRC32，已封存分段中损坏的记录同样不会被返回
+ * 打开耗时和进程被杀时丢失的数据都不超过一个分段，与历史总量无关
+ *
+ * 容量和记录数超限时淘汰最旧的记录，最旧分段中的记录全部被淘汰后删除整个文件；
+ * 按序号清除（trimBefore）时重写最旧分段，只保留有效记录，释放磁盘空间
+ * 每条记录获得单调递增的序号，淘汰和清空不会使序号回退
+ *
+ * 按时间分段：指定分段周期时，记录时间跨入新周期即开始新的分段，
+ * 分段内的记录都早于下一分段的起始时间，按时间清理只需删除整个文件，不读取记录；
+ * 周期按 timestamp / segmentPeriod 划分，与时区无关（按天分段即按UTC零点切分）
+ */
+public class HeartbeatSegmentLog {
+
+    private static final String TAG = "HeartbeatSegmentLog";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACT_SUFFIX = ".tmp";
+
+    // 文件头
+    private static final int MAGIC = 0x43425347; // "CBSG"
+    private static final int VERSION_V1 = 1;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE_V1 = 24;
+    private static final int HEADER_SIZE = 32;
+    // 文件头中有效起始序号的位置
+    private static final int FIRST_SEQUENCE_OFFSET = 24;
+
+    // 记录前缀：长度 + CRC32
+    private static final int RECORD_PREFIX_SIZE = 8;
+
+    // 文件尾
+    private static final int FOOTER_MARKER = -2;
+    private static final int FOOTER_SIZE = 16;
+
+    // 每个日志的分段数，决定整段删除时的淘汰粒度
+    private static final int SEGMENTS_PER_LOG = 8;
+
+    private final File directory;
+    private final int capacity;
+    private final int maxRecords;
+    private final int segmentSize;
+    private final long segmentPeriod;
+
+    // 从旧到新
+    private final List<Segment> segments = new ArrayList<>();
+    private final CRC32 crc32 = new CRC32();
+    // 追加记录时复用的缓冲（前缀 + 内容）
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(512);
+
+    // 最旧的有效记录序号（最旧分段中更早的记录已被淘汰）
+    private long firstSequence;
+    private long totalBytes;
+    private boolean opened;
+
+    /**
+     * @param directory 分段文件目录
+     * @param capacity 所有分段的总容量（字节）
+     * @param maxRecords 最多保留的记录数
+     */
+    public HeartbeatSegmentLog(File directory, int capacity, int maxRecords) {
+        this(directory, capacity, maxRecords, 0);
+    }
+
+    /**
+     * @param directory 分段文件目录
+     * @param capacity 所有分段的总容量（字节）
+     * @param maxRecords 最多保留的记录数
+     * @param segmentPeriod 分段周期（毫秒，按UTC纪元对齐），0表示只按大小分段
+     */
+    public HeartbeatSegmentLog(File directory, int capacity, int maxRecords, long segmentPeriod) {
+        this.directory = directory;
+        this.capacity = capacity;
+        this.maxRecords = maxRecords;
+        this.segmentSize = Math.max(capacity / SEGMENTS_PER_LOG, 4 * 1024);
+        this.segmentPeriod = segmentPeriod;
+        open();
+    }
+
+    /**
+     * 打开目录下的分段文件并恢复最后一个分段
+     */
+    private void open() {
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("无法创建日志目录: " + directory);
+            }
+
+            long startTime = System.currentTimeMillis();
+
+            File[] files = directory.listFiles();
+            List<File> segmentFiles = new ArrayList<>();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(SEGMENT_SUFFIX)) {
+                        segmentFiles.add(file);
+                    } else if (file.getName().endsWith(COMPACT_SUFFIX) && !file.delete()) {
+                        // 压缩中途退出留下的临时文件
+                        Log.w(TAG, "删除临时文件失败: " + file.getName());
+                    }
+                }
+            }
+            Collections.sort(segmentFiles, new Comparator<File>() {
+                @Override
+                public int compare(File a, File b) {
+                    return a.getName().compareTo(b.getName());
+                }
+            });
+
+            for (int i = 0; i < segmentFiles.size(); i++) {
+                boolean last = i == segmentFiles.size() - 1;
+                Segment segment = openSegment(segmentFiles.get(i), last);
+                if (segment == null) {
+                    continue;
+                }
+
+                Segment previous = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (previous != null && previous.baseSequence + previous.count != segment.baseSequence) {
+                    // 序号不连续（中间分段损坏），丢弃更早的分段
+                    Log.w(TAG, "分段序号不连续，丢弃更早的分段: " + segment.file.getName());
+                    for (Segment stale : segments) {
+                        stale.delete();
+                    }
+                    segments.clear();
+                    totalBytes = 0;
+                }
+
+                segments.add(segment);
+                totalBytes += segment.length;
+            }
+
+            // 各分段记录的有效起始序号取最大值，按数量淘汰、按时间清理的记录重新打开后不会再出现
+            long persistedFirst = -1;
+            for (Segment segment : segments) {
+                persistedFirst = Math.max(persistedFirst, segment.firstSequence);
+            }
+
+            if (segments.isEmpty()) {
+                startSegment(0, System.currentTimeMillis());
+            } else if (tail().sealed) {
+                startSegment(getNextSequence(), System.currentTimeMillis());
+            } else if (tail().headerSize < HEADER_SIZE) {
+                // 版本1的写入分段无法记录有效起始序号，封存后从新版本分段继续写入
+                sealTail();
+                startSegment(getNextSequence(), System.currentTimeMillis());
+            }
+
+            firstSequence = Math.max(segments.get(0).baseSequence, Math.min(persistedFirst, getNextSequence()));
+            enforceRetention();
+            writeFirstSequence();
+            opened = true;
+
+            Log.d(TAG, "分段日志已打开: " + directory.getName() + "，分段数: " + segments.size()
+                + "，记录数: " + size() + "，耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+
+        } catch (IOException e) {
+            Log.e(TAG, "打开分段日志失败", e);
+            close();
+        }
+    }
+
+    /**
+     * 打开一个分段文件
+     * @param file 分段文件
+     * @param last 是否为最后一个分段（未封存时需要扫描恢复）
+     * @return 分段，文件头无效时删除文件并返回null
+     */
+    private Segment openSegment(File file, boolean last) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, last ? "rw" : "r");
+        Segment segment = new Segment(file, randomAccessFile);
+        segment.writable = last;
+
+        long fileLength = randomAccessFile.length();
+        byte[] header = new byte[HEADER_SIZE];
+        if (fileLength < HEADER_SIZE_V1) {
+            segment.delete();
+            return null;
+        }
+        randomAccessFile.readFully(header, 0, HEADER_SIZE_V1);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        int magic = headerBuffer.getInt();
+        int version = headerBuffer.getInt();
+        if (magic != MAGIC || (version != VERSION_V1 && version != VERSION)
+            || (version == VERSION && fileLength < HEADER_SIZE)) {
+            Log.w(TAG, "分段文件头无效，删除: " + file.getName());
+            segment.delete();
+            return null;
+        }
+        segment.baseSequence = headerBuffer.getLong();
+        segment.startTime = headerBuffer.getLong();
+        if (version == VERSION) {
+            randomAccessFile.readFully(header, HEADER_SIZE_V1, HEADER_SIZE - HEADER_SIZE_V1);
+            segment.headerSize = HEADER_SIZE;
+            segment.firstSequence = headerBuffer.getLong();
+        } else {
+            segment.headerSize = HEADER_SIZE_V1;
+        }
+
+        if (readFooter(segment, fileLength)) {
+            return segment;
+        }
+
+        // 未封存：扫描记录，截断到最后一条有效记录
+        recover(segment, fileLength);
+        return segment;
+    }
+
+    /**
+     * 读取并校验文件尾
+     * @return 文件尾是否有效
+     */
+    private boolean readFooter(Segment segment, long fileLength) throws IOException {
+        if (fileLength < segment.headerSize + FOOTER_SIZE) {
+            return false;
+        }
+
+        byte[] footer = new byte[FOOTER_SIZE];
+        segment.randomAccessFile.seek(fileLength - FOOTER_SIZE);
+        segment.randomAccessFile.readFully(footer);
+        ByteBuffer footerBuffer = ByteBuffer.wrap(footer);
+
+        int marker = footerBuffer.getInt();
+        int count = footerBuffer.getInt();
+        int dataEnd = footerBuffer.getInt();
+        int checksum = footerBuffer.getInt();
+        if (marker != FOOTER_MARKER || dataEnd != fileLength - FOOTER_SIZE || count < 0
+            || checksum != checksum(footer, 0, FOOTER_SIZE - 4)) {
+            return false;
+        }
+
+        segment.count = count;
+        segment.dataEnd = dataEnd;
+        segment.length = fileLength;
+        segment.sealed = true;
+        return true;
+    }
+
+    /**
+     * 扫描分段中的记录，遇到不完整或校验失败的记录时截断文件
+     */
+    private void recover(Segment segment, long fileLength) throws IOException {
+        byte[] data = new byte[(int) Math.min(fileLength, Integer.MAX_VALUE)];
+        segment.randomAccessFile.seek(0);
+        segment.randomAccessFile.readFully(data);
+        ByteBuffer dataBuffer = ByteBuffer.wrap(data);
+
+        int position = segment.headerSize;
+        segment.offsets = new int[16];
+        segment.count = 0;
+        while (position + RECORD_PREFIX_SIZE <= data.length) {
+            int length = dataBuffer.getInt(position);
+            int checksum = dataBuffer.getInt(position + 4);
+            if (length < 0 || position + RECORD_PREFIX_SIZE + length > data.length
+                || checksum != checksum(data, position + RECORD_PREFIX_SIZE, length)) {
+                break;
+            }
+            segment.addOffset(position);
+            position += RECORD_PREFIX_SIZE + length;
+        }
+
+        segment.dataEnd = position;
+        segment.length = position;
+        if (position != fileLength) {
+            Log.w(TAG, "分段末尾记录不完整，截断 " + (fileLength - position) + " 字节: " + segment.file.getName());
+            if (segment.writable) {
+                segment.randomAccessFile.setLength(position);
+            }
+        }
+    }
+
+    /**
+     * 创建新的分段并作为写入分段
+     * @param baseSequence 首条记录的序号
+     * @param startTime 起始时间
+     */
+    private void startSegment(long baseSequence, long startTime) throws IOException {
+        File file = new File(directory, String.format(Locale.US, "%019d%s", baseSequence, SEGMENT_SUFFIX));
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(0);
+
+        Segment segment = new Segment(file, randomAccessFile);
+        segment.writable = true;
+        segment.baseSequence = baseSequence;
+        segment.startTime = startTime;
+        segment.headerSize = HEADER_SIZE;
+        segment.firstSequence = firstSequence;
+        segment.offsets = new int[16];
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(segment.baseSequence);
+        header.putLong(segment.startTime);
+        header.putLong(segment.firstSequence);
+        randomAccessFile.write(header.array());
+
+        segment.dataEnd = HEADER_SIZE;
+        segment.length = HEADER_SIZE;
+        segments.add(segment);
+        totalBytes += HEADER_SIZE;
+    }
+
+    /**
+     * 封存写入分段：写入文件尾并刷盘
+     */
+    private void sealTail() throws IOException {
+        Segment segment = tail();
+
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        footer.putInt(FOOTER_MARKER);
+        footer.putInt(segment.count);
+        footer.putInt(segment.dataEnd);
+        footer.putInt(checksum(footer.array(), 0, FOOTER_SIZE - 4));
+
+        segment.randomAccessFile.seek(segment.dataEnd);
+        segment.randomAccessFile.write(footer.array());
+        segment.randomAccessFile.getChannel().force(false);
+
+        segment.length = segment.dataEnd + FOOTER_SIZE;
+        segment.sealed = true;
+        totalBytes += FOOTER_SIZE;
+    }
+
+    /**
+     * 追加一条记录，以当前时间作为记录时间
+     * @param payload 记录内容
+     * @return 是否写入成功
+     */
+    public boolean append(byte[] payload) {
+        return append(payload, System.currentTimeMillis());
+    }
+
+    /**
+     * 追加一条记录，空间或数量不足时淘汰最旧的记录
+     * @param payload 记录内容
+     * @param timestamp 记录时间（按时间分段时决定所属分段，应单调不减）
+     * @return 是否写入成功
+     */
+    public boolean append(byte[] payload, long timestamp) {
+        if (payload == null) {
+            return false;
+        }
+        return append(payload, 0, payload.length, timestamp);
+    }
+
+    /**
+     * 追加缓冲中的一段作为一条记录，记录经复用的缓冲写入文件，不复制调用方的数据
+     * @param payload 记录所在的缓冲
+     * @param offset 起始位置
+     * @param length 记录长度
+     * @param timestamp 记录时间（按时间分段时决定所属分段，应单调不减）
+     * @return 是否写入成功
+     */
+    public synchronized boolean append(byte[] payload, int offset, int length, long timestamp) {
+        if (!opened || payload == null) {
+            return false;
+        }
+
+        int recordSize = RECORD_PREFIX_SIZE + length;
+        if (HEADER_SIZE + recordSize + FOOTER_SIZE > segmentSize) {
+            Log.w(TAG, "记录过大，丢弃: " + length + " 字节");
+            return false;
+        }
+
+        try {
+            Segment current = tail();
+            boolean full = current.dataEnd + recordSize + FOOTER_SIZE > segmentSize;
+            boolean newPeriod = segmentPeriod > 0 && current.count > 0
+                && timestamp / segmentPeriod != current.startTime / segmentPeriod;
+            if (full || newPeriod) {
+                sealTail();
+                startSegment(getNextSequence(), Math.max(timestamp, current.startTime));
+            }
+
+            Segment segment = tail();
+            if (recordBuffer.capacity() < recordSize) {
+                recordBuffer = ByteBuffer.allocate(Math.max(recordSize, recordBuffer.capacity() * 2));
+            }
+            recordBuffer.clear();
+            recordBuffer.putInt(length);
+            recordBuffer.putInt(checksum(payload, offset, length));
+            recordBuffer.put(payload, offset, length);
+
+            segment.randomAccessFile.seek(segment.dataEnd);
+            segment.randomAccessFile.write(recordBuffer.array(), 0, recordSize);
+            segment.addOffset(segment.dataEnd);
+            segment.dataEnd += recordSize;
+            segment.length = segment.dataEnd;
+            totalBytes += recordSize;
+
+            enforceRetention();
+            return true;
+
+        } catch (IOException e) {
+            Log.e(TAG, "写入分段日志失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 淘汰超出记录数和容量限制的最旧记录，删除已无有效记录的分段
+     */
+    private void enforceRetention() {
+        long previousFirst = firstSequence;
+        long nextSequence = getNextSequence();
+        if (nextSequence - firstSequence > maxRecords) {
+            firstSequence = nextSequence - maxRecords;
+        }
+
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            boolean expired = oldest.baseSequence + oldest.count <= firstSequence;
+            if (!expired && totalBytes <= capacity) {
+                break;
+            }
+
+            segments.remove(0);
+            totalBytes -= oldest.length;
+            oldest.delete();
+            firstSequence = Math.max(firstSequence, segments.get(0).baseSequence);
+        }
+
+        if (firstSequence != previousFirst) {
+            writeFirstSequence();
+        }
+    }
+
+    /**
+     * 将有效起始序号写入写入分段的文件头，随下一次刷盘持久化
+     * 版本1的写入分段没有该字段，重新打开时仍按记录数上限淘汰
+     */
+    private void writeFirstSequence() {
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Segment segment = tail();
+        if (!segment.writable || segment.sealed || segment.headerSize < HEADER_SIZE
+            || segment.firstSequence == firstSequence) {
+            return;
+        }
+
+        try {
+            segment.randomAccessFile.seek(FIRST_SEQUENCE_OFFSET);
+            segment.randomAccessFile.writeLong(firstSequence);
+            segment.firstSequence = firstSequence;
+        } catch (IOException e) {
+            Log.w(TAG, "写入有效起始序号失败", e);
+        }
+    }
+
+    /**
+     * 删除所有记录都早于指定时间的分段，只删除整个文件，不读取记录
+     * 跨越该时间的分段保留，写入分段不会被删除
+     * @param time 时间戳
+     * @return 删除的记录数
+     */
+    public synchronized int deleteBefore(long time) {
+        if (!opened) {
+            return 0;
+        }
+
+        int removedCount = 0;
+        while (segments.size() > 1 && segments.get(1).startTime <= time) {
+            Segment oldest = segments.remove(0);
+            removedCount += (int) Math.max(0, oldest.baseSequence + oldest.count - firstSequence);
+            totalBytes -= oldest.length;
+            oldest.delete();
+            firstSequence = Math.max(firstSequence, segments.get(0).baseSequence);
+        }
+
+        if (removedCount > 0) {
+            writeFirstSequence();
+            Log.d(TAG, "按时间删除了 " + removedCount + " 条记录: " + directory.getName());
+        }
+        return removedCount;
+    }
+
+    /**
+     * 清除指定序号之前的记录并释放磁盘空间
+     * 整段过期的分段直接删除，最旧分段中剩余的有效记录重写到新文件
+     * @param sequence 保留的第一条记录的序号
+     * @return 清除的记录数
+     */
+    public synchronized int trimBefore(long sequence) {
+        if (!opened || sequence <= firstSequence) {
+            return 0;
+        }
+
+        long previousFirst = firstSequence;
+        firstSequence = Math.min(sequence, getNextSequence());
+
+        // 整段过期的分段在这里删除，写入分段保留
+        enforceRetention();
+
+        try {
+            compactOldest();
+        } catch (IOException e) {
+            Log.e(TAG, "压缩分段失败", e);
+        }
+        writeFirstSequence();
+
+        int removedCount = (int) (firstSequence - previousFirst);
+        Log.d(TAG, "按序号清除了 " + removedCount + " 条记录: " + directory.getName());
+        return removedCount;
+    }
+
+    /**
+     * 重写最旧分段，去掉其中已失效的记录
+     * 先写临时文件并刷盘，再改名为以新起始序号命名的分段，最后删除原文件；
+     * 中途退出时原分段仍完整，重新打开时按序号连续性丢弃其中一份
+     */
+    private void compactOldest() throws IOException {
+        Segment oldest = segments.get(0);
+        int skip = (int) (firstSequence - oldest.baseSequence);
+        if (skip <= 0) {
+            return;
+        }
+
+        if (oldest.offsets == null) {
+            oldest.buildIndex();
+        }
+        int dataStart = skip < oldest.count ? oldest.offsets[skip] : oldest.dataEnd;
+        byte[] records = new byte[oldest.dataEnd - dataStart];
+        oldest.randomAccessFile.seek(dataStart);
+        oldest.randomAccessFile.readFully(records);
+
+        String name = String.format(Locale.US, "%019d", firstSequence);
+        File temp = new File(directory, name + COMPACT_SUFFIX);
+        RandomAccessFile out = new RandomAccessFile(temp, "rw");
+        try {
+            out.setLength(0);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(firstSequence);
+            header.putLong(oldest.startTime);
+            header.putLong(firstSequence);
+            out.write(header.array());
+            out.write(records);
+
+            if (oldest.sealed) {
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+                footer.putInt(FOOTER_MARKER);
+                footer.putInt(oldest.count - skip);
+                footer.putInt(HEADER_SIZE + records.length);
+                footer.putInt(checksum(footer.array(), 0, FOOTER_SIZE - 4));
+                out.write(footer.array());
+            }
+            out.getChannel().force(false);
+        } finally {
+            out.close();
+        }
+
+        File target = new File(directory, name + SEGMENT_SUFFIX);
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("重命名压缩分段失败: " + target.getName());
+        }
+
+        boolean writable = oldest.writable;
+        totalBytes -= oldest.length;
+        oldest.delete();
+
+        Segment compacted = null;
+        try {
+            compacted = openSegment(target, writable);
+        } finally {
+            if (compacted != null) {
+                segments.set(0, compacted);
+                totalBytes += compacted.length;
+            } else {
+                // 压缩后的分段无法打开，其中的记录丢弃，保证写入分段存在
+                Log.w(TAG, "打开压缩分段失败: " + target.getName());
+                segments.remove(0);
+                if (segments.isEmpty()) {
+                    startSegment(firstSequence, System.currentTimeMillis());
+                }
+                firstSequence = segments.get(0).baseSequence;
+            }
+        }
+    }
+
+    /**
+     * 读取全部记录（从旧到新）
+     * @return 记录列表
+     */
+    public synchronized List<byte[]> readAll() {
+        return readLast(size());
+    }
+
+    /**
+     * 读取最近N条记录（从旧到新），只访问尾部分段，校验失败的记录跳过
+     * @param n 记录数
+     * @return 记录列表
+     */
+    public synchronized List<byte[]> readLast(int n) {
+        int count = size();
+        int readCount = Math.max(0, Math.min(n, count));
+        List<byte[]> records = new ArrayList<>(readCount);
+        for (int i = count - readCount; i < count; i++) {
+            try {
+                records.add(read(i));
+            } catch (IllegalStateException e) {
+                // 损坏的记录跳过，不影响其余记录
+                Log.w(TAG, "跳过损坏的记录: " + (firstSequence + i), e);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 读取第i条记录（0为最旧）
+     * @param index 记录序号
+     * @return 记录内容
+     * @throws IllegalStateException 读取失败或CRC校验失败
+     */
+    public synchronized byte[] read(int index) {
+        if (!opened || index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("记录序号越界: " + index);
+        }
+
+        long sequence = firstSequence + index;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (sequence >= segment.baseSequence) {
+                try {
+                    return segment.read((int) (sequence - segment.baseSequence), crc32);
+                } catch (IOException e) {
+                    throw new IllegalStateException("读取分段日志失败: " + segment.file.getName(), e);
+                }
+            }
+        }
+
+        throw new IndexOutOfBoundsException("记录序号越界: " + index);
+    }
+
+    /**
+     * 按序号读取记录
+     * @param sequence 记录序号
+     * @return 记录内容，已被淘汰或尚未写入时返回null
+     */
+    public synchronized byte[] readSequence(long sequence) {
+        if (!opened || sequence < firstSequence || sequence >= getNextSequence()) {
+            return null;
+        }
+        return read((int) (sequence - firstSequence));
+    }
+    
+    /**
+     * 清空全部记录，删除所有分段
+     */
+    public synchronized void clear() {
+        if (!opened) {
+            return;
+        }
+
+        long nextSequence = getNextSequence();
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        totalBytes = 0;
+
+        try {
+            startSegment(nextSequence, System.currentTimeMillis());
+            firstSequence = nextSequence;
+        } catch (IOException e) {
+            Log.e(TAG, "清空分段日志失败", e);
+            opened = false;
+        }
+    }
+
+    /**
+     * 设置空日志的起始序号（从旧版日志迁移、清除时跳过已分配的序号，保持序号单调递增）
+     * @param sequence 下一条记录的序号
+     */
+    synchronized void startAt(long sequence) {
+        if (!opened || size() > 0 || sequence <= getNextSequence()) {
+            return;
+        }
+
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        totalBytes = 0;
+
+        try {
+            startSegment(sequence, System.currentTimeMillis());
+            firstSequence = sequence;
+        } catch (IOException e) {
+            Log.e(TAG, "设置起始序号失败", e);
+            opened = false;
+        }
+    }
+
+    /**
+     * 获取记录数
+     * @return 记录数
+     */
+    public synchronized int size() {
+        return opened ? (int) (getNextSequence() - firstSequence) : 0;
+    }
+
+    /**
+     * 获取最旧记录的序号
+     * @return 序号
+     */
+    public synchronized long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * 获取下一条写入记录将获得的序号
+     * @return 序号
+     */
+    public synchronized long getNextSequence() {
+        if (segments.isEmpty()) {
+            return firstSequence;
+        }
+        Segment segment = tail();
+        return segment.baseSequence + segment.count;
+    }
+
+    /**
+     * 将写入分段的修改强制写回磁盘
+     */
+    public synchronized void force() {
+        if (!opened) {
+            return;
+        }
+
+        try {
+            writeFirstSequence();
+            tail().randomAccessFile.getChannel().force(false);
+        } catch (IOException e) {
+            Log.e(TAG, "分段日志刷盘失败", e);
+        }
+    }
+
+    /**
+     * 关闭所有分段文件
+     */
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        opened = false;
+    }
+
+    private Segment tail() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private int checksum(byte[] data, int offset, int length) {
+        crc32.reset();
+        crc32.update(data, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * 分段文件
+     */
+    private static class Segment {
+
+        final File file;
+        final RandomAccessFile randomAccessFile;
+
+        long baseSequence;
+        long startTime;
+        // 文件头大小（版本1为24字节）和文件头中记录的有效起始序号（版本1为-1）
+        int headerSize = HEADER_SIZE;
+        long firstSequence = -1;
+        int count;
+        int dataEnd;
+        long length;
+        boolean sealed;
+        boolean writable;
+
+        // 记录偏移索引，已封存的分段在首次读取时建立
+        int[] offsets;
+
+        Segment(File file, RandomAccessFile randomAccessFile) {
+            this.file = file;
+            this.randomAccessFile = randomAccessFile;
+        }
+
+        void addOffset(int position) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+        }
+
+        /**
+         * 读取分段内第i条记录并校验CRC32
+         */
+        byte[] read(int index, CRC32 crc32) throws IOException {
+            if (offsets == null) {
+                buildIndex();
+            }
+
+            int position = offsets[index];
+            randomAccessFile.seek(position);
+            int length = randomAccessFile.readInt();
+            int checksum = randomAccessFile.readInt();
+            if (length < 0 || (long) position + RECORD_PREFIX_SIZE + length > dataEnd) {
+                throw new IOException("记录长度无效: " + length);
+            }
+            byte[] payload = new byte[length];
+            randomAccessFile.readFully(payload);
+
+            crc32.reset();
+            crc32.update(payload, 0, length);
+            if ((int) crc32.getValue() != checksum) {
+                throw new IOException("记录校验失败: " + (baseSequence + index));
+            }
+            return payload;
+        }
+
+        /**
+         * 扫描长度前缀建立偏移索引
+         */
+        private void buildIndex() throws IOException {
+            int[] index = new int[Math.max(count, 1)];
+            int position = headerSize;
+            for (int i = 0; i < count; i++) {
+                if (position + RECORD_PREFIX_SIZE > dataEnd) {
+                    throw new IOException("分段记录数与数据区不符: " + file.getName());
+                }
+                index[i] = position;
+                randomAccessFile.seek(position);
+                int length = randomAccessFile.readInt();
+                if (length < 0) {
+                    throw new IOException("记录长度无效: " + file.getName());
+                }
+                position += RECORD_PREFIX_SIZE + length;
+            }
+            offsets = index;
+        }
+
+        void close() {
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                Log.w(TAG, "关闭分段文件失败: " + file.getName(), e);
+            }
+        }
+
+        void delete() {
+            close();
+            if (!file.delete()) {
+                Log.w(TAG, "删除分段文件失败: " + file.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.dcloud.feature.keepalive;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 心跳日志增量统计
+ * 在日志追加、淘汰和清理时以 O(1) 更新聚合值，读取统计信息无需遍历日志
+ *
+ * 统计内容：
+ * 1. 日志总数、第一次和最后一次心跳时间（来自时间戳索引）
+ * 2. 各保活状态的计数
+ * 3. 最近1小时的日志数（滑动窗口起点只随时间单向移动，均摊 O(1)）
+ *
+ * 状态计数使用可变计数器，计数归零时保留计数器，追加和删除日志不分配对象
+ *
+ * 非线程安全，由 LocalHeartbeatLogger 的锁保护
+ */
+public class HeartbeatStatistics {
+
+    private static final long RECENT_WINDOW_MS = 3600000; // 1小时
+
+    private final HeartbeatTimeIndex timeIndex;
+    private final Map<String, int[]> statusCounts = new HashMap<>();
+
+    // 滑动窗口起点：第一条时间戳晚于窗口下界的日志位置
+    private int windowStart;
+
+    public HeartbeatStatistics(HeartbeatTimeIndex timeIndex) {
+        this.timeIndex = timeIndex;
+    }
+
+    /**
+     * 日志追加后调用
+     * @param status 保活状态
+     */
+    public void onAdded(String status) {
+        int[] count = statusCounts.get(status);
+        if (count == null) {
+            count = new int[1];
+            statusCounts.put(status, count);
+        }
+        count[0]++;
+    }
+
+    /**
+     * 最旧的一条日志被删除前调用
+     * @param status 将被删除的日志的保活状态
+     */
+    public void onRemoved(String status) {
+        int[] count = statusCounts.get(status);
+        if (count != null && count[0] > 0) {
+            count[0]--;
+        }
+
+        windowStart = Math.max(0, windowStart - 1);
+    }
+
+    /**
+     * 日志清空后调用
+     */
+    public void clear() {
+        statusCounts.clear();
+        windowStart = 0;
+    }
+
+    /**
+     * 获取指定状态的日志数
+     * @param status 保活状态
+     * @return 日志数
+     */
+    public int getStatusCount(String status) {
+        int[] count = statusCounts.get(status);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * 获取最近1小时的日志数
+     * @param now 当前时间戳
+     * @return 日志数
+     */
+    public int getRecentHourCount(long now) {
+        long windowBegin = now - RECENT_WINDOW_MS;
+        int size = timeIndex.size();
+
+        if (windowStart > size) {
+            windowStart = size;
+        }
+
+        // 正常情况下窗口只向后移动；系统时间回拨时向前回退
+        while (windowStart < size && timeIndex.get(windowStart) <= windowBegin) {
+            windowStart++;
+        }
+        while (windowStart > 0 && timeIndex.get(windowStart - 1) > windowBegin) {
+            windowStart--;
+        }
+
+        return size - windowStart;
+    }
+
+    /**
+     * 生成统计快照
+     * @param now 当前时间戳
+     * @return 统计信息JSON对象
+     */
+    public JSONObject toJson(long now) {
+        JSONObject stats = new JSONObject();
+
+        int totalCount = timeIndex.size();
+        stats.put("totalCount", totalCount);
+
+        if (totalCount == 0) {
+            stats.put("firstHeartbeat", 0);
+            stats.put("lastHeartbeat", 0);
+            stats.put("averageInterval", 0);
+            stats.put("activeCount", 0);
+            stats.put("inactiveCount", 0);
+            stats.put("recentHourCount", 0);
+            return stats;
+        }
+
+        // 第一次和最后一次心跳时间
+        long firstHeartbeat = timeIndex.get(0);
+        long lastHeartbeat = timeIndex.get(totalCount - 1);
+        stats.put("firstHeartbeat", firstHeartbeat);
+        stats.put("lastHeartbeat", lastHeartbeat);
+
+        // 平均心跳间隔
+        if (totalCount > 1) {
+            stats.put("averageInterval", (lastHeartbeat - firstHeartbeat) / (totalCount - 1));
+        } else {
+            stats.put("averageInterval", 0);
+        }
+
+        // 保活状态计数
+        stats.put("activeCount", getStatusCount("active"));
+        stats.put("inactiveCount", getStatusCount("inactive"));
+
+        JSONObject statusJson = new JSONObject();
+        for (Map.Entry<String, int[]> entry : statusCounts.entrySet()) {
+            if (entry.getValue()[0] > 0) {
+                statusJson.put(String.valueOf(entry.getKey()), entry.getValue()[0]);
+            }
+        }
+        stats.put("statusCounts", statusJson);
+
+        // 最近1小时的日志数
+        stats.put("recentHourCount", getRecentHourCount(now));
+
+        return stats;
+    }
+}
@@ -0,0 +1,111 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 心跳日志全局字符串字典
+ * 设备ID、版本号、型号、状态、网络类型等字段在每次心跳中几乎不变，
+ * 编码时只写入字典编号
+ *
+ * 编号一经分配永不改变；新增条目同步提交，保证日志写入前字典已落盘
+ * 过长的字符串或字典已满时由编码器内联写入，不进入字典
+ */
+public class HeartbeatStringDictionary {
+
+    private static final String TAG = "HeartbeatStringDictionary";
+
+    // 字典容量与可入字典的最大字符串长度
+    public static final int MAX_ENTRIES = 1024;
+    public static final int MAX_STRING_LENGTH = 64;
+
+    private final SharedPreferences prefs;
+    private final String key;
+    private final List<String> entries = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * @param prefs 存储字典的SharedPreferences
+     * @param key 字典对应的键
+     */
+    public HeartbeatStringDictionary(SharedPreferences prefs, String key) {
+        this.prefs = prefs;
+        this.key = key;
+        load();
+    }
+
+    private void load() {
+        try {
+            String jsonString = prefs.getString(key, null);
+            if (jsonString == null) {
+                return;
+            }
+
+            JSONArray jsonArray = JSON.parseArray(jsonString);
+            for (int i = 0; i < jsonArray.size(); i++) {
+                String value = jsonArray.getString(i);
+                ids.put(value, entries.size());
+                entries.add(value);
+            }
+
+            Log.d(TAG, "加载字符串字典，条目数: " + entries.size());
+
+        } catch (Exception e) {
+            Log.e(TAG, "加载字符串字典失败", e);
+        }
+    }
+
+    /**
+     * 获取字符串的编号，不存在时分配新编号
+     * @param value 字符串
+     * @return 编号，无法入字典时返回-1
+     */
+    public synchronized int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+
+        if (value.length() > MAX_STRING_LENGTH || entries.size() >= MAX_ENTRIES) {
+            return -1;
+        }
+
+        int newId = entries.size();
+        entries.add(value);
+        ids.put(value, newId);
+
+        if (!prefs.edit().putString(key, JSON.toJSONString(entries)).commit()) {
+            // 未能落盘的编号不能被引用
+            entries.remove(newId);
+            ids.remove(value);
+            Log.w(TAG, "字符串字典保存失败");
+            return -1;
+        }
+
+        return newId;
+    }
+
+    /**
+     * 获取编号对应的字符串
+     * @param id 编号
+     * @return 字符串，编号无效时返回null
+     */
+    public synchronized String get(int id) {
+        if (id < 0 || id >= entries.size()) {
+            return null;
+        }
+        return entries.get(id);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,118 @@
+package io.dcloud.feature.keepalive;
+
+/**
+ * 心跳时间戳索引
+ * 使用基本类型 long[] 循环数组保存与日志一一对应的单调时间戳，
+ * 支持二分查找，范围查询复杂度为 O(log n + k)
+ *
+ * 心跳按时间顺序追加；若出现回拨的时间戳，索引中记为前一条的时间戳以保持单调
+ */
+public class HeartbeatTimeIndex {
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private long[] timestamps;
+    private int start;
+    private int size;
+
+    public HeartbeatTimeIndex() {
+        this.timestamps = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 追加时间戳
+     * @param timestamp 时间戳
+     */
+    public void add(long timestamp) {
+        if (size == timestamps.length) {
+            grow();
+        }
+
+        if (size > 0) {
+            timestamp = Math.max(timestamp, get(size - 1));
+        }
+
+        timestamps[(start + size) % timestamps.length] = timestamp;
+        size++;
+    }
+
+    /**
+     * 删除最旧的N个时间戳
+     * @param n 删除数量
+     */
+    public void removeFirst(int n) {
+        int removeCount = Math.min(n, size);
+        start = (start + removeCount) % timestamps.length;
+        size -= removeCount;
+
+        if (size == 0) {
+            start = 0;
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * 获取第i个时间戳（0为最旧）
+     */
+    public long get(int i) {
+        return timestamps[(start + i) % timestamps.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 查找第一个时间戳 >= time 的位置
+     * @param time 时间戳
+     * @return 位置，不存在时返回 size
+     */
+    public int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 查找第一个时间戳 > time 的位置
+     * @param time 时间戳
+     * @return 位置，不存在时返回 size
+     */
+    public int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void grow() {
+        long[] newTimestamps = new long[timestamps.length * 2];
+        for (int i = 0; i < size; i++) {
+            newTimestamps[i] = get(i);
+        }
+        timestamps = newTimestamps;
+        start = 0;
+    }
+}
@@ -1,5 +1,6 @@
 package io.dcloud.feature.keepalive;
 
+import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
 /**
@@ -19,6 +20,12 @@ public class KeepAliveConfig {
     // 最大重试次数
     private int maxRetryCount = 3;
     
+    // 日志持久化模式（immediate / batched / on_demand）
+    private String logDurability = LogWriteBuffer.DURABILITY_BATCHED;
+    
+    // 错过心跳的处理策略（skip / coalesce / catch_up_once）
+    private String missedBeatPolicy = KeepAliveTimerWheel.MISSED_COALESCE;
+    
     // 通知配置
     private JSONObject notificationConfig;
     
@@ -68,6 +75,28 @@ public class KeepAliveConfig {
         }
     }
     
+    public String getLogDurability() {
+        return logDurability;
+    }
+    
+    public void setLogDurability(String logDurability) {
+        if (LogWriteBuffer.DURABILITY_IMMEDIATE.equals(logDurability)
+            || LogWriteBuffer.DURABILITY_BATCHED.equals(logDurability)
+            || LogWriteBuffer.DURABILITY_ON_DEMAND.equals(logDurability)) {
+            this.logDurability = logDurability;
+        }
+    }
+    
+    public String getMissedBeatPolicy() {
+        return missedBeatPolicy;
+    }
+    
+    public void setMissedBeatPolicy(String missedBeatPolicy) {
+        if (KeepAliveTimerWheel.isValidMissedPolicy(missedBeatPolicy)) {
+            this.missedBeatPolicy = missedBeatPolicy;
+        }
+    }
+    
     public JSONObject getNotificationConfig() {
         return notificationConfig;
     }
@@ -192,6 +221,14 @@ public class KeepAliveConfig {
         return adaptationConfig.getBooleanValue("enableAutoStart");
     }
     
+    /**
+     * 复制配置（深拷贝），用于比较配置变化
+     * @return 新的KeepAliveConfig
+     */
+    public KeepAliveConfig copy() {
+        return fromJson(JSON.parseObject(toJson().toJSONString()));
+    }
+    
     /**
      * 转换为JSON对象
      * @return JSONObject
@@ -201,6 +238,8 @@ public class KeepAliveConfig {
         json.put("enabled", enabled);
         json.put("heartbeatInterval", heartbeatInterval);
         json.put("maxRetryCount", maxRetryCount);
+        json.put("logDurability", logDurability);
+        json.put("missedBeatPolicy", missedBeatPolicy);
         json.put("notificationConfig", notificationConfig);
         json.put("adaptationConfig", adaptationConfig);
         return json;
@@ -227,6 +266,12 @@ public class KeepAliveConfig {
         if (json.containsKey("maxRetryCount")) {
             config.setMaxRetryCount(json.getIntValue("maxRetryCount"));
         }
+        if (json.containsKey("logDurability")) {
+            config.setLogDurability(json.getString("logDurability"));
+        }
+        if (json.containsKey("missedBeatPolicy")) {
+            config.setMissedBeatPolicy(json.getString("missedBeatPolicy"));
+        }
         if (json.containsKey("notificationConfig")) {
             config.setNotificationConfig(json.getJSONObject("notificationConfig"));
         }
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 
 /**
@@ -17,9 +18,22 @@ public class KeepAliveManager {
     
     private Context context;
     private KeepAliveConfig config;
+    // 最近一次应用的配置快照（调用方可能直接修改 config 后再调用 updateConfig，需要独立副本比较差异）
+    private KeepAliveConfig appliedConfig;
     private boolean isInitialized = false;
     private boolean isRunning = false;
-    private LocalHeartbeatLogger heartbeatLogger;
+    private volatile LocalHeartbeatLogger heartbeatLogger;
+    
+    // 生效心跳间隔变化时同步日志的期望间隔（暂停期间保持不变）
+    private final HeartbeatIntervalArbiter.Listener intervalListener = new HeartbeatIntervalArbiter.Listener() {
+        @Override
+        public void onIntervalChanged(int previous, int current, String reason) {
+            int interval = HeartbeatIntervalArbiter.getInstance().getEffectiveInterval();
+            if (heartbeatLogger != null && interval != HeartbeatIntervalArbiter.PAUSED_INTERVAL) {
+                heartbeatLogger.setExpectedInterval(interval);
+            }
+        }
+    };
     
     private KeepAliveManager() {
         // 私有构造函数，实现单例模式
@@ -58,12 +72,23 @@ public class KeepAliveManager {
             
             this.context = context.getApplicationContext();
             this.config = config;
+            KeepAliveStore.getInstance(this.context).setLogDurability(config.getLogDurability());
             
-            // 初始化心跳日志管理器
+            // 初始化心跳日志管理器，重复初始化时先关闭旧的，注销其写入缓冲
+            if (this.heartbeatLogger != null) {
+                this.heartbeatLogger.close();
+            }
             this.heartbeatLogger = new LocalHeartbeatLogger(this.context);
             
             // 应用设备适配策略
             applyDeviceAdaptationStrategy();
+            heartbeatLogger.setExpectedInterval(this.config.getHeartbeatInterval());
+            
+            // 心跳间隔由仲裁器统一计算，配置间隔作为基准
+            HeartbeatIntervalArbiter arbiter = HeartbeatIntervalArbiter.getInstance();
+            arbiter.setBaseInterval(this.config.getHeartbeatInterval());
+            arbiter.addListener(intervalListener);
+            this.appliedConfig = this.config.copy();
             
             this.isInitialized = true;
             
@@ -174,6 +199,9 @@ public class KeepAliveManager {
             Intent serviceIntent = new Intent(context, KeepAliveService.class);
             context.stopService(serviceIntent);
             
+            // 撤回保活策略的间隔投票，下次启动时重新评估
+            HeartbeatIntervalArbiter.getInstance().withdraw(HeartbeatIntervalArbiter.SOURCE_STRATEGY);
+            
             isRunning = false;
             Log.d(TAG, "保活服务已停止");
             
@@ -229,14 +257,12 @@ public class KeepAliveManager {
                 return false;
             }
             
+            KeepAliveConfig previous = appliedConfig;
             this.config = newConfig;
+            this.appliedConfig = newConfig.copy();
             
-            // 如果服务正在运行，需要重启以应用新配置
-            if (isRunning) {
-                Log.d(TAG, "重启服务以应用新配置");
-                stop();
-                return start();
-            }
+            // 按差异应用，不重启前台服务
+            applyConfigChanges(previous, appliedConfig);
             
             Log.d(TAG, "配置更新成功");
             return true;
@@ -247,6 +273,52 @@ public class KeepAliveManager {
         }
     }
     
+    /**
+     * 按差异应用配置
+     * 心跳间隔只重新调度下一次心跳；只有通知配置变化才通知前台服务更新通知；禁用时停止服务
+     * @param previous 上次应用的配置
+     * @param current 新配置
+     */
+    private void applyConfigChanges(KeepAliveConfig previous, KeepAliveConfig current) {
+        if (previous == null || previous.getHeartbeatInterval() != current.getHeartbeatInterval()) {
+            Log.d(TAG, "心跳间隔变化: " + (previous != null ? previous.getHeartbeatInterval() : -1)
+                + "ms -> " + current.getHeartbeatInterval() + "ms");
+            HeartbeatIntervalArbiter.getInstance().setBaseInterval(current.getHeartbeatInterval());
+        }
+        
+        if (previous == null || !previous.getLogDurability().equals(current.getLogDurability())) {
+            KeepAliveStore.getInstance(context).setLogDurability(current.getLogDurability());
+        }
+        
+        if (previous == null || !previous.getMissedBeatPolicy().equals(current.getMissedBeatPolicy())) {
+            HeartbeatManager.getInstance().setMissedBeatPolicy(current.getMissedBeatPolicy());
+        }
+        
+        if (!current.isEnabled()) {
+            if (isRunning) {
+                Log.d(TAG, "保活功能已禁用，停止服务");
+                stop();
+            }
+            return;
+        }
+        
+        if (isRunning && (previous == null
+            || !previous.getNotificationConfig().equals(current.getNotificationConfig()))) {
+            Log.d(TAG, "通知配置变化，更新前台通知");
+            JSONObject notificationConfig = current.getNotificationConfig();
+            NotificationHelper helper = NotificationHelper.getInstance();
+            helper.setIcon(notificationConfig.getString("icon"));
+            helper.setShowProgress(notificationConfig.getBooleanValue("showProgress"));
+            
+            // 经更新通知的Intent交给运行中的前台服务重建通知，服务不重启
+            Intent updateIntent = new Intent(context, KeepAliveService.class);
+            updateIntent.setAction(KeepAliveService.ACTION_UPDATE_NOTIFICATION);
+            updateIntent.putExtra("title", notificationConfig.getString("title"));
+            updateIntent.putExtra("content", notificationConfig.getString("content"));
+            context.startService(updateIntent);
+        }
+    }
+    
     /**
      * 获取当前配置
      * @return KeepAliveConfig配置对象
@@ -360,6 +432,40 @@ public class KeepAliveManager {
         return heartbeatLogger;
     }
     
+    /**
+     * 确保心跳日志管理器已创建，已存在时直接返回
+     * 插件模块只初始化心跳管理器、不调用 init，由此创建日志供心跳管线写入
+     * @param context 上下文
+     * @return LocalHeartbeatLogger
+     */
+    public synchronized LocalHeartbeatLogger ensureHeartbeatLogger(Context context) {
+        if (heartbeatLogger == null) {
+            heartbeatLogger = new LocalHeartbeatLogger(context.getApplicationContext());
+            
+            HeartbeatIntervalArbiter arbiter = HeartbeatIntervalArbiter.getInstance();
+            int interval = arbiter.getEffectiveInterval();
+            if (interval != HeartbeatIntervalArbiter.PAUSED_INTERVAL) {
+                heartbeatLogger.setExpectedInterval(interval);
+            }
+            arbiter.addListener(intervalListener);
+        }
+        return heartbeatLogger;
+    }
+    
+    /**
+     * 获取长期心跳趋势
+     * @param resolution 精度（minute / hour）
+     * @param startTime 开始时间戳
+     * @param endTime 结束时间戳
+     * @return 汇总桶列表
+     */
+    public JSONArray getHeartbeatTrend(String resolution, long startTime, long endTime) {
+        if (heartbeatLogger == null) {
+            return new JSONArray();
+        }
+        return heartbeatLogger.getTrend(resolution, startTime, endTime);
+    }
+    
     /**
      * 获取策略信息
      * @return 策略信息JSON
@@ -423,6 +529,9 @@ public class KeepAliveManager {
                 stats.put("heartbeatStats", heartbeatStats);
             }
             
+            // 获取保活事件统计
+            stats.put("eventStats", EventJournal.getInstance(context).getStatistics());
+            
             // 获取内存状态
             MemoryPressureHandler memoryHandler = new MemoryPressureHandler(context);
             JSONObject memoryStatus = memoryHandler.checkMemoryStatus();
@@ -53,10 +53,22 @@ public class KeepAliveModule extends UniModule {
             // 解析配置
             config = parseConfig(options);
             
+            // 尽早打开统一存储，使其在后台线程加载
+            KeepAliveStore.getInstance(context).setLogDurability(config.getLogDurability());
+            
             // 初始化各个管理器
             PermissionManager.getInstance().init(context);
             DeviceAdapterManager.getInstance().init(context);
             HeartbeatManager.getInstance().init(context, config.getHeartbeatInterval());
+            HeartbeatManager.getInstance().setMissedBeatPolicy(config.getMissedBeatPolicy());
+            
+            // 配置间隔作为仲裁基准，心跳使用仲裁后的生效间隔
+            HeartbeatIntervalArbiter arbiter = HeartbeatIntervalArbiter.getInstance();
+            arbiter.setBaseInterval(config.getHeartbeatInterval());
+            HeartbeatManager.getInstance().updateInterval(arbiter.getEffectiveInterval());
+            
+            // 本地二进制心跳日志（统计、趋势），由心跳管线写入
+            KeepAliveManager.getInstance().ensureHeartbeatLogger(context);
             NotificationHelper.getInstance().init(context, config.getNotificationConfig());
             
             isInitialized = true;
@@ -353,6 +365,114 @@ public class KeepAliveModule extends UniModule {
         }
     }
     
+    /**
+     * 导出心跳日志到缓存目录下的文件，只返回文件路径和记录数
+     * 
+     * @param options 导出参数（gzip: 是否压缩）
+     * @param callback 回调函数
+     */
+    @UniJSMethod(uiThread = false)
+    public void exportHeartbeatLogs(JSONObject options, UniJSCallback callback) {
+        Log.d(TAG, "导出心跳日志");
+        
+        try {
+            boolean gzip = options != null && options.getBooleanValue("gzip");
+            
+            JSONObject result = HeartbeatManager.getInstance().exportHeartbeatLogs(gzip);
+            result.put("success", true);
+            
+            callback.invoke(result);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "导出心跳日志失败: " + e.getMessage(), e);
+            invokeError(callback, "导出失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 分段获取心跳日志
+     * 
+     * @param options 查询参数（offset: 起始位置，count: 每段数量）
+     * @param callback 回调函数
+     */
+    @UniJSMethod(uiThread = false)
+    public void getHeartbeatLogsChunk(JSONObject options, UniJSCallback callback) {
+        Log.d(TAG, "分段获取心跳日志");
+        
+        try {
+            int offset = options != null ? options.getIntValue("offset") : 0;
+            int count = options != null ? options.getIntValue("count") : 20;
+            if (count <= 0) count = 20;
+            
+            JSONObject result = HeartbeatManager.getInstance().getHeartbeatLogsChunk(offset, count);
+            result.put("success", true);
+            
+            callback.invoke(result);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "分段获取心跳日志失败: " + e.getMessage(), e);
+            invokeError(callback, "获取失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 增量获取心跳日志，只返回游标之后的新日志
+     * 
+     * @param options 查询参数（cursor: 上次返回的 nextCursor，首次传0；maxCount: 最多返回数量）
+     * @param callback 回调函数
+     */
+    @UniJSMethod(uiThread = false)
+    public void getHeartbeatLogsSince(JSONObject options, UniJSCallback callback) {
+        Log.d(TAG, "增量获取心跳日志");
+        
+        try {
+            long cursor = options != null ? options.getLongValue("cursor") : 0;
+            int maxCount = options != null ? options.getIntValue("maxCount") : 100;
+            if (maxCount <= 0) maxCount = 100;
+            
+            JSONObject result = HeartbeatManager.getInstance().getHeartbeatLogsSince(cursor, maxCount);
+            result.put("success", true);
+            
+            callback.invoke(result);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "增量获取心跳日志失败: " + e.getMessage(), e);
+            invokeError(callback, "获取失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取长期心跳趋势（分钟/小时汇总）
+     * 
+     * @param options 查询参数（resolution: minute / hour，默认 hour；startTime、endTime: 时间范围，默认最近24小时）
+     * @param callback 回调函数
+     */
+    @UniJSMethod(uiThread = false)
+    public void getHeartbeatTrend(JSONObject options, UniJSCallback callback) {
+        Log.d(TAG, "获取心跳趋势");
+        
+        try {
+            long now = System.currentTimeMillis();
+            String resolution = options != null ? options.getString("resolution") : null;
+            if (resolution == null) resolution = HeartbeatRollups.RESOLUTION_HOUR;
+            long startTime = options != null && options.containsKey("startTime")
+                ? options.getLongValue("startTime") : now - 24 * 60 * 60 * 1000L;
+            long endTime = options != null && options.containsKey("endTime")
+                ? options.getLongValue("endTime") : now;
+            
+            JSONObject result = new JSONObject();
+            result.put("success", true);
+            result.put("resolution", resolution);
+            result.put("trend", KeepAliveManager.getInstance().getHeartbeatTrend(resolution, startTime, endTime));
+            
+            callback.invoke(result);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "获取心跳趋势失败: " + e.getMessage(), e);
+            invokeError(callback, "获取失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 手动触发心跳
      * 
@@ -418,6 +538,14 @@ public class KeepAliveModule extends UniModule {
                 config.setMaxRetryCount(options.getIntValue("maxRetryCount"));
             }
             
+            if (options.containsKey("logDurability")) {
+                config.setLogDurability(options.getString("logDurability"));
+            }
+            
+            if (options.containsKey("missedBeatPolicy")) {
+                config.setMissedBeatPolicy(options.getString("missedBeatPolicy"));
+            }
+            
             JSONObject notificationConfig = options.getJSONObject("notificationConfig");
             if (notificationConfig != null) {
                 config.setNotificationConfig(notificationConfig);
@@ -0,0 +1,180 @@
+package io.dcloud.feature.keepalive;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 插件后台调度器
+ * 心跳、性能优化、电池优化、内存监控、日志批量写入等所有定时任务共用一个后台线程，
+ * 序列化、SharedPreferences 写入、Binder 调用不再占用运行 uni-app WebView 的主线程；
+ * 主线程只处理通知更新等界面相关的工作
+ *
+ * 使用说明：
+ * 1. 首次提交任务时自动创建线程，shutdown() 之后再次提交会重新创建
+ * 2. 各模块只持有 Runnable，通过 post/postDelayed/cancel 调度，不持有线程的 Handler
+ * 3. 所有任务在同一线程串行执行，任务中不要执行阻塞等待
+ * 4. 时间来源可替换（测试时注入可控时钟），默认使用系统时钟
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class KeepAliveScheduler {
+
+    private static final String TAG = "KeepAliveScheduler";
+
+    private static final String THREAD_NAME = "CB-KeepAlive-Scheduler";
+
+    /**
+     * 时间来源
+     */
+    public interface TimeSource {
+        /**
+         * 开机以来的时间（含休眠），用于计算间隔
+         */
+        long elapsedRealtime();
+
+        /**
+         * 当前时间，用于记录时间戳
+         */
+        long currentTimeMillis();
+    }
+
+    /**
+     * 系统时钟
+     */
+    public static final TimeSource SYSTEM_TIME = new TimeSource() {
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    // 单例实例
+    private static volatile KeepAliveScheduler instance;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private volatile TimeSource timeSource = SYSTEM_TIME;
+
+    /**
+     * 获取单例实例
+     */
+    public static KeepAliveScheduler getInstance() {
+        if (instance == null) {
+            synchronized (KeepAliveScheduler.class) {
+                if (instance == null) {
+                    instance = new KeepAliveScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private KeepAliveScheduler() {
+    }
+
+    /**
+     * 启动调度线程（已启动时直接返回）
+     */
+    public synchronized void start() {
+        ensureHandler();
+    }
+
+    /**
+     * 停止调度线程，已提交的任务执行完后线程退出，未到期的延迟任务被丢弃
+     */
+    public synchronized void shutdown() {
+        if (thread == null) {
+            return;
+        }
+
+        Log.d(TAG, "停止调度线程");
+        thread.quitSafely();
+        thread = null;
+        handler = null;
+    }
+
+    /**
+     * 调度线程是否在运行
+     */
+    public synchronized boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * 提交任务
+     * @param task 任务
+     * @return 是否提交成功
+     */
+    public boolean post(Runnable task) {
+        return postDelayed(task, 0);
+    }
+
+    /**
+     * 延迟提交任务
+     * @param task 任务
+     * @param delayMillis 延迟（毫秒）
+     * @return 是否提交成功
+     */
+    public synchronized boolean postDelayed(Runnable task, long delayMillis) {
+        if (task == null) {
+            return false;
+        }
+        return ensureHandler().postDelayed(task, Math.max(0, delayMillis));
+    }
+
+    /**
+     * 取消尚未执行的任务
+     * @param task 任务
+     */
+    public synchronized void cancel(Runnable task) {
+        if (handler != null && task != null) {
+            handler.removeCallbacks(task);
+        }
+    }
+
+    /**
+     * 当前是否在调度线程上
+     */
+    public synchronized boolean isSchedulerThread() {
+        return thread != null && Thread.currentThread() == thread;
+    }
+
+    /**
+     * 获取调度线程的Looper（需要Looper的系统回调使用）
+     */
+    public synchronized Looper getLooper() {
+        return ensureHandler().getLooper();
+    }
+
+    /**
+     * 替换时间来源
+     * @param timeSource 时间来源，为null时恢复系统时钟
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        this.timeSource = timeSource != null ? timeSource : SYSTEM_TIME;
+    }
+
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    private Handler ensureHandler() {
+        if (handler == null) {
+            thread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+            Log.d(TAG, "调度线程已启动");
+        }
+        return handler;
+    }
+}
@@ -103,6 +103,9 @@ public class KeepAliveService extends Service {
         
         isRunning = false;
         
+        // 写出缓冲中的日志
+        KeepAliveStore.getInstance(this).flushLogs();
+        
         // 释放唤醒锁
         releaseWakeLock();
         
@@ -117,6 +120,9 @@ public class KeepAliveService extends Service {
             } else {
                 startService(restartIntent);
             }
+        } else {
+            // 不再重启时，没有定时任务则停止调度线程
+            KeepAliveTimerWheel.getInstance().shutdownSchedulerIfIdle();
         }
         
         super.onDestroy();
@@ -194,6 +200,7 @@ public class KeepAliveService extends Service {
     /**
      * 停止前台服务
      */
+    @SuppressWarnings("deprecation")
     private void stopForegroundService() {
         Log.d(TAG, "停止前台服务");
         
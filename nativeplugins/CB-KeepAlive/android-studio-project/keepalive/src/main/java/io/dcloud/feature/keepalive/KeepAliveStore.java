@@ -0,0 +1,528 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 保活插件统一存储
+ *
+ * 功能说明：
+ * - 每个进程只打开一次，在后台线程加载
+ * - 统一管理所有配置键和日志文件，提供类型化访问方法
+ * - 首次打开时迁移旧版的四个SharedPreferences文件
+ * - 统一管理日志写入缓冲的持久化模式，内存修剪时写出所有缓冲
+ *
+ * 替代的旧版存储：
+ * - cb_heartbeat_prefs（HeartbeatManager 设备ID和心跳日志；心跳日志与 heartbeat_logs 重复，不再迁移）
+ * - heartbeat_logs（LocalHeartbeatLogger 心跳日志）
+ * - keep_alive_prefs（HeartbeatCollector 设备ID）
+ * - cb_keepalive_prefs（BootReceiver 自启动开关）
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class KeepAliveStore {
+
+    private static final String TAG = "KeepAliveStore";
+
+    // 存储文件
+    private static final String PREFS_NAME = "cb_keepalive_store";
+    private static final String LOG_DIR = "cb_keepalive";
+    private static final String LEGACY_RING_SUFFIX = ".ring";
+    private static final String ROLLUP_FILE = "heartbeat_rollups.bin";
+
+    // 日志文件
+    public static final String LOG_HEARTBEAT = "heartbeat_logs";
+    public static final String LOG_EVENTS = "event_journal";
+    
+    // 旧版 HeartbeatManager 单独保存的JSON心跳日志，与 LOG_HEARTBEAT 重复，加载时删除
+    private static final String OBSOLETE_LOG_MANAGER_HEARTBEAT = "manager_heartbeat_logs";
+
+    private static final int LOG_CAPACITY = 128 * 1024; // 128KB
+    private static final int LOG_MAX_RECORDS = 100;
+    
+    // 原始心跳按UTC日分段（UTC零点切分，非本地时区零点），按时间清理时整段删除
+    // 日志中的每条记录是一个编码数据块（一次写出的一批心跳），上限按块计数：
+    // 立即写入模式下每次心跳一个数据块，最小间隔15秒时可保留7天；批量写入时每块最多20条，可保留更久
+    private static final int HEARTBEAT_LOG_CAPACITY = 4 * 1024 * 1024; // 4MB
+    private static final int HEARTBEAT_LOG_MAX_BLOCKS = 7 * 24 * 240;
+    private static final long HEARTBEAT_LOG_SEGMENT_PERIOD = 24 * 60 * 60 * 1000L; // 1天
+
+    // 旧版心跳环形日志文件的大小，迁移时按此解析
+    private static final int LEGACY_HEARTBEAT_RING_CAPACITY = 256 * 1024; // 256KB
+    private static final int LEGACY_HEARTBEAT_RING_MAX_RECORDS = 240;
+
+    // 保活事件（重启、异常、开机启动）独立保存，不占用心跳日志容量
+    private static final int EVENT_LOG_CAPACITY = 64 * 1024; // 64KB
+    private static final int EVENT_LOG_MAX_RECORDS = 200;
+
+    // 配置键
+    private static final String KEY_DEVICE_ID = "device_id";
+    private static final String KEY_AUTO_START_ENABLED = "auto_start_enabled";
+    private static final String KEY_KEEP_ALIVE_ENABLED = "keep_alive_enabled";
+    private static final String KEY_LEGACY_MIGRATED = "legacy_migrated";
+    private static final String KEY_STRING_DICTIONARY = "heartbeat_string_dictionary";
+    private static final String KEY_HEARTBEAT_LOG_LOW_WATER = "heartbeat_log_low_water";
+
+    // 旧版存储
+    private static final String LEGACY_HEARTBEAT_PREFS = "cb_heartbeat_prefs";
+    private static final String LEGACY_LOGGER_PREFS = "heartbeat_logs";
+    private static final String LEGACY_COLLECTOR_PREFS = "keep_alive_prefs";
+    private static final String LEGACY_BOOT_PREFS = "cb_keepalive_prefs";
+
+    // 等待后台加载的最长时间
+    private static final long LOAD_TIMEOUT_MS = 5000;
+
+    // 单例实例
+    private static volatile KeepAliveStore instance;
+
+    private final Context context;
+    private final CountDownLatch loadLatch = new CountDownLatch(1);
+    private final Map<String, HeartbeatSegmentLog> logs = new HashMap<>();
+    private HeartbeatRollups rollups;
+    private HeartbeatStringDictionary stringDictionary;
+    private final List<LogWriteBuffer<?>> writeBuffers = new ArrayList<>();
+    private String logDurability = LogWriteBuffer.DURABILITY_BATCHED;
+    private volatile SharedPreferences prefs;
+
+    /**
+     * 获取单例实例，首次调用时在后台线程开始加载
+     */
+    public static KeepAliveStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (KeepAliveStore.class) {
+                if (instance == null) {
+                    instance = new KeepAliveStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private KeepAliveStore(Context context) {
+        this.context = context;
+        
+        // 内存修剪时写出缓冲中的日志，进程随时可能被回收
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                flushLogs();
+            }
+            
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+            
+            @Override
+            public void onLowMemory() {
+                flushLogs();
+            }
+        });
+
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        }, "CB-KeepAlive-Store");
+        loader.start();
+    }
+
+    /**
+     * 后台加载：打开存储文件、迁移旧版数据、映射日志文件
+     */
+    private void load() {
+        try {
+            long startTime = System.currentTimeMillis();
+
+            SharedPreferences loadedPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            // 触发XML解析，后续访问不再阻塞
+            loadedPrefs.getAll();
+            prefs = loadedPrefs;
+
+            synchronized (logs) {
+                openLogLocked(LOG_HEARTBEAT);
+                deleteObsoleteLog(OBSOLETE_LOG_MANAGER_HEARTBEAT);
+
+                if (!prefs.getBoolean(KEY_LEGACY_MIGRATED, false)) {
+                    migrateLegacyStores();
+                }
+            }
+
+            Log.d(TAG, "统一存储加载完成，耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+
+        } catch (Exception e) {
+            Log.e(TAG, "统一存储加载失败", e);
+        } finally {
+            loadLatch.countDown();
+        }
+    }
+
+    /**
+     * 等待后台加载完成
+     */
+    private void awaitLoaded() {
+        try {
+            if (!loadLatch.await(LOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "等待统一存储加载超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (prefs == null) {
+            synchronized (this) {
+                if (prefs == null) {
+                    prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                }
+            }
+        }
+    }
+
+    /**
+     * 迁移旧版的四个SharedPreferences文件
+     */
+    private void migrateLegacyStores() {
+        try {
+            SharedPreferences.Editor editor = prefs.edit();
+
+            SharedPreferences heartbeatPrefs = context.getSharedPreferences(LEGACY_HEARTBEAT_PREFS, Context.MODE_PRIVATE);
+            String deviceId = heartbeatPrefs.getString("device_id", null);
+            if (deviceId != null) {
+                editor.putString(KEY_DEVICE_ID, deviceId);
+            }
+
+            SharedPreferences loggerPrefs = context.getSharedPreferences(LEGACY_LOGGER_PREFS, Context.MODE_PRIVATE);
+            migrateLegacyLog(loggerPrefs.getString("logs", null), LOG_HEARTBEAT);
+
+            // HeartbeatCollector 的旧设备ID不再使用，所有心跳共用 HeartbeatManager 的设备ID
+            SharedPreferences collectorPrefs = context.getSharedPreferences(LEGACY_COLLECTOR_PREFS, Context.MODE_PRIVATE);
+
+            SharedPreferences bootPrefs = context.getSharedPreferences(LEGACY_BOOT_PREFS, Context.MODE_PRIVATE);
+            if (bootPrefs.contains(KEY_AUTO_START_ENABLED)) {
+                editor.putBoolean(KEY_AUTO_START_ENABLED, bootPrefs.getBoolean(KEY_AUTO_START_ENABLED, true));
+            }
+            if (bootPrefs.contains(KEY_KEEP_ALIVE_ENABLED)) {
+                editor.putBoolean(KEY_KEEP_ALIVE_ENABLED, bootPrefs.getBoolean(KEY_KEEP_ALIVE_ENABLED, true));
+            }
+
+            editor.putBoolean(KEY_LEGACY_MIGRATED, true);
+            editor.commit();
+
+            deleteLegacyPrefs(LEGACY_HEARTBEAT_PREFS, heartbeatPrefs);
+            deleteLegacyPrefs(LEGACY_LOGGER_PREFS, loggerPrefs);
+            deleteLegacyPrefs(LEGACY_COLLECTOR_PREFS, collectorPrefs);
+            deleteLegacyPrefs(LEGACY_BOOT_PREFS, bootPrefs);
+
+            Log.d(TAG, "旧版存储迁移完成");
+
+        } catch (Exception e) {
+            Log.e(TAG, "旧版存储迁移失败", e);
+        }
+    }
+
+    /**
+     * 将旧版JSON数组日志逐条追加到日志文件
+     */
+    private void migrateLegacyLog(String jsonString, String logName) {
+        if (jsonString == null || jsonString.isEmpty()) {
+            return;
+        }
+
+        try {
+            HeartbeatSegmentLog segmentLog = logs.get(logName);
+            if (segmentLog == null || segmentLog.size() > 0) {
+                return;
+            }
+
+            JSONArray jsonArray = JSON.parseArray(jsonString);
+            for (int i = 0; i < jsonArray.size(); i++) {
+                byte[] payload = jsonArray.getJSONObject(i).toJSONString().getBytes(StandardCharsets.UTF_8);
+                segmentLog.append(payload);
+            }
+
+            Log.d(TAG, "迁移了 " + jsonArray.size() + " 条旧版日志到 " + logName);
+
+        } catch (Exception e) {
+            Log.e(TAG, "迁移旧版日志失败: " + logName, e);
+        }
+    }
+
+    /**
+     * 删除旧版SharedPreferences文件
+     */
+    private void deleteLegacyPrefs(String name, SharedPreferences legacyPrefs) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            context.deleteSharedPreferences(name);
+        } else {
+            legacyPrefs.edit().clear().commit();
+        }
+    }
+
+    /**
+     * 打开日志文件（调用方需持有锁或处于加载线程中）
+     */
+    private HeartbeatSegmentLog openLogLocked(String name) {
+        HeartbeatSegmentLog segmentLog = logs.get(name);
+        if (segmentLog == null) {
+            File logDir = new File(context.getFilesDir(), LOG_DIR);
+            File ringFile = new File(logDir, name + LEGACY_RING_SUFFIX);
+            if (LOG_HEARTBEAT.equals(name)) {
+                segmentLog = new HeartbeatSegmentLog(new File(logDir, name),
+                    HEARTBEAT_LOG_CAPACITY, HEARTBEAT_LOG_MAX_BLOCKS, HEARTBEAT_LOG_SEGMENT_PERIOD);
+                migrateRingLog(ringFile, LEGACY_HEARTBEAT_RING_CAPACITY, LEGACY_HEARTBEAT_RING_MAX_RECORDS, segmentLog);
+            } else if (LOG_EVENTS.equals(name)) {
+                segmentLog = new HeartbeatSegmentLog(new File(logDir, name), EVENT_LOG_CAPACITY, EVENT_LOG_MAX_RECORDS);
+                migrateRingLog(ringFile, EVENT_LOG_CAPACITY, EVENT_LOG_MAX_RECORDS, segmentLog);
+            } else {
+                segmentLog = new HeartbeatSegmentLog(new File(logDir, name), LOG_CAPACITY, LOG_MAX_RECORDS);
+                migrateRingLog(ringFile, LOG_CAPACITY, LOG_MAX_RECORDS, segmentLog);
+            }
+            logs.put(name, segmentLog);
+        }
+        return segmentLog;
+    }
+
+    /**
+     * 删除不再使用的日志文件（分段目录和旧版环形日志文件）
+     */
+    private void deleteObsoleteLog(String name) {
+        File logDir = new File(context.getFilesDir(), LOG_DIR);
+        File segmentDir = new File(logDir, name);
+        File[] files = segmentDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        if (segmentDir.delete() | new File(logDir, name + LEGACY_RING_SUFFIX).delete()) {
+            Log.d(TAG, "删除了不再使用的日志: " + name);
+        }
+    }
+
+    /**
+     * 将旧版环形日志文件中的记录迁移到分段日志，保持记录序号连续
+     */
+    private void migrateRingLog(File ringFile, int capacity, int maxRecords, HeartbeatSegmentLog segmentLog) {
+        if (!ringFile.exists()) {
+            return;
+        }
+
+        HeartbeatRingBuffer ringBuffer = null;
+        try {
+            if (segmentLog.size() == 0) {
+                ringBuffer = new HeartbeatRingBuffer(ringFile, capacity, maxRecords);
+                segmentLog.startAt(ringBuffer.getFirstSequence());
+                List<byte[]> records = ringBuffer.readAll();
+                for (byte[] payload : records) {
+                    segmentLog.append(payload);
+                }
+                segmentLog.force();
+                Log.d(TAG, "迁移了 " + records.size() + " 条环形日志到分段日志: " + ringFile.getName());
+            }
+
+        } catch (Exception e) {
+            Log.e(TAG, "迁移环形日志失败: " + ringFile.getName(), e);
+        } finally {
+            if (ringBuffer != null) {
+                ringBuffer.close();
+            }
+            ringFile.delete();
+        }
+    }
+
+    /**
+     * 获取日志文件
+     * @param name 日志名称（LOG_HEARTBEAT / LOG_EVENTS）
+     * @return 分段日志
+     */
+    public HeartbeatSegmentLog getLog(String name) {
+        awaitLoaded();
+        synchronized (logs) {
+            return openLogLocked(name);
+        }
+    }
+
+    /**
+     * 获取心跳汇总文件
+     * @return 心跳多精度汇总
+     */
+    public HeartbeatRollups getRollups() {
+        awaitLoaded();
+        synchronized (logs) {
+            if (rollups == null) {
+                rollups = new HeartbeatRollups(new File(new File(context.getFilesDir(), LOG_DIR), ROLLUP_FILE));
+            }
+            return rollups;
+        }
+    }
+    
+    /**
+     * 获取心跳日志编码使用的全局字符串字典
+     * @return 字符串字典
+     */
+    public HeartbeatStringDictionary getStringDictionary() {
+        awaitLoaded();
+        synchronized (logs) {
+            if (stringDictionary == null) {
+                stringDictionary = new HeartbeatStringDictionary(prefs, KEY_STRING_DICTIONARY);
+            }
+            return stringDictionary;
+        }
+    }
+    
+    /**
+     * 创建日志写入缓冲，使用当前的持久化模式
+     * @param name 缓冲名称
+     * @param sink 写入目标
+     * @return 日志写入缓冲
+     */
+    public <T> LogWriteBuffer<T> createWriteBuffer(String name, LogWriteBuffer.Sink<T> sink) {
+        LogWriteBuffer<T> writeBuffer = new LogWriteBuffer<>(name, sink);
+        synchronized (writeBuffers) {
+            writeBuffer.setDurability(logDurability);
+            writeBuffers.add(writeBuffer);
+        }
+        return writeBuffer;
+    }
+    
+    /**
+     * 写出并注销日志写入缓冲（缓冲的所有者关闭时调用）
+     * @param writeBuffer 日志写入缓冲
+     */
+    public void releaseWriteBuffer(LogWriteBuffer<?> writeBuffer) {
+        if (writeBuffer == null) {
+            return;
+        }
+        
+        writeBuffer.flush();
+        synchronized (writeBuffers) {
+            writeBuffers.remove(writeBuffer);
+        }
+    }
+    
+    /**
+     * 设置日志持久化模式
+     * @param durability LogWriteBuffer.DURABILITY_IMMEDIATE / DURABILITY_BATCHED / DURABILITY_ON_DEMAND
+     */
+    public void setLogDurability(String durability) {
+        if (durability == null) {
+            return;
+        }
+        
+        synchronized (writeBuffers) {
+            logDurability = durability;
+            for (LogWriteBuffer<?> writeBuffer : writeBuffers) {
+                writeBuffer.setDurability(durability);
+            }
+        }
+        Log.d(TAG, "日志持久化模式: " + durability);
+    }
+    
+    /**
+     * 写出所有缓冲中的日志并刷盘
+     * 在内存修剪、服务销毁时调用
+     */
+    public void flushLogs() {
+        List<LogWriteBuffer<?>> buffers;
+        synchronized (writeBuffers) {
+            buffers = new ArrayList<>(writeBuffers);
+        }
+        
+        for (LogWriteBuffer<?> writeBuffer : buffers) {
+            writeBuffer.flush();
+        }
+        
+        if (loadLatch.getCount() == 0) {
+            synchronized (logs) {
+                if (rollups != null) {
+                    rollups.force();
+                }
+            }
+        }
+    }
+    
+    // ---------------------------------------------------------------
+    // 类型化访问方法
+    // ---------------------------------------------------------------
+
+    /**
+     * 获取设备ID（所有心跳共用）
+     */
+    public String getDeviceId() {
+        awaitLoaded();
+        return prefs.getString(KEY_DEVICE_ID, null);
+    }
+
+    /**
+     * 设置设备ID（所有心跳共用）
+     */
+    public void setDeviceId(String deviceId) {
+        awaitLoaded();
+        prefs.edit().putString(KEY_DEVICE_ID, deviceId).apply();
+    }
+
+    /**
+     * 获取心跳日志的有效起始时间，更早的日志在加载时丢弃
+     */
+    public long getHeartbeatLogLowWater() {
+        awaitLoaded();
+        return prefs.getLong(KEY_HEARTBEAT_LOG_LOW_WATER, 0);
+    }
+    
+    /**
+     * 设置心跳日志的有效起始时间
+     */
+    public void setHeartbeatLogLowWater(long timestamp) {
+        awaitLoaded();
+        prefs.edit().putLong(KEY_HEARTBEAT_LOG_LOW_WATER, timestamp).apply();
+    }
+    
+    /**
+     * 是否启用开机自启动（默认启用）
+     */
+    public boolean isAutoStartEnabled() {
+        awaitLoaded();
+        return prefs.getBoolean(KEY_AUTO_START_ENABLED, true);
+    }
+
+    /**
+     * 设置是否启用开机自启动
+     */
+    public void setAutoStartEnabled(boolean enabled) {
+        awaitLoaded();
+        prefs.edit().putBoolean(KEY_AUTO_START_ENABLED, enabled).apply();
+    }
+
+    /**
+     * 是否启用保活功能（默认启用）
+     */
+    public boolean isKeepAliveEnabled() {
+        awaitLoaded();
+        return prefs.getBoolean(KEY_KEEP_ALIVE_ENABLED, true);
+    }
+
+    /**
+     * 设置是否启用保活功能
+     */
+    public void setKeepAliveEnabled(boolean enabled) {
+        awaitLoaded();
+        prefs.edit().putBoolean(KEY_KEEP_ALIVE_ENABLED, enabled).apply();
+    }
+}
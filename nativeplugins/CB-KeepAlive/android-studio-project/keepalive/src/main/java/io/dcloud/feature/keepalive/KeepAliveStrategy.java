@@ -5,8 +5,6 @@ import android.app.usage.UsageStats;
 import android.app.usage.UsageStatsManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.os.BatteryManager;
 import android.os.Build;
 import android.os.PowerManager;
 import android.util.Log;
@@ -112,6 +110,9 @@ public class KeepAliveStrategy {
                 Log.d(TAG, "策略级别保持不变: " + currentStrategyLevel);
             }
             
+            // 每次调整都提交投票，相同的投票会被仲裁器忽略
+            submitIntervalVote(currentStrategyLevel);
+            
             return currentStrategyLevel;
             
         } catch (Exception e) {
@@ -326,25 +327,7 @@ public class KeepAliveStrategy {
      * @return 电池电量百分比
      */
     public int getBatteryLevel() {
-        try {
-            IntentFilter intentFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = context.registerReceiver(null, intentFilter);
-            
-            if (batteryStatus != null) {
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-                
-                if (level >= 0 && scale > 0) {
-                    return (int) ((level / (float) scale) * 100);
-                }
-            }
-            
-            return -1;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "获取电池电量异常", e);
-            return -1;
-        }
+        return DeviceStateMonitor.getInstance(context).getSnapshot().getBatteryLevel();
     }
     
     /**
@@ -409,20 +392,7 @@ public class KeepAliveStrategy {
      * @return 是否开启
      */
     public boolean isScreenOn() {
-        try {
-            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            if (powerManager != null) {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
-                    return powerManager.isInteractive();
-                } else {
-                    return powerManager.isScreenOn();
-                }
-            }
-            return true;
-        } catch (Exception e) {
-            Log.e(TAG, "判断屏幕状态异常", e);
-            return true;
-        }
+        return DeviceStateMonitor.getInstance(context).getSnapshot().isScreenOn();
     }
     
     /**
@@ -507,6 +477,22 @@ public class KeepAliveStrategy {
         return info;
     }
     
+    /**
+     * 向心跳间隔仲裁器提交策略级别对应的倍数投票
+     * 倍数为级别间隔相对普通级别的比例，作用在配置的心跳间隔上，不附加上下限
+     * @param level 策略级别
+     */
+    private void submitIntervalVote(int level) {
+        try {
+            float multiplier = (float) getHeartbeatInterval(level) / HEARTBEAT_INTERVAL_NORMAL;
+            HeartbeatIntervalArbiter.getInstance().submit(HeartbeatIntervalArbiter.Vote
+                .multiplier(HeartbeatIntervalArbiter.SOURCE_STRATEGY, HeartbeatIntervalArbiter.PRIORITY_STRATEGY,
+                    multiplier, getStrategyLevelName(level)));
+        } catch (Exception e) {
+            Log.e(TAG, "提交心跳间隔投票异常", e);
+        }
+    }
+    
     /**
      * 通知策略变更
      * @param newLevel 新的策略级别
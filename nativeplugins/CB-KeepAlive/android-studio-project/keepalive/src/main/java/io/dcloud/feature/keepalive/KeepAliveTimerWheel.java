@@ -0,0 +1,642 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 插件定时任务时间轮
+ * 心跳、性能优化、内存监控、电池优化响应、日志批量写入等周期任务统一登记在一个哈希时间轮上，
+ * 每个任务声明周期和容差窗口 [计划时间, 计划时间 + 容差]；
+ * 最早截止的窗口内还有其他任务的窗口打开时，推迟到其中最晚打开的时刻唤醒一次，一并执行，减少每小时的唤醒次数；
+ * 窗口内没有其他任务时在计划时间唤醒，任务不会无谓地推迟到截止时间
+ *
+ * 实现说明：
+ * 1. 时间轮按截止时间分槽，每槽 TICK_MS，共 WHEEL_SIZE 槽，超过一圈的任务按截止刻度区分
+ * 2. 唤醒时依次处理从上次刻度到当前刻度的槽，并向后查看最大容差范围内的槽，窗口已打开的任务一并执行
+ * 3. 固定延迟任务在执行后按实际执行时间计算下一次计划时间；
+ *    固定速率任务按首次计划时间对齐节拍（计划时间 + N × 周期），执行耗时和唤醒延迟不会累积
+ * 4. 固定速率任务错过整个窗口（如深度休眠期间 Handler 计时暂停）时按错过策略处理，
+ *    每次执行记录计划时间、实际时间和错过的周期数
+ * 5. 时间取自 KeepAliveScheduler 的时间来源（elapsedRealtime），任务在调度线程上执行
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class KeepAliveTimerWheel {
+
+    private static final String TAG = "KeepAliveTimerWheel";
+
+    // 刻度和槽数（槽数为2的幂）
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // 固定速率任务错过窗口的处理策略
+    public static final String MISSED_SKIP = "skip";                   // 不补发，等下一个计划时间
+    public static final String MISSED_COALESCE = "coalesce";           // 立即执行一次代表所有错过的周期，保持原节拍
+    public static final String MISSED_CATCH_UP_ONCE = "catch_up_once"; // 立即执行一次，并从此刻重新对齐节拍
+
+    // 唤醒本身的延迟在一个刻度以内不算错过窗口
+    private static final long MISSED_GRACE_MS = TICK_MS;
+
+    // 单次唤醒的最大延迟，超长间隔（如暂停心跳）分段等待，避免 Handler 延迟溢出
+    private static final long MAX_WAKE_DELAY_MS = 60 * 60 * 1000L;
+
+    // 单例实例
+    private static volatile KeepAliveTimerWheel instance;
+
+    private final KeepAliveScheduler scheduler;
+    private final Runnable wakeRunnable;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayList<Task>[] slots = new ArrayList[WHEEL_SIZE];
+    private final ArrayList<Task> tasks = new ArrayList<>();
+
+    // 已处理到的刻度
+    private long currentTick = -1;
+    // 已安排的唤醒时间，-1 表示未安排
+    private long scheduledWakeTime = -1;
+    private long maxTolerance = 0;
+
+    // 统计信息
+    private long wakeCount = 0;
+    private long taskRunCount = 0;
+
+    /**
+     * 定时任务
+     */
+    public static final class Task {
+
+        private final String name;
+        private volatile long period;
+        private volatile long tolerance;
+        private final boolean fixedRate;
+        private final Runnable action;
+        private volatile String missedPolicy = MISSED_COALESCE;
+
+        // 当前窗口
+        private long earliestTime;
+        private long deadline;
+        private long slotTick = -1;
+        private boolean active = true;
+        private boolean reanchor = false;
+
+        // 统计信息
+        private long runCount = 0;
+        private long lastRunTime = 0;
+        private long lastPlannedTime = 0;
+        private int lastMissedBeats = 0;
+        private long missedBeatCount = 0;
+        private long maxLateness = 0;
+
+        private Task(String name, long period, long tolerance, boolean fixedRate, Runnable action) {
+            this.name = name;
+            this.period = period;
+            this.tolerance = tolerance;
+            this.fixedRate = fixedRate;
+            this.action = action;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 周期（毫秒），0 表示单次任务
+         */
+        public long getPeriod() {
+            return period;
+        }
+
+        public long getTolerance() {
+            return tolerance;
+        }
+
+        public synchronized long getRunCount() {
+            return runCount;
+        }
+
+        /**
+         * 最近一次执行时间（elapsedRealtime）
+         */
+        public synchronized long getLastRunTime() {
+            return lastRunTime;
+        }
+
+        /**
+         * 最近一次执行对应的计划时间（elapsedRealtime）
+         */
+        public synchronized long getLastPlannedTime() {
+            return lastPlannedTime;
+        }
+
+        /**
+         * 最近一次执行之前错过的周期数
+         */
+        public synchronized int getLastMissedBeats() {
+            return lastMissedBeats;
+        }
+
+        /**
+         * 累计错过的周期数
+         */
+        public synchronized long getMissedBeatCount() {
+            return missedBeatCount;
+        }
+
+        public String getMissedPolicy() {
+            return missedPolicy;
+        }
+
+        /**
+         * 设置错过窗口的处理策略（仅固定速率任务）
+         * @param missedPolicy MISSED_SKIP / MISSED_COALESCE / MISSED_CATCH_UP_ONCE
+         */
+        public void setMissedPolicy(String missedPolicy) {
+            if (isValidMissedPolicy(missedPolicy)) {
+                this.missedPolicy = missedPolicy;
+            } else {
+                Log.w(TAG, "未知的错过策略: " + missedPolicy);
+            }
+        }
+
+        /**
+         * 是否仍在时间轮上（单次任务执行后、任务取消后为false）
+         */
+        public synchronized boolean isActive() {
+            return active;
+        }
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static KeepAliveTimerWheel getInstance() {
+        if (instance == null) {
+            synchronized (KeepAliveTimerWheel.class) {
+                if (instance == null) {
+                    instance = new KeepAliveTimerWheel(KeepAliveScheduler.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private KeepAliveTimerWheel(KeepAliveScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.wakeRunnable = new Runnable() {
+            @Override
+            public void run() {
+                onWake();
+            }
+        };
+    }
+
+    /**
+     * 登记周期任务
+     * @param name 任务名称（用于统计和日志）
+     * @param periodMs 周期（毫秒）
+     * @param toleranceMs 容差（毫秒），任务可以在计划时间之后这段时间内的任意时刻执行
+     * @param initialDelayMs 首次执行的延迟（毫秒）
+     * @param action 任务
+     * @return 任务句柄
+     */
+    public Task schedule(String name, long periodMs, long toleranceMs, long initialDelayMs, Runnable action) {
+        return add(new Task(name, Math.max(0, periodMs), Math.max(0, toleranceMs), false, action), initialDelayMs);
+    }
+
+    /**
+     * 登记固定速率任务，计划时间为 首次计划时间 + N × 周期
+     * @param name 任务名称
+     * @param periodMs 周期（毫秒）
+     * @param toleranceMs 容差（毫秒）
+     * @param initialDelayMs 首次执行的延迟（毫秒）
+     * @param missedPolicy 错过窗口的处理策略
+     * @param action 任务
+     * @return 任务句柄
+     */
+    public Task scheduleAtFixedRate(String name, long periodMs, long toleranceMs, long initialDelayMs,
+                                    String missedPolicy, Runnable action) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("固定速率任务的周期必须大于0");
+        }
+        Task task = new Task(name, periodMs, Math.max(0, toleranceMs), true, action);
+        if (missedPolicy != null) {
+            task.setMissedPolicy(missedPolicy);
+        }
+        return add(task, initialDelayMs);
+    }
+
+    /**
+     * 错过策略是否有效
+     */
+    public static boolean isValidMissedPolicy(String missedPolicy) {
+        return MISSED_SKIP.equals(missedPolicy)
+            || MISSED_COALESCE.equals(missedPolicy)
+            || MISSED_CATCH_UP_ONCE.equals(missedPolicy);
+    }
+
+    private Task add(Task task, long initialDelayMs) {
+        if (task.action == null) {
+            throw new IllegalArgumentException("任务不能为空");
+        }
+
+        synchronized (this) {
+            long now = now();
+            if (currentTick < 0) {
+                currentTick = toTick(now) - 1;
+            }
+            tasks.add(task);
+            maxTolerance = Math.max(maxTolerance, task.tolerance);
+            insert(task, now + Math.max(0, initialDelayMs));
+            rearm(now);
+        }
+
+        Log.d(TAG, "登记任务: " + task.name + ", 周期: " + task.period + "ms, 容差: " + task.tolerance + "ms"
+            + (task.fixedRate ? ", 固定速率, 错过策略: " + task.missedPolicy : ""));
+        return task;
+    }
+
+    /**
+     * 登记单次任务
+     * @param name 任务名称
+     * @param delayMs 延迟（毫秒）
+     * @param toleranceMs 容差（毫秒）
+     * @param action 任务
+     * @return 任务句柄
+     */
+    public Task scheduleOnce(String name, long delayMs, long toleranceMs, Runnable action) {
+        return schedule(name, 0, toleranceMs, delayMs, action);
+    }
+
+    /**
+     * 重新登记单次任务，复用任务句柄，不分配新任务（如写入缓冲每批日志的定时写出）
+     * 已执行或已取消的任务重新加入时间轮，仍在时间轮上的任务改为新的计划时间
+     * @param task scheduleOnce 返回的任务句柄
+     * @param delayMs 延迟（毫秒）
+     */
+    public synchronized void rescheduleOnce(Task task, long delayMs) {
+        if (task == null || task.period != 0) {
+            throw new IllegalArgumentException("只能重新登记单次任务");
+        }
+
+        long now = now();
+        if (currentTick < 0) {
+            currentTick = toTick(now) - 1;
+        }
+        remove(task);
+        if (!tasks.contains(task)) {
+            tasks.add(task);
+            maxTolerance = Math.max(maxTolerance, task.tolerance);
+        }
+        synchronized (task) {
+            task.active = true;
+        }
+        insert(task, now + Math.max(0, delayMs));
+        rearm(now);
+    }
+
+    /**
+     * 取消任务（正在执行的任务执行完后不再调度）
+     * @param task 任务句柄
+     */
+    public synchronized void cancel(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        remove(task);
+        synchronized (task) {
+            task.active = false;
+        }
+        if (tasks.remove(task)) {
+            recomputeMaxTolerance();
+            rearm(now());
+        }
+    }
+
+    /**
+     * 修改周期任务的周期和容差，只重新计算下一次计划时间，不额外执行
+     * 下一次计划时间为 上次计划时间（固定速率）或上次执行时间（固定延迟）+ 新周期，已过去时取当前时间；
+     * 尚未执行过的任务保持首次计划时间，正在执行的任务在执行结束后按新周期调度
+     * @param task 任务句柄
+     * @param periodMs 新周期（毫秒）
+     * @param toleranceMs 新容差（毫秒）
+     */
+    public synchronized void setPeriod(Task task, long periodMs, long toleranceMs) {
+        if (task == null || !tasks.contains(task) || periodMs <= 0) {
+            return;
+        }
+        if (task.period == periodMs && task.tolerance == Math.max(0, toleranceMs)) {
+            return;
+        }
+
+        task.period = periodMs;
+        task.tolerance = Math.max(0, toleranceMs);
+        recomputeMaxTolerance();
+
+        long now = now();
+        if (task.slotTick >= 0) {
+            long lastRun;
+            long lastPlanned;
+            synchronized (task) {
+                lastRun = task.runCount > 0 ? task.lastRunTime : -1;
+                lastPlanned = task.lastPlannedTime;
+            }
+            long next = task.earliestTime;
+            if (lastRun >= 0) {
+                next = Math.max((task.fixedRate ? lastPlanned : lastRun) + periodMs, now);
+            }
+            remove(task);
+            insert(task, next);
+            rearm(now);
+        }
+
+        Log.d(TAG, "任务周期更新: " + task.name + ", 周期: " + periodMs + "ms, 容差: " + task.tolerance + "ms");
+    }
+
+    /**
+     * 没有登记的任务时停止调度线程（心跳停止、保活服务销毁时调用）
+     * 仍有任务时保留线程，否则已安排的唤醒会随线程一起丢弃；之后再登记任务或提交工作会重新创建线程
+     * @return 是否已停止
+     */
+    public synchronized boolean shutdownSchedulerIfIdle() {
+        if (!tasks.isEmpty()) {
+            return false;
+        }
+
+        scheduler.cancel(wakeRunnable);
+        scheduledWakeTime = -1;
+        scheduler.shutdown();
+        return true;
+    }
+
+    /**
+     * 获取时间轮统计
+     * @return 唤醒次数、任务执行次数及各任务的周期、容差、执行次数
+     */
+    public synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        stats.put("wakeCount", wakeCount);
+        stats.put("taskRunCount", taskRunCount);
+
+        JSONObject taskStats = new JSONObject();
+        for (Task task : tasks) {
+            JSONObject item = new JSONObject();
+            item.put("period", task.period);
+            item.put("tolerance", task.tolerance);
+            item.put("fixedRate", task.fixedRate);
+            item.put("runCount", task.getRunCount());
+            if (task.fixedRate) {
+                item.put("missedPolicy", task.missedPolicy);
+                item.put("missedBeatCount", task.getMissedBeatCount());
+                synchronized (task) {
+                    item.put("maxLateness", task.maxLateness);
+                }
+            }
+            item.put("nextTime", task.earliestTime);
+            item.put("deadline", task.deadline);
+            taskStats.put(task.name, item);
+        }
+        stats.put("tasks", taskStats);
+        return stats;
+    }
+
+    /**
+     * 唤醒：执行窗口已打开的所有任务，再安排下一次唤醒
+     */
+    private void onWake() {
+        List<Task> due = new ArrayList<>();
+        long now;
+
+        synchronized (this) {
+            scheduledWakeTime = -1;
+            now = now();
+            collectDue(now, due);
+            for (int i = due.size() - 1; i >= 0; i--) {
+                if (!prepareRun(due.get(i), now)) {
+                    due.remove(i);
+                }
+            }
+            if (!due.isEmpty()) {
+                wakeCount++;
+                taskRunCount += due.size();
+            }
+        }
+
+        for (Task task : due) {
+            try {
+                task.action.run();
+            } catch (Exception e) {
+                Log.e(TAG, "任务执行异常: " + task.name, e);
+            }
+        }
+
+        synchronized (this) {
+            long finishTime = now();
+            for (Task task : due) {
+                synchronized (task) {
+                    task.runCount++;
+                }
+                if (task.slotTick >= 0 || !tasks.contains(task)) {
+                    // 已取消，或执行期间已被重新登记
+                    continue;
+                }
+                if (task.fixedRate) {
+                    // 按节拍计算下一次计划时间，执行耗时不累积
+                    insert(task, task.reanchor ? now + task.period : task.earliestTime + task.period);
+                } else if (task.period > 0) {
+                    insert(task, finishTime + task.period);
+                } else {
+                    tasks.remove(task);
+                    synchronized (task) {
+                        task.active = false;
+                    }
+                }
+            }
+            recomputeMaxTolerance();
+            rearm(finishTime);
+        }
+
+        if (Log.isLoggable(TAG, Log.DEBUG) && !due.isEmpty()) {
+            Log.d(TAG, "唤醒执行 " + due.size() + " 个任务");
+        }
+    }
+
+    /**
+     * 记录本次执行的计划时间和错过的周期数，固定速率任务按错过策略处理
+     * @return 本次是否执行
+     */
+    private boolean prepareRun(Task task, long now) {
+        long planned = task.earliestTime;
+        int missedBeats = 0;
+        task.reanchor = false;
+
+        if (task.fixedRate && now - planned >= task.period) {
+            // 至少错过了一个完整周期，本次对应最近的计划时间
+            long slots = (now - planned) / task.period;
+            planned += slots * task.period;
+            missedBeats = (int) Math.min(slots, Integer.MAX_VALUE);
+        }
+
+        if (task.fixedRate && now - (planned + task.tolerance) > MISSED_GRACE_MS) {
+            // 最近一个计划时间的窗口也已错过
+            String policy = task.missedPolicy;
+            if (MISSED_SKIP.equals(policy)) {
+                synchronized (task) {
+                    task.missedBeatCount += missedBeats + 1;
+                }
+                insert(task, planned + task.period);
+                Log.w(TAG, task.name + " 错过 " + (missedBeats + 1) + " 个周期，等待下一个计划时间");
+                return false;
+            }
+            task.reanchor = MISSED_CATCH_UP_ONCE.equals(policy);
+            Log.w(TAG, task.name + " 错过窗口，补发一次（合并 " + missedBeats + " 个周期）");
+        }
+
+        task.earliestTime = planned;
+        synchronized (task) {
+            task.lastPlannedTime = planned;
+            task.lastRunTime = now;
+            task.lastMissedBeats = missedBeats;
+            task.missedBeatCount += missedBeats;
+            task.maxLateness = Math.max(task.maxLateness, now - planned);
+        }
+        return true;
+    }
+
+    /**
+     * 从时间轮中取出窗口已打开的任务
+     */
+    private void collectDue(long now, List<Task> due) {
+        long nowTick = toTick(now);
+        long fromTick = currentTick + 1;
+        long toTick = nowTick + (maxTolerance + TICK_MS - 1) / TICK_MS;
+
+        if (toTick - fromTick + 1 >= WHEEL_SIZE) {
+            // 超过一圈（长时间未唤醒），检查所有槽
+            fromTick = toTick - WHEEL_SIZE + 1;
+        }
+
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            ArrayList<Task> slot = slots[(int) (tick & WHEEL_MASK)];
+            if (slot == null) {
+                continue;
+            }
+            for (int i = slot.size() - 1; i >= 0; i--) {
+                Task task = slot.get(i);
+                if (task.earliestTime <= now) {
+                    slot.remove(i);
+                    task.slotTick = -1;
+                    due.add(task);
+                }
+            }
+        }
+
+        // 当前刻度内可能还有窗口未打开的任务，下次唤醒时重新检查
+        currentTick = Math.max(currentTick, nowTick - 1);
+    }
+
+    /**
+     * 按计划时间放入时间轮
+     */
+    private void insert(Task task, long earliestTime) {
+        task.earliestTime = earliestTime;
+        task.deadline = earliestTime + task.tolerance;
+        if (task.deadline < earliestTime) {
+            task.deadline = Long.MAX_VALUE;
+        }
+
+        // 已过期的任务放到下一个刻度，保证能被处理到
+        task.slotTick = Math.max(toTick(task.deadline), currentTick + 1);
+        int index = (int) (task.slotTick & WHEEL_MASK);
+        if (slots[index] == null) {
+            slots[index] = new ArrayList<>(2);
+        }
+        slots[index].add(task);
+    }
+
+    private void remove(Task task) {
+        if (task.slotTick < 0) {
+            return;
+        }
+        ArrayList<Task> slot = slots[(int) (task.slotTick & WHEEL_MASK)];
+        if (slot != null) {
+            slot.remove(task);
+        }
+        task.slotTick = -1;
+    }
+
+    /**
+     * 安排下一次唤醒
+     * 在最早的截止时间之前窗口会打开的任务都能合并到一次唤醒，唤醒时间取其中最晚的计划时间（不晚于该截止时间）；
+     * 只有一个任务时即为它的计划时间
+     */
+    private void rearm(long now) {
+        long earliestDeadline = Long.MAX_VALUE;
+
+        // 先在一圈内按刻度查找最近的截止时间
+        for (long tick = currentTick + 1; tick <= currentTick + WHEEL_SIZE && earliestDeadline == Long.MAX_VALUE; tick++) {
+            ArrayList<Task> slot = slots[(int) (tick & WHEEL_MASK)];
+            if (slot == null) {
+                continue;
+            }
+            for (Task task : slot) {
+                if (task.slotTick == tick) {
+                    earliestDeadline = Math.min(earliestDeadline, task.deadline);
+                }
+            }
+        }
+
+        // 一圈内没有则取所有任务中最早的截止时间
+        if (earliestDeadline == Long.MAX_VALUE) {
+            for (Task task : tasks) {
+                if (task.slotTick >= 0) {
+                    earliestDeadline = Math.min(earliestDeadline, task.deadline);
+                }
+            }
+        }
+
+        // 截止时间之前最晚打开的窗口，此刻所有已打开的窗口都还未截止
+        long nextWake = Long.MAX_VALUE;
+        if (earliestDeadline != Long.MAX_VALUE) {
+            nextWake = Long.MIN_VALUE;
+            for (Task task : tasks) {
+                if (task.slotTick >= 0 && task.earliestTime <= earliestDeadline) {
+                    nextWake = Math.max(nextWake, task.earliestTime);
+                }
+            }
+        }
+
+        if (nextWake == scheduledWakeTime) {
+            return;
+        }
+
+        scheduler.cancel(wakeRunnable);
+        scheduledWakeTime = -1;
+        if (nextWake != Long.MAX_VALUE) {
+            scheduledWakeTime = nextWake;
+            scheduler.postDelayed(wakeRunnable, Math.min(nextWake - now, MAX_WAKE_DELAY_MS));
+        }
+    }
+
+    private void recomputeMaxTolerance() {
+        long max = 0;
+        for (Task task : tasks) {
+            max = Math.max(max, task.tolerance);
+        }
+        maxTolerance = max;
+    }
+
+    private long now() {
+        return scheduler.getTimeSource().elapsedRealtime();
+    }
+
+    private static long toTick(long time) {
+        return time / TICK_MS;
+    }
+}
@@ -1,13 +1,14 @@
 package io.dcloud.feature.keepalive;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.util.Log;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,160 +17,343 @@ import java.util.List;
  * 负责心跳数据的本地存储和管理
  * 
  * 功能特性：
- * 1. 本地存储心跳日志（最多100条）
+ * 1. 本地存储心跳日志（内存中以列存环形缓冲保存最多240条，约最近一小时；文件按UTC日分段保留最多7天，CRC校验，追加写入，紧凑二进制编码）
  * 2. 自动清理旧日志
  * 3. 提供日志查询和统计功能
+ * 4. 长期趋势汇总（每分钟保留1天，每小时保留30天）
+ * 5. 延迟批量写入，按持久化模式刷盘；缓冲中的记录写出后回收，稳态下记录心跳不分配对象
+ * 6. 构造时立即返回，在后台线程从新到旧解码历史日志；
+ *    加载完成前，最近N条和时间范围查询只等待所需的尾部数据
+ * 7. 插件唯一的心跳日志：最近日志、分段读取查询内存，增量读取和导出读取分段日志
  * 
  * 验证需求：4.3, 4.4
  */
 public class LocalHeartbeatLogger {
     
     private static final String TAG = "LocalHeartbeatLogger";
-    private static final String PREFS_NAME = "heartbeat_logs";
-    private static final String KEY_LOGS = "logs";
-    private static final int MAX_LOGS = 100;
+    private static final int MAX_LOGS = 240;
+    private static final int ABNORMAL_CHECK_COUNT = 10;
+    
+    // 增量读取的游标：高位为数据块序号，低16位为块内位置（每块最多 MAX_LOGS 条）
+    private static final int CURSOR_BLOCK_SHIFT = 16;
+    private static final long CURSOR_INDEX_MASK = (1L << CURSOR_BLOCK_SHIFT) - 1;
+    
+    // 旧版把事件写在心跳日志中，保活状态以此为前缀，加载时跳过
+    private static final String LEGACY_EVENT_STATUS_PREFIX = "event:";
     
     private Context context;
-    private SharedPreferences prefs;
-    private List<HeartbeatData> logs;
+    private HeartbeatSegmentLog segmentLog;
+    private HeartbeatCodec codec;
+    private LogWriteBuffer<HeartbeatData> writeBuffer;
+    // 已写出的记录，回收后供下一次心跳使用（与写入缓冲共用同一把锁）
+    private final ArrayDeque<HeartbeatData> dataPool = new ArrayDeque<>();
+    private KeepAliveStore store;
+    private HeartbeatColumnBuffer logs;
+    private HeartbeatTimeIndex timeIndex;
+    private HeartbeatStatistics statistics;
+    private HeartbeatRollups rollups;
+    private long expectedInterval;
+    // 日志的有效起始时间，更早的日志（跨越清除边界的数据块中）在加载和导出时丢弃
+    private long lowWater;
+    
+    // 已追加的日志总数，以及最近一次异常心跳追加时的位置（-1表示无）
+    private long appendedCount = 0;
+    private long lastAbnormalPosition = -1;
+    
+    // 后台加载状态
+    private boolean loaded = false;
+    private boolean closed = false;
+    private final List<HeartbeatData> loadedTail = new ArrayList<>();  // 已解码的历史日志（从新到旧）
+    private final List<HeartbeatData> earlyLogs = new ArrayList<>();   // 加载完成前记录的日志（从旧到新，最多 MAX_LOGS 条）
     
     public LocalHeartbeatLogger(Context context) {
         this.context = context;
-        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.logs = new ArrayList<>();
-        loadLogs();
+        this.logs = new HeartbeatColumnBuffer(MAX_LOGS);
+        this.timeIndex = new HeartbeatTimeIndex();
+        this.statistics = new HeartbeatStatistics(timeIndex);
+        
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loadLogs();
+            }
+        }, "CB-KeepAlive-LogLoader");
+        loader.start();
     }
     
     /**
      * 记录心跳日志
+     * 内存日志按列复制，写入缓冲使用回收的记录，调用返回后不再引用传入的心跳数据
      * @param heartbeatData 心跳数据
      */
     public synchronized void log(HeartbeatData heartbeatData) {
         try {
-            Log.d(TAG, "记录心跳日志: " + heartbeatData.getTimestamp());
-            
-            // 添加到日志列表
-            logs.add(heartbeatData);
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "记录心跳日志: " + heartbeatData.getTimestamp());
+            }
             
-            // 如果超过最大数量，删除最旧的日志
-            if (logs.size() > MAX_LOGS) {
-                int removeCount = logs.size() - MAX_LOGS;
-                logs.subList(0, removeCount).clear();
-                Log.d(TAG, "清理了 " + removeCount + " 条旧日志");
+            if (!loaded) {
+                // 加载完成后再合并、写入；加载过慢时只保留最近的日志，与内存上限一致
+                if (earlyLogs.size() >= MAX_LOGS) {
+                    earlyLogs.remove(0);
+                }
+                earlyLogs.add(heartbeatData.copy());
+                return;
             }
             
-            // 保存到本地存储
-            saveLogs();
+            // 添加到日志列表
+            appendLocked(heartbeatData);
+            
+            persist(heartbeatData);
             
-            Log.d(TAG, "心跳日志记录成功，当前日志数: " + logs.size());
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "心跳日志记录成功，当前日志数: " + logs.size());
+            }
             
         } catch (Exception e) {
             Log.e(TAG, "记录心跳日志失败", e);
         }
     }
     
+    /**
+     * 追加到内存日志，同步更新索引、统计和异常位置；已满时先删除最旧的日志
+     * @param heartbeatData 心跳数据
+     */
+    private void appendLocked(HeartbeatData heartbeatData) {
+        if (logs.size() >= MAX_LOGS) {
+            removeOldest(logs.size() - MAX_LOGS + 1);
+        }
+        
+        String status = heartbeatData.getKeepAliveStatus();
+        logs.add(heartbeatData);
+        timeIndex.add(heartbeatData.getTimestamp());
+        statistics.onAdded(status);
+        
+        if ("error".equals(status) || "abnormal".equals(status)) {
+            lastAbnormalPosition = appendedCount;
+        }
+        appendedCount++;
+    }
+    
+    /**
+     * 写入缓冲并计入长期汇总
+     * @param heartbeatData 心跳数据
+     */
+    private void persist(HeartbeatData heartbeatData) {
+        if (writeBuffer != null) {
+            // 复制到回收的记录后进入写入缓冲，按持久化模式批量写入分段日志
+            synchronized (writeBuffer) {
+                HeartbeatData entry = dataPool.pollLast();
+                if (entry == null) {
+                    entry = new HeartbeatData();
+                }
+                entry.copyFrom(heartbeatData);
+                writeBuffer.add(entry);
+            }
+        }
+        
+        if (rollups != null) {
+            rollups.add(heartbeatData);
+        }
+    }
+    
     /**
      * 获取所有日志
-     * @return 日志列表
+     * @return 日志快照（从旧到新）
      */
     public synchronized List<HeartbeatData> getAllLogs() {
-        return new ArrayList<>(logs);
+        awaitLoadedLocked();
+        return logs.snapshot(0, logs.size());
     }
     
     /**
      * 获取最近N条日志
+     * 加载未完成时只等待最近N条解码完成
      * @param count 日志数量
-     * @return 日志列表
+     * @return 日志快照（从旧到新）
      */
     public synchronized List<HeartbeatData> getRecentLogs(int count) {
-        int size = logs.size();
-        if (size <= count) {
-            return new ArrayList<>(logs);
+        while (!loaded && loadedTail.size() + earlyLogs.size() < count) {
+            if (!waitLocked()) {
+                break;
+            }
+        }
+        
+        if (!loaded) {
+            List<HeartbeatData> partial = partialLogsLocked();
+            return new ArrayList<>(partial.subList(Math.max(0, partial.size() - count), partial.size()));
         }
         
-        int startIndex = size - count;
-        return new ArrayList<>(logs.subList(startIndex, size));
+        int size = logs.size();
+        return logs.snapshot(Math.max(0, size - Math.max(0, count)), size);
     }
     
     /**
      * 获取指定时间范围内的日志
      * @param startTime 开始时间戳
      * @param endTime 结束时间戳
-     * @return 日志列表
+     * @return 日志快照（从旧到新）
      */
     public synchronized List<HeartbeatData> getLogsByTimeRange(long startTime, long endTime) {
-        List<HeartbeatData> result = new ArrayList<>();
+        // 加载未完成时只等待解码到开始时间之前
+        while (!loaded && (loadedTail.isEmpty()
+            || loadedTail.get(loadedTail.size() - 1).getTimestamp() >= startTime)) {
+            if (!waitLocked()) {
+                break;
+            }
+        }
         
-        for (HeartbeatData log : logs) {
-            long timestamp = log.getTimestamp();
-            if (timestamp >= startTime && timestamp <= endTime) {
-                result.add(log);
+        if (!loaded) {
+            List<HeartbeatData> result = new ArrayList<>();
+            for (HeartbeatData log : partialLogsLocked()) {
+                if (log.getTimestamp() >= startTime && log.getTimestamp() <= endTime) {
+                    result.add(log);
+                }
             }
+            return result;
         }
         
+        // 二分查找范围边界，只复制命中的范围
+        int fromIndex = timeIndex.lowerBound(startTime);
+        int toIndex = Math.max(fromIndex, timeIndex.upperBound(endTime));
+        
+        return logs.snapshot(fromIndex, toIndex);
+    }
+    
+    /**
+     * 分段读取内存中的日志（从旧到新）
+     * @param offset 起始位置
+     * @param count 读取数量
+     * @return 分段结果：logs、offset、nextOffset、total、hasMore
+     */
+    public synchronized JSONObject getLogsChunk(int offset, int count) {
+        awaitLoadedLocked();
+        
+        int total = logs.size();
+        int start = Math.max(0, offset);
+        int end = Math.max(start, Math.min(total, start + Math.max(0, count)));
+        
+        JSONArray chunkLogs = new JSONArray();
+        for (int i = start; i < end; i++) {
+            chunkLogs.add(logs.get(i).toJson());
+        }
+        
+        int nextOffset = Math.min(total, end);
+        JSONObject chunk = new JSONObject();
+        chunk.put("logs", chunkLogs);
+        chunk.put("offset", start);
+        chunk.put("nextOffset", nextOffset);
+        chunk.put("total", total);
+        chunk.put("hasMore", nextOffset < total);
+        return chunk;
+    }
+    
+    /**
+     * 增量读取游标之后的日志，依次读取分段日志中的数据块和写入缓冲中尚未写出的日志
+     * 游标由数据块序号和块内位置组成，缓冲中的日志写出后位于下一个数据块，游标保持不变；
+     * 损坏的数据块跳过，游标仍越过该数据块，轮询方不会停在同一位置
+     * @param cursor 起始游标（包含），首次传0
+     * @param maxCount 最多返回的数量
+     * @return 结果：logs（每条带 sequence 字段，即该条日志的游标）、nextCursor、hasMore、
+     *         truncated（游标所在的数据块已被淘汰）
+     */
+    public JSONObject getLogsSince(long cursor, int maxCount) {
+        JSONObject result = new JSONObject();
+        JSONArray sinceLogs = new JSONArray();
+        long nextCursor = Math.max(0, cursor);
+        boolean hasMore = false;
+        boolean truncated = false;
+        
+        HeartbeatSegmentLog sinceLog;
+        HeartbeatCodec sinceCodec;
+        LogWriteBuffer<HeartbeatData> sinceBuffer;
+        long sinceLowWater;
+        synchronized (this) {
+            awaitLoadedLocked();
+            sinceLog = segmentLog;
+            sinceCodec = codec;
+            sinceBuffer = writeBuffer;
+            sinceLowWater = lowWater;
+        }
+        
+        if (sinceLog != null && sinceBuffer != null) {
+            // 持有写入缓冲的锁读取，期间缓冲不会写出，数据块序号和缓冲内容保持一致
+            synchronized (sinceBuffer) {
+                List<HeartbeatData> pending = sinceBuffer.getPending();
+                long firstSequence = sinceLog.getFirstSequence();
+                long nextSequence = sinceLog.getNextSequence();
+                
+                long block = nextCursor >>> CURSOR_BLOCK_SHIFT;
+                int index = (int) (nextCursor & CURSOR_INDEX_MASK);
+                if (block < firstSequence) {
+                    truncated = true;
+                    block = firstSequence;
+                    index = 0;
+                }
+                
+                while (block <= nextSequence && sinceLogs.size() < maxCount) {
+                    List<HeartbeatData> rows;
+                    if (block < nextSequence) {
+                        rows = readBlock(sinceLog, sinceCodec, block);
+                    } else {
+                        rows = pending;
+                    }
+                    
+                    for (; index < rows.size() && sinceLogs.size() < maxCount; index++) {
+                        HeartbeatData data = rows.get(index);
+                        if (data.getTimestamp() >= sinceLowWater && !isLegacyEvent(data)) {
+                            JSONObject log = data.toJson();
+                            log.put("sequence", (block << CURSOR_BLOCK_SHIFT) | index);
+                            sinceLogs.add(log);
+                        }
+                    }
+                    
+                    // 缓冲中的日志读完后停在下一个数据块内，等待后续日志
+                    if (index < rows.size() || block == nextSequence) {
+                        break;
+                    }
+                    block++;
+                    index = 0;
+                }
+                
+                nextCursor = (block << CURSOR_BLOCK_SHIFT) | index;
+                hasMore = block < nextSequence || (block == nextSequence && index < pending.size());
+            }
+        }
+        
+        result.put("logs", sinceLogs);
+        result.put("nextCursor", nextCursor);
+        result.put("hasMore", hasMore);
+        result.put("truncated", truncated);
         return result;
     }
     
+    /**
+     * 按序号读取并解码一个数据块，已被淘汰、校验失败或无法解码时返回空列表
+     */
+    private static List<HeartbeatData> readBlock(HeartbeatSegmentLog log, HeartbeatCodec blockCodec, long sequence) {
+        try {
+            byte[] payload = log.readSequence(sequence);
+            if (payload != null) {
+                return blockCodec.decode(payload);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "跳过无法读取的日志块: " + sequence, e);
+        }
+        return new ArrayList<>();
+    }
+    
     /**
      * 获取日志统计信息
      * @return 统计信息JSON对象
      */
     public synchronized JSONObject getStatistics() {
         JSONObject stats = new JSONObject();
+        awaitLoadedLocked();
         
         try {
-            int totalCount = logs.size();
-            stats.put("totalCount", totalCount);
-            
-            if (totalCount == 0) {
-                stats.put("firstHeartbeat", 0);
-                stats.put("lastHeartbeat", 0);
-                stats.put("averageInterval", 0);
-                stats.put("activeCount", 0);
-                stats.put("inactiveCount", 0);
-                return stats;
-            }
-            
-            // 第一次和最后一次心跳时间
-            long firstHeartbeat = logs.get(0).getTimestamp();
-            long lastHeartbeat = logs.get(totalCount - 1).getTimestamp();
-            stats.put("firstHeartbeat", firstHeartbeat);
-            stats.put("lastHeartbeat", lastHeartbeat);
-            
-            // 计算平均心跳间隔
-            if (totalCount > 1) {
-                long totalDuration = lastHeartbeat - firstHeartbeat;
-                long averageInterval = totalDuration / (totalCount - 1);
-                stats.put("averageInterval", averageInterval);
-            } else {
-                stats.put("averageInterval", 0);
-            }
-            
-            // 统计保活状态
-            int activeCount = 0;
-            int inactiveCount = 0;
-            
-            for (HeartbeatData log : logs) {
-                String status = log.getKeepAliveStatus();
-                if ("active".equals(status)) {
-                    activeCount++;
-                } else if ("inactive".equals(status)) {
-                    inactiveCount++;
-                }
-            }
-            
-            stats.put("activeCount", activeCount);
-            stats.put("inactiveCount", inactiveCount);
-            
-            // 最近1小时的日志数
-            long oneHourAgo = System.currentTimeMillis() - 3600000;
-            int recentCount = 0;
-            for (HeartbeatData log : logs) {
-                if (log.getTimestamp() > oneHourAgo) {
-                    recentCount++;
-                }
-            }
-            stats.put("recentHourCount", recentCount);
+            // 增量维护的聚合值，读取为常数时间
+            stats = statistics.toJson(System.currentTimeMillis());
             
             Log.d(TAG, "统计信息: " + stats.toString());
             
@@ -180,13 +364,56 @@ public class LocalHeartbeatLogger {
         return stats;
     }
     
+    /**
+     * 获取长期心跳趋势
+     * @param resolution 精度（HeartbeatRollups.RESOLUTION_MINUTE / RESOLUTION_HOUR）
+     * @param startTime 开始时间戳
+     * @param endTime 结束时间戳
+     * @return 汇总桶列表
+     */
+    public synchronized JSONArray getTrend(String resolution, long startTime, long endTime) {
+        awaitLoadedLocked();
+        if (rollups == null) {
+            return new JSONArray();
+        }
+        return rollups.getTrend(resolution, startTime, endTime);
+    }
+    
+    /**
+     * 设置期望的心跳间隔，超过两倍间隔未收到心跳记为一次间隙
+     * @param interval 心跳间隔（毫秒）
+     */
+    public synchronized void setExpectedInterval(long interval) {
+        this.expectedInterval = interval;
+        if (rollups != null) {
+            rollups.setGapThreshold(interval * 2);
+        }
+    }
+    
     /**
      * 清除所有日志
+     * 只清除明细日志，分钟/小时汇总（最长30天）保留，趋势查询不受影响
      */
     public synchronized void clearLogs() {
+        awaitLoadedLocked();
+        
         try {
             logs.clear();
-            saveLogs();
+            timeIndex.clear();
+            statistics.clear();
+            lastAbnormalPosition = -1;
+            
+            // 关闭后写入缓冲已注销，分段日志仍需清除
+            int discarded = writeBuffer != null ? writeBuffer.discard() : 0;
+            if (segmentLog != null) {
+                // 缓冲中的日志已按下一个数据块的游标返回给增量读取方，清除后跳过该数据块，
+                // 避免游标被重新分配导致读取方跳过新日志
+                long nextSequence = segmentLog.getNextSequence();
+                segmentLog.clear();
+                if (discarded > 0) {
+                    segmentLog.startAt(nextSequence + 1);
+                }
+            }
             Log.d(TAG, "所有日志已清除");
         } catch (Exception e) {
             Log.e(TAG, "清除日志失败", e);
@@ -194,18 +421,23 @@ public class LocalHeartbeatLogger {
     }
     
     /**
-     * 清除指定时间之前的日志
+     * 清除指定时间之前的日志（定期保留期清理）
+     * 只删除整段过期的日志分段，不读取、不重写记录；跨越清除边界的分段保留到下一次整段过期，
+     * 其中更早的日志由有效起始时间过滤，耗时与保留的日志量无关
      * @param beforeTime 时间戳
      */
     public synchronized void clearLogsBefore(long beforeTime) {
+        awaitLoadedLocked();
+        
         try {
-            int originalSize = logs.size();
-            logs.removeIf(log -> log.getTimestamp() < beforeTime);
-            int removedCount = originalSize - logs.size();
+            removeOldestBefore(beforeTime);
             
-            if (removedCount > 0) {
-                saveLogs();
-                Log.d(TAG, "清除了 " + removedCount + " 条旧日志");
+            if (segmentLog != null && beforeTime > lowWater) {
+                lowWater = beforeTime;
+                // 只有分段边界移动时才保存有效起始时间，未保存的部分重启后由下一次清理补上
+                if (segmentLog.deleteBefore(beforeTime) > 0) {
+                    store.setHeartbeatLogLowWater(beforeTime);
+                }
             }
             
         } catch (Exception e) {
@@ -214,52 +446,262 @@ public class LocalHeartbeatLogger {
     }
     
     /**
-     * 保存日志到本地存储
+     * 清除指定时间之前的日志并释放磁盘空间（用户主动清除）
+     * 除整段删除过期分段外，跨越清除边界的分段中全部早于清除时间的数据块也被清除，需要重写该分段
+     * @param beforeTime 时间戳
      */
-    private void saveLogs() {
+    public synchronized void trimLogsBefore(long beforeTime) {
+        awaitLoadedLocked();
+        
         try {
-            JSONArray jsonArray = new JSONArray();
-            for (HeartbeatData log : logs) {
-                jsonArray.add(log.toJson());
-            }
-            
-            String jsonString = jsonArray.toJSONString();
-            prefs.edit().putString(KEY_LOGS, jsonString).apply();
+            removeOldestBefore(beforeTime);
             
-            Log.d(TAG, "日志已保存到本地存储，共 " + logs.size() + " 条");
+            if (segmentLog != null) {
+                segmentLog.deleteBefore(beforeTime);
+                segmentLog.trimBefore(findFirstBlockAtOrAfter(beforeTime));
+                
+                // 跨越清除边界的数据块仍保留更早的日志，记录有效起始时间，加载时丢弃
+                if (beforeTime > lowWater) {
+                    lowWater = beforeTime;
+                    store.setHeartbeatLogLowWater(beforeTime);
+                }
+            }
             
+        } catch (Exception e) {
+            Log.e(TAG, "清除旧日志失败", e);
+        }
+    }
+    
+    /**
+     * 从内存中删除指定时间之前的日志
+     * 日志按时间顺序追加，过期日志总是位于列表头部
+     * @param beforeTime 时间戳
+     */
+    private void removeOldestBefore(long beforeTime) {
+        int removedCount = timeIndex.lowerBound(beforeTime);
+        if (removedCount > 0) {
+            removeOldest(removedCount);
+            Log.d(TAG, "清除了 " + removedCount + " 条旧日志");
+        }
+    }
+    
+    /**
+     * 从最旧的数据块开始查找第一个包含不早于指定时间的日志的数据块
+     * 只解码清除边界所在分段中的数据块
+     * @param time 时间戳
+     * @return 数据块序号，全部早于该时间时返回下一条写入的序号
+     */
+    private long findFirstBlockAtOrAfter(long time) {
+        long firstSequence = segmentLog.getFirstSequence();
+        int size = segmentLog.size();
+        for (int i = 0; i < size; i++) {
+            try {
+                List<HeartbeatData> block = codec.decode(segmentLog.read(i));
+                if (!block.isEmpty() && block.get(block.size() - 1).getTimestamp() >= time) {
+                    return firstSequence + i;
+                }
+            } catch (Exception e) {
+                // 无法解码的数据块视为过期，一并清除
+                Log.w(TAG, "清除时跳过无法解码的日志块: " + i, e);
+            }
+        }
+        return firstSequence + size;
+    }
+    
+    /**
+     * 关闭日志管理器：写出缓冲中的日志并注销写入缓冲
+     * 关闭后记录的日志只保留在内存中
+     */
+    public synchronized void close() {
+        closed = true;
+        if (writeBuffer != null) {
+            store.releaseWriteBuffer(writeBuffer);
+            writeBuffer = null;
+        }
+    }
+    
+    /**
+     * 从内存中删除最旧的N条日志，同步更新索引和统计
+     * @param count 删除数量
+     */
+    private void removeOldest(int count) {
+        for (int i = 0; i < count; i++) {
+            statistics.onRemoved(logs.getKeepAliveStatus(i));
+        }
+        logs.removeFirst(count);
+        timeIndex.removeFirst(count);
+    }
+    
+    /**
+     * 将一批日志编码为一个数据块写入分段日志并刷盘，写出后回收记录（在写入缓冲的锁内调用）
+     * 编码到复用的缓冲，分段日志经复用的缓冲写入，不分配对象
+     * @param entries 心跳数据（从旧到新）
+     */
+    private void writeBlock(List<HeartbeatData> entries) {
+        try {
+            int length = codec.encodeToBuffer(entries);
+            // 以块内首条日志的时间决定所属的日分段（UTC日）
+            if (!segmentLog.append(codec.getEncodeBuffer(), 0, length, entries.get(0).getTimestamp())) {
+                Log.w(TAG, "日志写入分段文件失败");
+            }
+            segmentLog.force();
         } catch (Exception e) {
             Log.e(TAG, "保存日志失败", e);
+        } finally {
+            for (int i = 0; i < entries.size(); i++) {
+                dataPool.addLast(entries.get(i));
+            }
+        }
+    }
+    
+    /**
+     * 立即写出缓冲中的日志
+     */
+    public void flush() {
+        LogWriteBuffer<HeartbeatData> currentBuffer;
+        synchronized (this) {
+            currentBuffer = writeBuffer;
+        }
+        if (currentBuffer != null) {
+            currentBuffer.flush();
         }
     }
     
     /**
-     * 从本地存储加载日志
+     * 后台加载：打开日志文件，从新到旧逐块解码，每解码一块唤醒等待中的读取
      */
     private void loadLogs() {
         try {
-            String jsonString = prefs.getString(KEY_LOGS, null);
+            long startTime = System.currentTimeMillis();
             
-            if (jsonString == null || jsonString.isEmpty()) {
-                Log.d(TAG, "没有本地日志");
-                return;
-            }
+            KeepAliveStore loadedStore = KeepAliveStore.getInstance(context);
+            HeartbeatSegmentLog loadedSegmentLog = loadedStore.getLog(KeepAliveStore.LOG_HEARTBEAT);
+            HeartbeatCodec loadedCodec = new HeartbeatCodec(loadedStore.getStringDictionary());
+            HeartbeatRollups loadedRollups = loadedStore.getRollups();
+            long lowWater = loadedStore.getHeartbeatLogLowWater();
             
-            JSONArray jsonArray = JSON.parseArray(jsonString);
-            logs.clear();
+            synchronized (this) {
+                store = loadedStore;
+                segmentLog = loadedSegmentLog;
+                codec = loadedCodec;
+                rollups = loadedRollups;
+                this.lowWater = lowWater;
+            }
             
-            for (int i = 0; i < jsonArray.size(); i++) {
-                JSONObject jsonObject = jsonArray.getJSONObject(i);
-                HeartbeatData data = HeartbeatData.fromJson(jsonObject);
-                logs.add(data);
+            // 加载完成前不会写入该文件，记录序号保持稳定
+            boolean done = false;
+            for (int i = loadedSegmentLog.size() - 1; i >= 0 && !done; i--) {
+                List<HeartbeatData> block;
+                try {
+                    block = loadedCodec.decode(loadedSegmentLog.read(i));
+                } catch (Exception e) {
+                    // 单个数据块无法解码时跳过，不影响其余历史日志
+                    Log.w(TAG, "跳过无法解码的日志块: " + i, e);
+                    continue;
+                }
+                
+                synchronized (this) {
+                    for (int j = block.size() - 1; j >= 0; j--) {
+                        HeartbeatData data = block.get(j);
+                        // 早于有效起始时间或超过内存上限的日志不再加载
+                        if (data.getTimestamp() < lowWater || loadedTail.size() >= MAX_LOGS) {
+                            done = true;
+                            break;
+                        }
+                        if (isLegacyEvent(data)) {
+                            continue;
+                        }
+                        loadedTail.add(data);
+                    }
+                    notifyAll();
+                }
             }
             
-            Log.d(TAG, "从本地存储加载了 " + logs.size() + " 条日志");
+            Log.d(TAG, "从本地存储加载了 " + loadedTail.size() + " 条日志，耗时: "
+                + (System.currentTimeMillis() - startTime) + "ms");
             
         } catch (Exception e) {
             Log.e(TAG, "加载日志失败", e);
+        } finally {
+            finishLoading();
+        }
+    }
+    
+    /**
+     * 合并已加载的历史日志与加载期间记录的日志
+     */
+    private synchronized void finishLoading() {
+        try {
+            if (store != null && !closed) {
+                writeBuffer = store.createWriteBuffer(TAG, new LogWriteBuffer.Sink<HeartbeatData>() {
+                    @Override
+                    public void write(List<HeartbeatData> entries) {
+                        writeBlock(entries);
+                    }
+                });
+            }
+            if (rollups != null && expectedInterval > 0) {
+                rollups.setGapThreshold(expectedInterval * 2);
+            }
+            
             logs.clear();
+            timeIndex.clear();
+            statistics.clear();
+            for (int i = loadedTail.size() - 1; i >= 0; i--) {
+                appendLocked(loadedTail.get(i));
+            }
+            
+            loaded = true;
+            
+            for (HeartbeatData data : earlyLogs) {
+                log(data);
+            }
+            
+        } catch (Exception e) {
+            Log.e(TAG, "合并日志失败", e);
+        } finally {
+            loaded = true;
+            loadedTail.clear();
+            earlyLogs.clear();
+            notifyAll();
+        }
+    }
+    
+    /**
+     * 等待后台加载完成（调用方需持有锁）
+     */
+    private void awaitLoadedLocked() {
+        while (!loaded) {
+            if (!waitLocked()) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 释放锁等待加载进度
+     * @return 是否正常唤醒（被中断返回false）
+     */
+    private boolean waitLocked() {
+        try {
+            wait();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * 加载未完成时已可用的日志（从旧到新）
+     */
+    private List<HeartbeatData> partialLogsLocked() {
+        List<HeartbeatData> partial = new ArrayList<>(loadedTail.size() + earlyLogs.size());
+        for (int i = loadedTail.size() - 1; i >= 0; i--) {
+            partial.add(loadedTail.get(i));
         }
+        partial.addAll(earlyLogs);
+        return partial;
     }
     
     /**
@@ -267,6 +709,7 @@ public class LocalHeartbeatLogger {
      * @return 日志数量
      */
     public synchronized int getLogCount() {
+        awaitLoadedLocked();
         return logs.size();
     }
     
@@ -275,13 +718,15 @@ public class LocalHeartbeatLogger {
      * @return 是否有异常
      */
     public synchronized boolean hasAbnormalHeartbeat() {
-        if (logs.isEmpty()) {
-            return false;
+        if (loaded) {
+            // 最近一次异常心跳仍在内存中，且位于最近10条之内
+            return lastAbnormalPosition >= 0
+                && lastAbnormalPosition >= appendedCount - logs.size()
+                && lastAbnormalPosition >= appendedCount - ABNORMAL_CHECK_COUNT;
         }
         
-        // 检查最近的心跳是否有异常状态
-        for (int i = logs.size() - 1; i >= 0 && i >= logs.size() - 10; i--) {
-            HeartbeatData log = logs.get(i);
+        // 加载未完成时检查已可用的最近心跳
+        for (HeartbeatData log : getRecentLogs(ABNORMAL_CHECK_COUNT)) {
             String status = log.getKeepAliveStatus();
             if ("error".equals(status) || "abnormal".equals(status)) {
                 return true;
@@ -296,10 +741,12 @@ public class LocalHeartbeatLogger {
      * @return JSON字符串
      */
     public synchronized String exportLogsAsJson() {
+        awaitLoadedLocked();
+        
         try {
             JSONArray jsonArray = new JSONArray();
-            for (HeartbeatData log : logs) {
-                jsonArray.add(log.toJson());
+            for (int i = 0; i < logs.size(); i++) {
+                jsonArray.add(logs.get(i).toJson());
             }
             return jsonArray.toJSONString();
         } catch (Exception e) {
@@ -309,28 +756,76 @@ public class LocalHeartbeatLogger {
     }
     
     /**
-     * 记录事件
-     * @param event 事件JSON对象
+     * 导出分段日志中保留的全部日志（最多7天）到缓存目录下的文件，逐块解码、逐条流式写入
+     * 先写出缓冲中的日志，再按数据块序号固定导出范围；写文件时不持有锁，
+     * 导出期间新写入的日志不在范围内，被清理的最旧数据块和损坏的数据块跳过
+     * @param gzip 是否gzip压缩
+     * @return 导出结果：path、count、size、gzip
      */
-    public synchronized void logEvent(JSONObject event) {
-        try {
-            Log.d(TAG, "记录事件: " + event.getString("eventType"));
-            
-            // 创建一个特殊的心跳数据对象来存储事件
-            HeartbeatData eventData = new HeartbeatData();
-            eventData.setTimestamp(event.getLongValue("timestamp"));
-            eventData.setKeepAliveStatus("event:" + event.getString("eventType"));
-            
-            // 将事件详情存储在设备ID字段中（临时方案）
-            eventData.setDeviceId(event.toJSONString());
-            
-            // 记录到日志
-            log(eventData);
-            
-            Log.d(TAG, "事件记录成功");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "记录事件失败", e);
+    public JSONObject exportLogsToFile(boolean gzip) throws IOException {
+        flush();
+        
+        final HeartbeatSegmentLog exportLog;
+        final HeartbeatCodec exportCodec;
+        final long exportLowWater;
+        synchronized (this) {
+            awaitLoadedLocked();
+            if (segmentLog == null) {
+                throw new IOException("心跳日志未加载");
+            }
+            exportLog = segmentLog;
+            exportCodec = codec;
+            exportLowWater = lowWater;
         }
+        
+        final long firstSequence = exportLog.getFirstSequence();
+        final int blockCount = (int) (exportLog.getNextSequence() - firstSequence);
+        
+        return HeartbeatLogExporter.export(context, "heartbeat_logs", new HeartbeatLogExporter.RecordSource() {
+            @Override
+            public int size() {
+                return blockCount;
+            }
+            
+            @Override
+            public List<byte[]> get(int index) {
+                List<HeartbeatData> block;
+                try {
+                    byte[] payload = exportLog.readSequence(firstSequence + index);
+                    if (payload == null) {
+                        return null;
+                    }
+                    block = exportCodec.decode(payload);
+                } catch (Exception e) {
+                    // 校验失败或无法解码的数据块跳过，不中断导出
+                    Log.w(TAG, "导出时跳过无法读取的日志块: " + (firstSequence + index), e);
+                    return null;
+                }
+                
+                List<byte[]> records = new ArrayList<>(block.size());
+                for (HeartbeatData data : block) {
+                    if (data.getTimestamp() >= exportLowWater && !isLegacyEvent(data)) {
+                        records.add(data.toJson().toJSONString().getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                return records;
+            }
+        }, gzip);
+    }
+    
+    /**
+     * 记录事件，写入独立的保活事件日志
+     * @param event 事件JSON对象（包含 eventType）
+     */
+    public void logEvent(JSONObject event) {
+        EventJournal.getInstance(context).record(event);
+    }
+    
+    /**
+     * 是否为旧版写在心跳日志中的事件记录
+     */
+    private static boolean isLegacyEvent(HeartbeatData data) {
+        String status = data.getKeepAliveStatus();
+        return status != null && status.startsWith(LEGACY_EVENT_STATUS_PREFIX);
     }
 }
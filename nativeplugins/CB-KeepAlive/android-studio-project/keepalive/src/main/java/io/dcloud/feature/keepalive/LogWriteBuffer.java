@@ -0,0 +1,190 @@
+package io.dcloud.feature.keepalive;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志延迟写入缓冲
+ * 最近的日志先保存在内存中，按持久化模式批量写入日志文件
+ *
+ * 持久化模式：
+ * 1. immediate：每条日志立即写入并刷盘
+ * 2. batched：累计达到数量阈值或等待超过时间阈值时批量写入并刷盘一次（默认）
+ * 3. on_demand：只在显式刷新（内存修剪、服务销毁、调用flush）或缓冲已满时写入
+ *
+ * 定时写入登记在插件时间轮上，与其他定时任务合并唤醒，不占用主线程；
+ * 定时写入任务只创建一次，之后重新登记同一个任务；按数量写出时不取消已登记的定时写入，
+ * 到期时写出此后缓冲的日志（只会提前，不会超过时间阈值），连续写入时不反复调整时间轮的唤醒
+ *
+ * @param <T> 日志条目类型
+ */
+public class LogWriteBuffer<T> {
+
+    private static final String TAG = "LogWriteBuffer";
+
+    // 持久化模式
+    public static final String DURABILITY_IMMEDIATE = "immediate";
+    public static final String DURABILITY_BATCHED = "batched";
+    public static final String DURABILITY_ON_DEMAND = "on_demand";
+
+    // 批量写入阈值
+    private static final int BATCH_SIZE = 20;
+    private static final long BATCH_DELAY_MS = 60 * 1000L; // 1分钟
+    private static final long BATCH_DELAY_TOLERANCE_MS = 30 * 1000L;
+
+    // 按需模式下缓冲的最大条目数，防止内存无限增长
+    private static final int MAX_PENDING = 240;
+
+    /**
+     * 日志写入目标
+     */
+    public interface Sink<T> {
+        /**
+         * 写入一批日志（从旧到新）并刷盘
+         * 列表是缓冲内部的列表，只在调用期间有效，不可保留
+         */
+        void write(List<T> entries);
+    }
+
+    private final String name;
+    private final Sink<T> sink;
+    private final KeepAliveTimerWheel timerWheel;
+    private final Runnable flushRunnable;
+    private final List<T> pending = new ArrayList<>();
+
+    private String durability = DURABILITY_BATCHED;
+    private KeepAliveTimerWheel.Task flushTask;
+    private boolean flushScheduled = false;
+
+    /**
+     * @param name 缓冲名称（用于日志输出）
+     * @param sink 写入目标
+     */
+    public LogWriteBuffer(String name, Sink<T> sink) {
+        this.name = name;
+        this.sink = sink;
+        this.timerWheel = KeepAliveTimerWheel.getInstance();
+        this.flushRunnable = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (LogWriteBuffer.this) {
+                    flushScheduled = false;
+                }
+                flush();
+            }
+        };
+    }
+
+    /**
+     * 设置持久化模式，切换到立即写入时先写出已缓冲的日志
+     * @param durability DURABILITY_IMMEDIATE / DURABILITY_BATCHED / DURABILITY_ON_DEMAND
+     */
+    public synchronized void setDurability(String durability) {
+        if (!DURABILITY_IMMEDIATE.equals(durability)
+            && !DURABILITY_BATCHED.equals(durability)
+            && !DURABILITY_ON_DEMAND.equals(durability)) {
+            Log.w(TAG, "未知的持久化模式: " + durability);
+            return;
+        }
+
+        this.durability = durability;
+        if (!DURABILITY_BATCHED.equals(durability)) {
+            cancelScheduledFlush();
+        }
+        if (DURABILITY_IMMEDIATE.equals(durability)) {
+            flush();
+        }
+    }
+
+    public synchronized String getDurability() {
+        return durability;
+    }
+
+    /**
+     * 追加一条日志
+     * @param entry 日志条目
+     */
+    public synchronized void add(T entry) {
+        pending.add(entry);
+
+        if (DURABILITY_IMMEDIATE.equals(durability)) {
+            flush();
+        } else if (DURABILITY_BATCHED.equals(durability)) {
+            if (pending.size() >= BATCH_SIZE) {
+                writePending();
+            } else if (!flushScheduled) {
+                if (flushTask == null) {
+                    flushTask = timerWheel.scheduleOnce("log_flush_" + name, BATCH_DELAY_MS, BATCH_DELAY_TOLERANCE_MS, flushRunnable);
+                } else {
+                    timerWheel.rescheduleOnce(flushTask, BATCH_DELAY_MS);
+                }
+                flushScheduled = true;
+            }
+        } else if (pending.size() >= MAX_PENDING) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即写出所有缓冲的日志
+     */
+    public synchronized void flush() {
+        cancelScheduledFlush();
+        writePending();
+    }
+
+    private void writePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 直接写出内部列表，写出后清空，不复制
+        try {
+            writeToSink(pending);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * 丢弃所有缓冲的日志（日志被清除时调用）
+     * @return 丢弃的日志数
+     */
+    public synchronized int discard() {
+        cancelScheduledFlush();
+        int count = pending.size();
+        pending.clear();
+        return count;
+    }
+
+    /**
+     * 获取缓冲中的日志（从旧到新）
+     */
+    public synchronized List<T> getPending() {
+        return new ArrayList<>(pending);
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void writeToSink(List<T> entries) {
+        try {
+            sink.write(entries);
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, name + " 写入 " + entries.size() + " 条日志");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, name + " 写入日志失败", e);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (flushScheduled) {
+            timerWheel.cancel(flushTask);
+            flushScheduled = false;
+        }
+    }
+}
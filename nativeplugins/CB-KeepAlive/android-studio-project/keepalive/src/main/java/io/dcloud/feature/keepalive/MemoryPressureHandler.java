@@ -42,9 +42,17 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
     private int currentPressureLevel = PRESSURE_LEVEL_NORMAL;
     private MemoryPressureListener listener;
     
+    // 定期检查任务（登记在插件时间轮上）
+    private static final long MONITOR_INTERVAL_MS = 60000;   // 每分钟检查一次
+    private static final long MONITOR_TOLERANCE_MS = 30000;  // 容差30秒，通常与心跳合并唤醒
+    private KeepAliveTimerWheel.Task monitorTask;
+    
     // 降级策略状态
     private boolean isDegraded = false;
-    private int originalHeartbeatInterval = 30000;
+    
+    // 降级时提交给心跳间隔仲裁器的倍数
+    private static final float DEGRADED_MULTIPLIER = 2.0f;
+    private static final float MINIMAL_MULTIPLIER = 4.0f;
     
     public MemoryPressureHandler(Context context) {
         this.context = context.getApplicationContext();
@@ -215,8 +223,8 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
             
             Log.i(TAG, "恢复正常保活策略");
             
-            // 恢复正常心跳间隔
-            updateHeartbeatInterval(originalHeartbeatInterval);
+            // 撤回内存投票，恢复正常心跳间隔
+            HeartbeatIntervalArbiter.getInstance().withdraw(HeartbeatIntervalArbiter.SOURCE_MEMORY);
             
             isDegraded = false;
             
@@ -251,27 +259,15 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
         try {
             Log.i(TAG, "应用降级保活策略");
             
-            if (!isDegraded) {
-                // 保存原始心跳间隔
-                KeepAliveManager manager = KeepAliveManager.getInstance();
-                if (manager.isInitialized()) {
-                    KeepAliveConfig config = manager.getConfig();
-                    if (config != null) {
-                        originalHeartbeatInterval = config.getHeartbeatInterval();
-                    }
-                }
-            }
-            
             // 降低心跳频率（延长间隔到2倍）
-            int degradedInterval = originalHeartbeatInterval * 2;
-            updateHeartbeatInterval(degradedInterval);
+            submitMultiplier(DEGRADED_MULTIPLIER, "内存压力中等");
             
             // 清理内存
             System.gc();
             
             isDegraded = true;
             
-            Log.d(TAG, "降级策略已应用，心跳间隔: " + degradedInterval + "ms");
+            Log.d(TAG, "降级策略已应用，心跳间隔倍数: " + DEGRADED_MULTIPLIER);
             
         } catch (Exception e) {
             Log.e(TAG, "应用降级策略异常", e);
@@ -285,20 +281,8 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
         try {
             Log.w(TAG, "应用最小化保活策略（严重内存压力）");
             
-            if (!isDegraded) {
-                // 保存原始心跳间隔
-                KeepAliveManager manager = KeepAliveManager.getInstance();
-                if (manager.isInitialized()) {
-                    KeepAliveConfig config = manager.getConfig();
-                    if (config != null) {
-                        originalHeartbeatInterval = config.getHeartbeatInterval();
-                    }
-                }
-            }
-            
             // 大幅降低心跳频率（延长间隔到4倍）
-            int minimalInterval = originalHeartbeatInterval * 4;
-            updateHeartbeatInterval(minimalInterval);
+            submitMultiplier(MINIMAL_MULTIPLIER, "内存压力严重");
             
             // 强制垃圾回收
             System.gc();
@@ -306,7 +290,7 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
             
             isDegraded = true;
             
-            Log.d(TAG, "最小化策略已应用，心跳间隔: " + minimalInterval + "ms");
+            Log.d(TAG, "最小化策略已应用，心跳间隔倍数: " + MINIMAL_MULTIPLIER);
             
         } catch (Exception e) {
             Log.e(TAG, "应用最小化策略异常", e);
@@ -314,23 +298,16 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
     }
     
     /**
-     * 更新心跳间隔
-     * @param newInterval 新的心跳间隔
+     * 向心跳间隔仲裁器提交内存投票
+     * @param multiplier 心跳间隔倍数
+     * @param reason 原因
      */
-    private void updateHeartbeatInterval(int newInterval) {
+    private void submitMultiplier(float multiplier, String reason) {
         try {
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (manager.isInitialized()) {
-                KeepAliveConfig config = manager.getConfig();
-                if (config != null) {
-                    config.setHeartbeatInterval(newInterval);
-                    manager.updateConfig(config);
-                    
-                    Log.d(TAG, "心跳间隔已更新: " + newInterval + "ms");
-                }
-            }
+            HeartbeatIntervalArbiter.getInstance().submit(HeartbeatIntervalArbiter.Vote.multiplier(
+                HeartbeatIntervalArbiter.SOURCE_MEMORY, HeartbeatIntervalArbiter.PRIORITY_MEMORY, multiplier, reason));
         } catch (Exception e) {
-            Log.e(TAG, "更新心跳间隔异常", e);
+            Log.e(TAG, "提交心跳间隔投票异常", e);
         }
     }
     
@@ -357,35 +334,32 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
         try {
             Log.d(TAG, "启动内存监控");
             
+            cancelMonitorTask();
+            
             // 立即检查一次内存状态
             JSONObject status = checkMemoryStatus();
             int pressureLevel = status.getIntValue("pressureLevel");
             handleMemoryPressure(pressureLevel);
             
             // 定期检查内存状态（每分钟）
-            android.os.Handler handler = new android.os.Handler(android.os.Looper.getMainLooper());
-            Runnable monitorRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        JSONObject status = checkMemoryStatus();
-                        int pressureLevel = status.getIntValue("pressureLevel");
-                        
-                        // 只有压力级别变化时才处理
-                        if (pressureLevel != currentPressureLevel) {
-                            handleMemoryPressure(pressureLevel);
+            monitorTask = KeepAliveTimerWheel.getInstance().schedule("memory_monitor",
+                MONITOR_INTERVAL_MS, MONITOR_TOLERANCE_MS, MONITOR_INTERVAL_MS, new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            JSONObject status = checkMemoryStatus();
+                            int pressureLevel = status.getIntValue("pressureLevel");
+                            
+                            // 只有压力级别变化时才处理
+                            if (pressureLevel != currentPressureLevel) {
+                                handleMemoryPressure(pressureLevel);
+                            }
+                            
+                        } catch (Exception e) {
+                            Log.e(TAG, "内存监控异常", e);
                         }
-                        
-                        // 继续监控
-                        handler.postDelayed(this, 60000); // 每分钟检查一次
-                        
-                    } catch (Exception e) {
-                        Log.e(TAG, "内存监控异常", e);
                     }
-                }
-            };
-            
-            handler.postDelayed(monitorRunnable, 60000);
+                });
             
             Log.d(TAG, "内存监控已启动");
             
@@ -401,6 +375,9 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
         try {
             Log.d(TAG, "停止内存监控");
             
+            // 取消定期检查
+            cancelMonitorTask();
+            
             // 恢复正常策略
             if (isDegraded) {
                 restoreNormalStrategy();
@@ -416,6 +393,16 @@ public class MemoryPressureHandler implements ComponentCallbacks2 {
         }
     }
     
+    /**
+     * 取消定期检查任务
+     */
+    private void cancelMonitorTask() {
+        if (monitorTask != null) {
+            KeepAliveTimerWheel.getInstance().cancel(monitorTask);
+            monitorTask = null;
+        }
+    }
+    
     // ComponentCallbacks2 接口实现
     
     @Override
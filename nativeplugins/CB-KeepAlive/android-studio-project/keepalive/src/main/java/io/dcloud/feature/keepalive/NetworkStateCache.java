@@ -0,0 +1,468 @@
+package io.dcloud.feature.keepalive;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 网络状态缓存
+ * 通过 ConnectivityManager.NetworkCallback 跟踪默认网络，缓存传输类型、计费、已验证和链路带宽估计；
+ * 读取为常数时间，不依赖 API 24+ 收不到的 CONNECTIVITY_ACTION 广播；API 23+ 不再调用已废弃的 getActiveNetworkInfo()
+ *
+ * 实现说明：
+ * 1. API 24+ 使用 registerDefaultNetworkCallback，回调直接携带默认网络的能力
+ * 2. API 21-23 监听所有具备 INTERNET 能力的网络，任一回调到达时重新读取默认网络
+ * 3. 回调统一切换到插件调度线程处理，监听器在调度线程收到变化事件
+ *
+ * @author 崔博小程序开发团队
+ * @version 1.0.0
+ */
+public class NetworkStateCache {
+
+    private static final String TAG = "NetworkStateCache";
+
+    // 传输类型
+    public static final String TRANSPORT_WIFI = "wifi";
+    public static final String TRANSPORT_MOBILE = "mobile";
+    public static final String TRANSPORT_ETHERNET = "ethernet";
+    public static final String TRANSPORT_OTHER = "other";
+    public static final String TRANSPORT_NONE = "none";
+    public static final String TRANSPORT_UNKNOWN = "unknown";
+
+    // 单例实例
+    private static volatile NetworkStateCache instance;
+
+    private final Context context;
+    private final ConnectivityManager connectivityManager;
+    private final KeepAliveScheduler scheduler;
+
+    // 当前网络状态
+    private volatile NetworkState state;
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 网络状态变化监听器
+     */
+    public interface Listener {
+        /**
+         * 网络状态变化回调（插件调度线程）
+         * @param previous 变化前的状态
+         * @param current 变化后的状态
+         */
+        void onNetworkStateChanged(NetworkState previous, NetworkState current);
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static NetworkStateCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (NetworkStateCache.class) {
+                if (instance == null) {
+                    instance = new NetworkStateCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private NetworkStateCache(Context context) {
+        this.context = context;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.scheduler = KeepAliveScheduler.getInstance();
+        this.state = readActiveNetwork(0);
+        registerCallback();
+    }
+
+    /**
+     * 获取当前网络状态
+     * @return 不可变网络状态
+     */
+    public NetworkState getState() {
+        return state;
+    }
+
+    /**
+     * 添加网络状态监听器
+     * @param listener 监听器
+     */
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+    /**
+     * 移除网络状态监听器
+     * @param listener 监听器
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 注册网络回调（每个进程一次）
+     */
+    private void registerCallback() {
+        if (connectivityManager == null) {
+            Log.w(TAG, "ConnectivityManager 不可用");
+            return;
+        }
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                connectivityManager.registerDefaultNetworkCallback(new DefaultNetworkCallback());
+            } else {
+                NetworkRequest request = new NetworkRequest.Builder()
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build();
+                connectivityManager.registerNetworkCallback(request, new LegacyNetworkCallback());
+            }
+
+            Log.d(TAG, "网络回调已注册: " + state);
+
+        } catch (Exception e) {
+            Log.e(TAG, "注册网络回调失败", e);
+        }
+    }
+
+    /**
+     * 在调度线程更新状态并通知监听器
+     */
+    private void update(final NetworkState next) {
+        scheduler.post(new Runnable() {
+            @Override
+            public void run() {
+                NetworkState previous = state;
+                state = next.withVersion(previous.version + 1);
+
+                if (previous.sameState(next)) {
+                    return;
+                }
+
+                Log.d(TAG, "网络状态变化: " + state);
+
+                for (Listener listener : listeners) {
+                    try {
+                        listener.onNetworkStateChanged(previous, state);
+                    } catch (Exception e) {
+                        Log.e(TAG, "网络状态监听器异常", e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 主动读取默认网络（初始化及 API 24 以下的回调使用）
+     */
+    @SuppressWarnings("deprecation")
+    private NetworkState readActiveNetwork(long version) {
+        if (connectivityManager == null) {
+            return NetworkState.unknown(version);
+        }
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                Network network = connectivityManager.getActiveNetwork();
+                NetworkCapabilities capabilities = network != null
+                    ? connectivityManager.getNetworkCapabilities(network) : null;
+                return fromCapabilities(version, capabilities);
+            }
+
+            // API 21-22 没有 getActiveNetwork，只能读取 NetworkInfo
+            android.net.NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+            if (networkInfo == null || !networkInfo.isConnected()) {
+                return NetworkState.none(version);
+            }
+
+            String transport;
+            switch (networkInfo.getType()) {
+                case ConnectivityManager.TYPE_WIFI:
+                    transport = TRANSPORT_WIFI;
+                    break;
+                case ConnectivityManager.TYPE_MOBILE:
+                    transport = TRANSPORT_MOBILE;
+                    break;
+                case ConnectivityManager.TYPE_ETHERNET:
+                    transport = TRANSPORT_ETHERNET;
+                    break;
+                default:
+                    transport = TRANSPORT_OTHER;
+                    break;
+            }
+            return new NetworkState(version, true, transport, mobileGeneration(transport),
+                connectivityManager.isActiveNetworkMetered(), true, -1, -1, System.currentTimeMillis());
+
+        } catch (Exception e) {
+            Log.e(TAG, "读取默认网络失败", e);
+            return NetworkState.unknown(version);
+        }
+    }
+
+    private NetworkState fromCapabilities(long version, NetworkCapabilities capabilities) {
+        if (capabilities == null || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+            return NetworkState.none(version);
+        }
+
+        String transport;
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            transport = TRANSPORT_WIFI;
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            transport = TRANSPORT_MOBILE;
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            transport = TRANSPORT_ETHERNET;
+        } else {
+            transport = TRANSPORT_OTHER;
+        }
+
+        boolean metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+        boolean validated = Build.VERSION.SDK_INT < Build.VERSION_CODES.M
+            || capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+
+        return new NetworkState(version, true, transport, mobileGeneration(transport), metered, validated,
+            capabilities.getLinkDownstreamBandwidthKbps(), capabilities.getLinkUpstreamBandwidthKbps(),
+            System.currentTimeMillis());
+    }
+
+    /**
+     * 获取移动网络代际，无权限或无法识别时返回 mobile
+     */
+    @SuppressWarnings("deprecation")
+    private String mobileGeneration(String transport) {
+        if (!TRANSPORT_MOBILE.equals(transport)) {
+            return transport;
+        }
+
+        try {
+            TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            if (tm == null) {
+                return TRANSPORT_MOBILE;
+            }
+            int networkType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? tm.getDataNetworkType() : tm.getNetworkType();
+            return getMobileNetworkType(networkType);
+
+        } catch (SecurityException e) {
+            // API 30+ 读取数据网络类型需要 READ_PHONE_STATE
+            return TRANSPORT_MOBILE;
+        } catch (Exception e) {
+            Log.e(TAG, "读取移动网络类型失败", e);
+            return TRANSPORT_MOBILE;
+        }
+    }
+
+    /**
+     * 获取移动网络代际
+     * @param subtype 网络子类型
+     * @return 2g/3g/4g/5g，无法识别返回 mobile
+     */
+    private static String getMobileNetworkType(int subtype) {
+        switch (subtype) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return "2g";
+
+            case TelephonyManager.NETWORK_TYPE_UMTS:
+            case TelephonyManager.NETWORK_TYPE_EVDO_0:
+            case TelephonyManager.NETWORK_TYPE_EVDO_A:
+            case TelephonyManager.NETWORK_TYPE_HSDPA:
+            case TelephonyManager.NETWORK_TYPE_HSUPA:
+            case TelephonyManager.NETWORK_TYPE_HSPA:
+            case TelephonyManager.NETWORK_TYPE_EVDO_B:
+            case TelephonyManager.NETWORK_TYPE_EHRPD:
+            case TelephonyManager.NETWORK_TYPE_HSPAP:
+                return "3g";
+
+            case TelephonyManager.NETWORK_TYPE_LTE:
+                return "4g";
+
+            case TelephonyManager.NETWORK_TYPE_NR:
+                return "5g";
+
+            default:
+                return TRANSPORT_MOBILE;
+        }
+    }
+
+    /**
+     * 网络状态（不可变）
+     */
+    public static final class NetworkState {
+
+        private final long version;
+        private final boolean available;
+        private final String transport;
+        private final String detailedType;
+        private final boolean metered;
+        private final boolean validated;
+        private final int downstreamKbps;
+        private final int upstreamKbps;
+        private final long updateTime;
+
+        private NetworkState(long version, boolean available, String transport, String detailedType,
+                             boolean metered, boolean validated, int downstreamKbps, int upstreamKbps,
+                             long updateTime) {
+            this.version = version;
+            this.available = available;
+            this.transport = transport;
+            this.detailedType = detailedType;
+            this.metered = metered;
+            this.validated = validated;
+            this.downstreamKbps = downstreamKbps;
+            this.upstreamKbps = upstreamKbps;
+            this.updateTime = updateTime;
+        }
+
+        private static NetworkState none(long version) {
+            return new NetworkState(version, false, TRANSPORT_NONE, TRANSPORT_NONE, false, false, -1, -1,
+                System.currentTimeMillis());
+        }
+
+        private static NetworkState unknown(long version) {
+            return new NetworkState(version, false, TRANSPORT_UNKNOWN, TRANSPORT_UNKNOWN, false, false, -1, -1,
+                System.currentTimeMillis());
+        }
+
+        private NetworkState withVersion(long newVersion) {
+            return new NetworkState(newVersion, available, transport, detailedType, metered, validated,
+                downstreamKbps, upstreamKbps, updateTime);
+        }
+
+        private boolean sameState(NetworkState other) {
+            return available == other.available
+                && metered == other.metered
+                && validated == other.validated
+                && downstreamKbps == other.downstreamKbps
+                && upstreamKbps == other.upstreamKbps
+                && transport.equals(other.transport)
+                && detailedType.equals(other.detailedType);
+        }
+
+        /**
+         * 状态版本号，每次收到网络回调递增
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 是否有可用的默认网络（具备 INTERNET 能力）
+         */
+        public boolean isAvailable() {
+            return available;
+        }
+
+        /**
+         * 传输类型：wifi/mobile/ethernet/other/none/unknown
+         */
+        public String getTransport() {
+            return transport;
+        }
+
+        /**
+         * 网络类型，移动网络细分为 2g/3g/4g/5g
+         */
+        public String getDetailedType() {
+            return detailedType;
+        }
+
+        public boolean isMetered() {
+            return metered;
+        }
+
+        /**
+         * 系统是否已验证该网络可以访问互联网（API 23 以下恒为 true）
+         */
+        public boolean isValidated() {
+            return validated;
+        }
+
+        /**
+         * 下行链路带宽估计（Kbps），未知返回-1
+         */
+        public int getDownstreamKbps() {
+            return downstreamKbps;
+        }
+
+        /**
+         * 上行链路带宽估计（Kbps），未知返回-1
+         */
+        public int getUpstreamKbps() {
+            return upstreamKbps;
+        }
+
+        public long getUpdateTime() {
+            return updateTime;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("version", version);
+            json.put("available", available);
+            json.put("transport", transport);
+            json.put("networkType", detailedType);
+            json.put("metered", metered);
+            json.put("validated", validated);
+            json.put("downstreamKbps", downstreamKbps);
+            json.put("upstreamKbps", upstreamKbps);
+            json.put("updateTime", updateTime);
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return toJSON().toJSONString();
+        }
+    }
+
+    /**
+     * 默认网络回调（API 24+）
+     */
+    private class DefaultNetworkCallback extends ConnectivityManager.NetworkCallback {
+
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            update(fromCapabilities(0, capabilities));
+        }
+
+        @Override
+        public void onLost(Network network) {
+            update(NetworkState.none(0));
+        }
+    }
+
+    /**
+     * 网络回调（API 21-23），回调只作为变化通知，状态重新读取默认网络
+     */
+    private class LegacyNetworkCallback extends ConnectivityManager.NetworkCallback {
+
+        @Override
+        public void onAvailable(Network network) {
+            update(readActiveNetwork(0));
+        }
+
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            update(readActiveNetwork(0));
+        }
+
+        @Override
+        public void onLost(Network network) {
+            update(readActiveNetwork(0));
+        }
+    }
+}
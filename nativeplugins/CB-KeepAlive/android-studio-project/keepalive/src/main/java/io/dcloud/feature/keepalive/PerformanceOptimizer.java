@@ -1,8 +1,6 @@
 package io.dcloud.feature.keepalive;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
 import com.alibaba.fastjson.JSONObject;
@@ -36,23 +34,26 @@ public class PerformanceOptimizer {
     private static final int MAX_HEARTBEAT_INTERVAL = 120000; // 最大2分钟
     private static final int DEFAULT_HEARTBEAT_INTERVAL = 30000; // 默认30秒
     
-    // 日志大小限制
-    private static final int MAX_LOG_COUNT = 100;
-    private static final int LOG_CLEANUP_THRESHOLD = 90; // 达到90条时触发清理
+    // 日志保留天数
+    private static final int LOG_RETENTION_DAYS = 7;
     
     // JNI调用优化
     private static final long JNI_CALL_CACHE_DURATION = 5000; // JNI调用结果缓存5秒
     
+    // 定期优化周期和容差
+    private static final long OPTIMIZATION_PERIOD_MS = 5 * 60 * 1000;    // 5分钟
+    private static final long OPTIMIZATION_TOLERANCE_MS = 60 * 1000;     // 1分钟
+    
     private Context context;
-    private Handler optimizationHandler;
+    private KeepAliveTimerWheel.Task optimizationTask;
     private LocalHeartbeatLogger heartbeatLogger;
     
     // 性能统计
     private long lastOptimizationTime = 0;
     private int optimizationCount = 0;
     
-    // 心跳间隔调整状态
-    private int currentHeartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
+    // 心跳间隔调整状态（以倍数形式投票给心跳间隔仲裁器）
+    private float intervalFactor = 1.0f;
     private boolean isIntervalAdjusted = false;
     
     // JNI调用缓存
@@ -62,7 +63,6 @@ public class PerformanceOptimizer {
     public PerformanceOptimizer(Context context, LocalHeartbeatLogger heartbeatLogger) {
         this.context = context;
         this.heartbeatLogger = heartbeatLogger;
-        this.optimizationHandler = new Handler(Looper.getMainLooper());
     }
     
     /**
@@ -72,10 +72,7 @@ public class PerformanceOptimizer {
         try {
             Log.d(TAG, "启动性能优化");
             
-            // 立即执行一次优化
-            performOptimization();
-            
-            // 定期执行优化（每5分钟）
+            // 立即执行一次优化，之后定期执行（每5分钟）
             schedulePeriodicOptimization();
             
             Log.d(TAG, "性能优化已启动");
@@ -92,9 +89,7 @@ public class PerformanceOptimizer {
         try {
             Log.d(TAG, "停止性能优化");
             
-            if (optimizationHandler != null) {
-                optimizationHandler.removeCallbacksAndMessages(null);
-            }
+            cancelPeriodicOptimization();
             
             // 清理缓存
             clearCache();
@@ -140,7 +135,7 @@ public class PerformanceOptimizer {
     
     /**
      * 优化心跳间隔
-     * 根据应用状态和系统资源动态调整心跳频率
+     * 根据实际心跳频率与期望频率的偏差动态调整心跳间隔倍数
      */
     private void optimizeHeartbeatInterval() {
         try {
@@ -150,6 +145,12 @@ public class PerformanceOptimizer {
                 return;
             }
             
+            HeartbeatIntervalArbiter arbiter = HeartbeatIntervalArbiter.getInstance();
+            if (arbiter.isPaused()) {
+                // 心跳已暂停，统计数据没有参考价值
+                return;
+            }
+            
             JSONObject stats = heartbeatLogger.getStatistics();
             int totalCount = stats.getIntValue("totalCount");
             
@@ -158,23 +159,28 @@ public class PerformanceOptimizer {
                 return;
             }
             
-            // 计算实际平均心跳间隔
-            long averageInterval = stats.getLongValue("averageInterval");
-            
             // 获取最近1小时的心跳数
             int recentHourCount = stats.getIntValue("recentHourCount");
             
-            // 根据心跳频率调整间隔
-            int newInterval = calculateOptimalInterval(averageInterval, recentHourCount);
+            // 按最近1小时内实际生效过的间隔计算期望心跳数（包括本模块之前的投票），
+            // 而不是按当前间隔反推，否则调整后的间隔会让偏差持续存在，倍数一路升到上限
+            long now = System.currentTimeMillis();
+            float expectedCount = arbiter.getExpectedBeats(now - 60 * 60 * 1000L, now);
+            if (expectedCount < 10) {
+                // 期望心跳数太少（刚启动或大部分时间处于暂停），不进行调整
+                return;
+            }
             
-            if (newInterval != currentHeartbeatInterval) {
-                Log.i(TAG, "调整心跳间隔: " + currentHeartbeatInterval + "ms -> " + newInterval + "ms");
+            // 根据心跳频率调整倍数
+            float newFactor = calculateOptimalFactor(recentHourCount, expectedCount);
+            
+            if (newFactor != intervalFactor) {
+                Log.i(TAG, "调整心跳间隔倍数: " + intervalFactor + " -> " + newFactor);
                 
-                currentHeartbeatInterval = newInterval;
-                isIntervalAdjusted = true;
+                intervalFactor = newFactor;
+                isIntervalAdjusted = intervalFactor != 1.0f;
                 
-                // 更新配置
-                updateHeartbeatInterval(newInterval);
+                submitIntervalVote();
             }
             
         } catch (Exception e) {
@@ -183,46 +189,44 @@ public class PerformanceOptimizer {
     }
     
     /**
-     * 计算最优心跳间隔
-     * @param averageInterval 平均间隔
+     * 计算最优心跳间隔倍数
      * @param recentHourCount 最近1小时心跳数
-     * @return 最优间隔
+     * @param expectedCount 最近1小时按实际生效间隔期望的心跳数
+     * @return 最优倍数
      */
-    private int calculateOptimalInterval(long averageInterval, int recentHourCount) {
-        // 如果最近1小时心跳数过多（超过150次，即平均24秒一次），延长间隔
-        if (recentHourCount > 150) {
-            int newInterval = (int) (currentHeartbeatInterval * 1.2);
-            return Math.min(newInterval, MAX_HEARTBEAT_INTERVAL);
+    private float calculateOptimalFactor(int recentHourCount, float expectedCount) {
+        float maxFactor = (float) MAX_HEARTBEAT_INTERVAL / DEFAULT_HEARTBEAT_INTERVAL;
+        float minFactor = (float) MIN_HEARTBEAT_INTERVAL / DEFAULT_HEARTBEAT_INTERVAL;
+        
+        // 实际心跳明显多于期望（超过1.25倍），延长间隔
+        if (recentHourCount > expectedCount * 1.25f) {
+            return Math.min(intervalFactor * 1.2f, maxFactor);
         }
         
-        // 如果最近1小时心跳数过少（少于60次，即平均60秒一次），缩短间隔
-        if (recentHourCount < 60 && currentHeartbeatInterval > MIN_HEARTBEAT_INTERVAL) {
-            int newInterval = (int) (currentHeartbeatInterval * 0.9);
-            return Math.max(newInterval, MIN_HEARTBEAT_INTERVAL);
+        // 实际心跳明显少于期望（不足一半），缩短间隔
+        if (recentHourCount < expectedCount * 0.5f && intervalFactor > minFactor) {
+            return Math.max(intervalFactor * 0.9f, minFactor);
         }
         
-        // 保持当前间隔
-        return currentHeartbeatInterval;
+        // 保持当前倍数
+        return intervalFactor;
     }
     
     /**
-     * 更新心跳间隔
-     * @param newInterval 新的心跳间隔
+     * 向心跳间隔仲裁器提交性能投票，倍数为1时撤回
      */
-    private void updateHeartbeatInterval(int newInterval) {
+    private void submitIntervalVote() {
         try {
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            if (manager.isInitialized()) {
-                KeepAliveConfig config = manager.getConfig();
-                if (config != null) {
-                    config.setHeartbeatInterval(newInterval);
-                    manager.updateConfig(config);
-                    
-                    Log.d(TAG, "心跳间隔已更新: " + newInterval + "ms");
-                }
+            HeartbeatIntervalArbiter arbiter = HeartbeatIntervalArbiter.getInstance();
+            if (intervalFactor == 1.0f) {
+                arbiter.withdraw(HeartbeatIntervalArbiter.SOURCE_PERFORMANCE);
+            } else {
+                arbiter.submit(HeartbeatIntervalArbiter.Vote
+                    .multiplier(HeartbeatIntervalArbiter.SOURCE_PERFORMANCE,
+                        HeartbeatIntervalArbiter.PRIORITY_PERFORMANCE, intervalFactor, "心跳频率偏差"));
             }
         } catch (Exception e) {
-            Log.e(TAG, "更新心跳间隔异常", e);
+            Log.e(TAG, "提交心跳间隔投票异常", e);
         }
     }
     
@@ -236,19 +240,10 @@ public class PerformanceOptimizer {
                 return;
             }
             
-            int logCount = heartbeatLogger.getLogCount();
-            
-            // 如果日志数量超过阈值，清理旧日志
-            if (logCount >= LOG_CLEANUP_THRESHOLD) {
-                Log.i(TAG, "日志数量达到阈值(" + logCount + "/" + MAX_LOG_COUNT + ")，开始清理");
-                
-                // 清理7天前的日志
-                long sevenDaysAgo = System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000L);
-                heartbeatLogger.clearLogsBefore(sevenDaysAgo);
-                
-                int newLogCount = heartbeatLogger.getLogCount();
-                Log.d(TAG, "日志清理完成，剩余: " + newLogCount + " 条");
-            }
+            // 清理保留期之前的日志：日志文件按UTC日分段，只删除整个过期分段，
+            // 清理耗时与保留的日志量无关，不触碰当前的写入分段
+            long retentionStart = System.currentTimeMillis() - LOG_RETENTION_DAYS * 24 * 60 * 60 * 1000L;
+            heartbeatLogger.clearLogsBefore(retentionStart);
             
         } catch (Exception e) {
             Log.e(TAG, "清理日志异常", e);
@@ -307,29 +302,35 @@ public class PerformanceOptimizer {
     
     /**
      * 调度定期优化
+     * 容差较大，通常与心跳在同一次唤醒中执行
      */
     private void schedulePeriodicOptimization() {
         try {
-            if (optimizationHandler == null) {
-                return;
-            }
+            cancelPeriodicOptimization();
             
-            // 每5分钟执行一次优化
-            optimizationHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    performOptimization();
-                    
-                    // 继续调度下一次优化
-                    schedulePeriodicOptimization();
-                }
-            }, 5 * 60 * 1000); // 5分钟
+            optimizationTask = KeepAliveTimerWheel.getInstance().schedule("performance_optimizer",
+                OPTIMIZATION_PERIOD_MS, OPTIMIZATION_TOLERANCE_MS, 0, new Runnable() {
+                    @Override
+                    public void run() {
+                        performOptimization();
+                    }
+                });
             
         } catch (Exception e) {
             Log.e(TAG, "调度定期优化异常", e);
         }
     }
     
+    /**
+     * 取消定期优化
+     */
+    private void cancelPeriodicOptimization() {
+        if (optimizationTask != null) {
+            KeepAliveTimerWheel.getInstance().cancel(optimizationTask);
+            optimizationTask = null;
+        }
+    }
+    
     /**
      * 获取缓存的设备信息
      * 减少频繁的JNI调用
@@ -367,13 +368,14 @@ public class PerformanceOptimizer {
         try {
             stats.put("optimizationCount", optimizationCount);
             stats.put("lastOptimizationTime", lastOptimizationTime);
-            stats.put("currentHeartbeatInterval", currentHeartbeatInterval);
+            stats.put("currentHeartbeatInterval", getCurrentHeartbeatInterval());
+            stats.put("intervalFactor", intervalFactor);
             stats.put("isIntervalAdjusted", isIntervalAdjusted);
             
             // 日志统计
             if (heartbeatLogger != null) {
                 stats.put("logCount", heartbeatLogger.getLogCount());
-                stats.put("maxLogCount", MAX_LOG_COUNT);
+                stats.put("logRetentionDays", LOG_RETENTION_DAYS);
             }
             
             // 缓存状态
@@ -391,13 +393,13 @@ public class PerformanceOptimizer {
      */
     public void resetHeartbeatInterval() {
         try {
-            if (currentHeartbeatInterval != DEFAULT_HEARTBEAT_INTERVAL) {
-                Log.i(TAG, "重置心跳间隔到默认值: " + DEFAULT_HEARTBEAT_INTERVAL + "ms");
+            if (intervalFactor != 1.0f) {
+                Log.i(TAG, "重置心跳间隔倍数，撤回性能投票");
                 
-                currentHeartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
+                intervalFactor = 1.0f;
                 isIntervalAdjusted = false;
                 
-                updateHeartbeatInterval(DEFAULT_HEARTBEAT_INTERVAL);
+                submitIntervalVote();
             }
             
         } catch (Exception e) {
@@ -410,7 +412,7 @@ public class PerformanceOptimizer {
      * @return 心跳间隔（毫秒）
      */
     public int getCurrentHeartbeatInterval() {
-        return currentHeartbeatInterval;
+        return HeartbeatIntervalArbiter.getInstance().getEffectiveInterval();
     }
     
     /**
@@ -86,6 +86,7 @@ public class ServiceRestartManager {
      * 检查服务是否正在运行
      * @return 是否正在运行
      */
+    @SuppressWarnings("deprecation")
     private boolean isServiceRunning() {
         try {
             android.app.ActivityManager manager = 
@@ -308,19 +309,13 @@ public class ServiceRestartManager {
      */
     private void recordRestartAttempt() {
         try {
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            LocalHeartbeatLogger logger = manager.getHeartbeatLogger();
-            
-            if (logger != null) {
-                JSONObject event = new JSONObject();
-                event.put("eventType", "service_restart_attempt");
-                event.put("attemptNumber", restartAttempts);
-                event.put("timestamp", System.currentTimeMillis());
-                event.put("lastStopTime", lastServiceStopTime);
-                
-                logger.logEvent(event);
-                Log.d(TAG, "重启尝试事件已记录");
-            }
+            JSONObject event = new JSONObject();
+            event.put("attemptNumber", restartAttempts);
+            event.put("timestamp", System.currentTimeMillis());
+            event.put("lastStopTime", lastServiceStopTime);
+            
+            EventJournal.getInstance(context).record(EventJournal.EVENT_RESTART_ATTEMPT, event);
+            Log.d(TAG, "重启尝试事件已记录");
             
         } catch (Exception e) {
             Log.e(TAG, "记录重启尝试事件异常", e);
@@ -332,19 +327,13 @@ public class ServiceRestartManager {
      */
     private void recordRestartSuccess() {
         try {
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            LocalHeartbeatLogger logger = manager.getHeartbeatLogger();
-            
-            if (logger != null) {
-                JSONObject event = new JSONObject();
-                event.put("eventType", "service_restart_success");
-                event.put("totalAttempts", restartAttempts);
-                event.put("timestamp", System.currentTimeMillis());
-                event.put("downtime", System.currentTimeMillis() - lastServiceStopTime);
-                
-                logger.logEvent(event);
-                Log.d(TAG, "重启成功事件已记录");
-            }
+            JSONObject event = new JSONObject();
+            event.put("totalAttempts", restartAttempts);
+            event.put("timestamp", System.currentTimeMillis());
+            event.put("downtime", System.currentTimeMillis() - lastServiceStopTime);
+            
+            EventJournal.getInstance(context).record(EventJournal.EVENT_RESTART_SUCCESS, event);
+            Log.d(TAG, "重启成功事件已记录");
             
         } catch (Exception e) {
             Log.e(TAG, "记录重启成功事件异常", e);
@@ -356,19 +345,13 @@ public class ServiceRestartManager {
      */
     private void recordRestartFailure() {
         try {
-            KeepAliveManager manager = KeepAliveManager.getInstance();
-            LocalHeartbeatLogger logger = manager.getHeartbeatLogger();
-            
-            if (logger != null) {
-                JSONObject event = new JSONObject();
-                event.put("eventType", "service_restart_failure");
-                event.put("totalAttempts", restartAttempts);
-                event.put("timestamp", System.currentTimeMillis());
-                event.put("reason", "max_attempts_reached");
-                
-                logger.logEvent(event);
-                Log.e(TAG, "重启失败事件已记录");
-            }
+            JSONObject event = new JSONObject();
+            event.put("totalAttempts", restartAttempts);
+            event.put("timestamp", System.currentTimeMillis());
+            event.put("reason", "max_attempts_reached");
+            
+            EventJournal.getInstance(context).record(EventJournal.EVENT_RESTART_FAILURE, event);
+            Log.e(TAG, "重启失败事件已记录");
             
         } catch (Exception e) {
             Log.e(TAG, "记录重启失败事件异常", e);
@@ -402,6 +385,14 @@ public class ServiceRestartManager {
                 stats.put("currentDowntime", downtime);
             }
             
+            // 事件日志中的重启记录
+            EventJournal journal = EventJournal.getInstance(context);
+            stats.put("attemptEvents", journal.getCount(EventJournal.EVENT_RESTART_ATTEMPT));
+            stats.put("successEvents", journal.getCount(EventJournal.EVENT_RESTART_SUCCESS));
+            stats.put("failureEvents", journal.getCount(EventJournal.EVENT_RESTART_FAILURE));
+            stats.put("lastSuccessTime", journal.getLastEventTime(EventJournal.EVENT_RESTART_SUCCESS));
+            stats.put("lastFailureTime", journal.getLastEventTime(EventJournal.EVENT_RESTART_FAILURE));
+            
         } catch (Exception e) {
             Log.e(TAG, "获取重启统计信息异常", e);
         }
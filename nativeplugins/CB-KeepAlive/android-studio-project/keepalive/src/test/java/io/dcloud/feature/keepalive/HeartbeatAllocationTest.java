@@ -0,0 +1,70 @@
+package io.dcloud.feature.keepalive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 定时心跳的分配测试
+ * 使用默认的持久化模式（批量写入），心跳管理器初始化时创建本地心跳日志；
+ * 预热后心跳经管线采集、分发，写入内存日志和回收的记录，每批编码到复用的缓冲写入分段日志，不应再分配对象
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class HeartbeatAllocationTest {
+
+    // 预热次数：覆盖所有指标提供者的采样周期，填满内存日志和回收池，并让编码缓冲扩容到稳定大小
+    private static final int WARM_UP_BEATS = 2000;
+    // 测量次数：批量写入模式下每20条写出一个数据块，测量期间写出10个数据块
+    private static final int MEASURED_BEATS = 200;
+    private static final int BATCH_SIZE = 20;
+
+    @Test
+    public void scheduledHeartbeatDoesNotAllocateInSteadyState() {
+        Context context = RuntimeEnvironment.getApplication();
+
+        HeartbeatManager manager = HeartbeatManager.getInstance();
+        manager.init(context, 60000);
+        HeartbeatPipeline pipeline = manager.getPipeline();
+        assertNotNull(pipeline);
+
+        // 等待本地心跳日志在后台加载完成，之后的心跳才进入写入缓冲
+        LocalHeartbeatLogger heartbeatLogger = KeepAliveManager.getInstance().getHeartbeatLogger();
+        assertNotNull(heartbeatLogger);
+        heartbeatLogger.getLogCount();
+        HeartbeatSegmentLog segmentLog = KeepAliveStore.getInstance(context).getLog(KeepAliveStore.LOG_HEARTBEAT);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < WARM_UP_BEATS; i++) {
+            pipeline.process("running", i, now, now, 0);
+        }
+        long blocksBefore = segmentLog.getNextSequence();
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_BEATS; i++) {
+            pipeline.process("running", WARM_UP_BEATS + i, now, now, 0);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // 测量范围包含批量写出：心跳在当前线程按批编码并写入分段日志
+        assertEquals(MEASURED_BEATS / BATCH_SIZE, segmentLog.getNextSequence() - blocksBefore);
+
+        // 最小的对象也有16字节，平均每次心跳不足1字节说明心跳路径上没有分配
+        assertTrue("稳态心跳分配了 " + allocated + " 字节（" + MEASURED_BEATS + " 次心跳）",
+            allocated < MEASURED_BEATS);
+    }
+}